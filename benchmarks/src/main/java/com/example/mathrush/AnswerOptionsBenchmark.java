@@ -0,0 +1,59 @@
+package com.example.mathrush;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide la construcción de las opciones de respuesta (distractores y mezcla) y
+ * la preparación completa de una pregunta.
+ *
+ * <p>Ejecutar con {@code -prof gc} para obtener la tasa de asignación por operación.</p>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AnswerOptionsBenchmark {
+
+    private static final long SEED = 20250525L;
+
+    // Respuestas pequeñas (fácil) y grandes (exponentes)
+    @Param({"7", "343"})
+    public int correctAnswer;
+
+    private GeneratedQuestionSource source;
+    private DistractorGenerator distractors;
+    private final int[] options = new int[GameSession.OPTIONS_PER_QUESTION];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        source = new GeneratedQuestionSource(SEED);
+        distractors = new DistractorGenerator(new SplittableRandom(SEED));
+    }
+
+    @Benchmark
+    public int[] generateAnswerOptions() {
+        distractors.fill(correctAnswer, options);
+        return options;
+    }
+
+    @Benchmark
+    public PreparedQuestion prepareQuestion() {
+        return source.next();
+    }
+}
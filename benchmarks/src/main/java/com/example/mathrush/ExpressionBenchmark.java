@@ -0,0 +1,78 @@
+package com.example.mathrush;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide la evaluación y la escritura de expresiones compiladas, y la generación
+ * de preguntas de expresión por profundidad.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpressionBenchmark {
+
+    private static final long SEED = 20250525L;
+
+    @State(Scope.Thread)
+    public static class ShapeState {
+        ExpressionShape shape;
+        int[] operands;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            // ((a + b) × (c - d)) ÷ (e + f × g) - h
+            Expression x = Expression.operand();
+            Expression sum = Expression.of(Expression.Operator.ADD, x, x);
+            Expression difference = Expression.of(Expression.Operator.SUBTRACT, x, x);
+            Expression product = Expression.of(Expression.Operator.MULTIPLY, sum, difference);
+            Expression divisor = Expression.of(Expression.Operator.ADD, x,
+                    Expression.of(Expression.Operator.MULTIPLY, x, x));
+            Expression quotient = Expression.of(Expression.Operator.DIVIDE, product, divisor);
+            shape = Expression.of(Expression.Operator.SUBTRACT, quotient, x).compile();
+            operands = new int[] {4, 6, 9, 2, 3, 2, 2, 1};
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class DepthState {
+        @Param({"1", "2", "3", "4"})
+        public int depth;
+
+        QuestionGenerator generator;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            generator = new QuestionGenerator(SEED);
+        }
+    }
+
+    @Benchmark
+    public int evaluate(ShapeState state) {
+        return state.shape.evaluate(state.operands);
+    }
+
+    @Benchmark
+    public String render(ShapeState state) {
+        return state.shape.render(state.operands);
+    }
+
+    @Benchmark
+    public MathQuestion generateExpression(DepthState state) {
+        return state.generator.generateExpression(state.depth);
+    }
+}
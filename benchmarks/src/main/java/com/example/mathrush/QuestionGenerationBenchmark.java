@@ -0,0 +1,82 @@
+package com.example.mathrush;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide la generación de preguntas por nivel de dificultad, por plantilla y a lo
+ * largo de la progresión completa de un juego.
+ *
+ * <p>Ejecutar con {@code -prof gc} para obtener la tasa de asignación por operación.</p>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuestionGenerationBenchmark {
+
+    // Semilla fija para que todas las ejecuciones midan la misma entrada
+    private static final long SEED = 20250525L;
+
+    @State(Scope.Thread)
+    public static class GeneratorState {
+        QuestionGenerator generator;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            generator = new QuestionGenerator(SEED);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class LevelState extends GeneratorState {
+        @Param({"0", "1", "2"})
+        public int difficulty;
+    }
+
+    @State(Scope.Thread)
+    public static class TemplateState extends GeneratorState {
+        @Param({"ADDITION", "SUBTRACTION", "MULTIPLICATION", "DIVISION",
+                "COMBINED_ADD_SUBTRACT", "COMBINED_MULTIPLY_ADD", "COMBINED_MULTIPLY_SUBTRACT",
+                "PARENTHESIS_ADD_MULTIPLY", "EXPONENT", "PARENTHESIS_MULTIPLY_ADD"})
+        public QuestionTemplate template;
+    }
+
+    @Benchmark
+    public MathQuestion generateAtLevel(LevelState state) {
+        return state.generator.generateAtLevel(state.difficulty);
+    }
+
+    @Benchmark
+    public MathQuestion generateTemplate(TemplateState state) {
+        return state.generator.generate(state.template);
+    }
+
+    /**
+     * Recorre la progresión de un juego completo (fácil, medio y difícil) tal
+     * como la ve {@link QuestionGenerator#generateRandom()}.
+     */
+    @Benchmark
+    public MathQuestion generateRandomProgression(GeneratorState state) {
+        QuestionGenerator generator = state.generator;
+        MathQuestion last = null;
+        generator.reset();
+        for (int i = 0; i < QuestionGenerator.QUESTIONS_PER_LEVEL * 3; i++) {
+            last = generator.generateRandom();
+        }
+        return last;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.mathrush;
+
+import java.util.SplittableRandom;
+
+/**
+ * Fuente que elige las preguntas al azar de un {@link QuestionBank}, siguiendo la
+ * misma progresión de dificultad que {@link QuestionGenerator}. No es segura
+ * para hilos.
+ *
+ * <p>Si el banco no tiene preguntas de algún nivel, las de ese nivel se generan
+ * como en {@link GeneratedQuestionSource}, de modo que un banco curado puede
+ * cubrir sólo parte del juego.</p>
+ */
+public class BankQuestionSource implements QuestionSource {
+    private final QuestionBank bank;
+    private final SplittableRandom random;
+    private final QuestionGenerator fallback;
+    private final DistractorGenerator distractors;
+    private int questionCounter;
+
+    /**
+     * Crea una fuente con una semilla arbitraria.
+     *
+     * @param bank El banco de preguntas
+     */
+    public BankQuestionSource(QuestionBank bank) {
+        this(bank, new SplittableRandom());
+    }
+
+    /**
+     * Crea una fuente reproducible.
+     *
+     * @param bank El banco de preguntas
+     * @param seed La semilla de la elección de preguntas y opciones
+     */
+    public BankQuestionSource(QuestionBank bank, long seed) {
+        this(bank, new SplittableRandom(seed));
+    }
+
+    private BankQuestionSource(QuestionBank bank, SplittableRandom root) {
+        this.bank = bank;
+        this.random = root.split();
+        this.fallback = new QuestionGenerator(root.split());
+        this.distractors = new DistractorGenerator(root.split());
+    }
+
+    @Override
+    public PreparedQuestion next() {
+        questionCounter++;
+        int difficultyLevel = QuestionGenerator.difficultyForQuestion(questionCounter);
+
+        MathQuestion question = bank.size(difficultyLevel) > 0
+                ? bank.pick(difficultyLevel, random)
+                : fallback.generateAtLevel(difficultyLevel);
+        int[] options = new int[GameSession.OPTIONS_PER_QUESTION];
+        int correctIndex = distractors.fill(question.getCorrectAnswer(), options);
+        return new PreparedQuestion(question, options, correctIndex, difficultyLevel);
+    }
+
+    @Override
+    public void reset() {
+        questionCounter = 0;
+    }
+}
@@ -0,0 +1,455 @@
+package com.example.mathrush;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Simulador de carga sin interfaz: N jugadores automáticos recorren el mismo
+ * ciclo que {@link QuizGame} (mostrar pregunta, responder o agotar el tiempo,
+ * esperar {@value GameSession#DELAY_BETWEEN_QUESTIONS_MS} ms y pasar a la
+ * siguiente, o empezar otra partida al perderla) sobre {@link GameSession}, con
+ * un reloj simulado.
+ *
+ * <p>Cada jugador acierta con una probabilidad que baja con el nivel de
+ * dificultad y tarda un tiempo con distribución log-normal; si ese tiempo supera
+ * el límite, la pregunta expira. Los jugadores se reparten entre un grupo fijo
+ * de hilos y cada hilo los hace avanzar por turnos, una pregunta cada vez, así
+ * que todas las sesiones están vivas a la vez como en un servidor. Al terminar
+ * se informan partidas y preguntas por segundo y la latencia de cada paso del
+ * motor (mostrar una pregunta y resolverla) en percentiles.</p>
+ *
+ * <p>Con {@code --realtime} el reloj es el de verdad: cada respuesta, tiempo
+ * agotado y paso a la siguiente pregunta se programa en una
+ * {@link TimingWheel}, como hace un servidor con miles de partidas, y el
+ * trabajo de la sesión se pasa al grupo de hilos. Además de la latencia de cada
+ * paso se informa el retraso de los temporizadores (desde su instante hasta que
+ * el paso empieza) y el máximo de temporizadores pendientes. Cada partida dura
+ * lo que duraría de verdad, así que conviene usar pocas partidas por jugador.</p>
+ *
+ * <pre>
+ * java -cp target/classes com.example.mathrush.BotSimulator \
+ *      --bots 10000 --games 20 --accuracy 0.9 --median-ms 2500
+ * java -cp target/classes com.example.mathrush.BotSimulator \
+ *      --bots 50000 --games 1 --realtime
+ * </pre>
+ */
+public class BotSimulator {
+
+    private static final String USAGE = "Uso: BotSimulator [--bots N] [--games N] [--threads N]"
+            + " [--accuracy P] [--accuracy-drop P] [--median-ms MS] [--sigma S] [--seed S] [--realtime]";
+
+    private static final long DELAY_BETWEEN_QUESTIONS_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(GameSession.DELAY_BETWEEN_QUESTIONS_MS);
+
+    // Percentiles de latencia que se informan
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+    private final int bots;
+    private final int gamesPerBot;
+    private final double accuracy;
+    private final double accuracyDrop;
+    private final double medianReactionNanos;
+    private final double sigma;
+    private final long seed;
+
+    /**
+     * Jugador automático con su sesión, su reloj simulado y su generador aleatorio.
+     */
+    private final class Bot {
+        final GameSession session;
+        final SplittableRandom random;
+        long clockNanos;
+        int gamesLeft = gamesPerBot;
+
+        Bot(long botSeed, long startNanos) {
+            this.random = new SplittableRandom(botSeed);
+            this.session = new GameSession(random.nextLong());
+            this.clockNanos = startNanos;
+            session.nextQuestion(clockNanos);
+        }
+
+        /**
+         * Resuelve la pregunta actual y, como {@code scheduleNextQuestion}, pasa a
+         * la siguiente o empieza otra partida, avanzando el reloj simulado.
+         *
+         * @return {@code true} si con este paso terminó una partida
+         */
+        boolean step() {
+            long reaction = sampleReaction();
+            clockNanos += Math.min(reaction, GameSession.TIME_LIMIT_NANOS);
+            resolve(reaction, clockNanos);
+            clockNanos += DELAY_BETWEEN_QUESTIONS_NANOS;
+            return advance(clockNanos);
+        }
+
+        /**
+         * Responde la pregunta actual o, si el tiempo de reacción llega al límite,
+         * la deja expirar.
+         *
+         * @param reaction El tiempo de reacción sorteado
+         * @param nowNanos El instante actual
+         */
+        void resolve(long reaction, long nowNanos) {
+            if (reaction >= GameSession.TIME_LIMIT_NANOS) {
+                session.updateClock(nowNanos);
+            } else {
+                int correct = session.getCorrectOptionIndex();
+                boolean right = random.nextDouble() < accuracyFor(session.getDifficultyLevel());
+                int option = right ? correct : (correct + 1 + random.nextInt(GameSession.OPTIONS_PER_QUESTION - 1))
+                        % GameSession.OPTIONS_PER_QUESTION;
+                session.answer(option, nowNanos);
+            }
+        }
+
+        /**
+         * Pasa a la siguiente pregunta o, si la partida terminó, empieza otra si
+         * le quedan.
+         *
+         * @param nowNanos El instante actual
+         * @return {@code true} si terminó una partida
+         */
+        boolean advance(long nowNanos) {
+            if (session.shouldScheduleNextQuestion()) {
+                session.nextQuestion(nowNanos);
+                return false;
+            }
+
+            gamesLeft--;
+            if (gamesLeft > 0) {
+                session.reset();
+                session.nextQuestion(nowNanos);
+            }
+            return true;
+        }
+
+        long sampleReaction() {
+            return (long) (medianReactionNanos * Math.exp(sigma * random.nextGaussian()));
+        }
+    }
+
+    /**
+     * Resultado de la parte de la simulación que corre en un hilo.
+     */
+    private static final class WorkerResult {
+        final LatencyHistogram latency = new LatencyHistogram();
+        long questions;
+        long games;
+    }
+
+    /**
+     * Resultado de una simulación en tiempo real. Lo actualizan todos los hilos
+     * del grupo, siempre sincronizados sobre el propio objeto.
+     */
+    private static final class RealtimeResult {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LatencyHistogram timerLag = new LatencyHistogram();
+        long questions;
+        long games;
+        long maxPendingTimers;
+    }
+
+    /**
+     * Configura una simulación.
+     *
+     * @param bots El número de jugadores simultáneos
+     * @param gamesPerBot Las partidas que juega cada jugador
+     * @param accuracy La probabilidad de acertar en el nivel fácil
+     * @param accuracyDrop Cuánto baja esa probabilidad en cada nivel siguiente
+     * @param medianReactionMillis La mediana del tiempo de respuesta
+     * @param sigma La dispersión (desviación estándar del logaritmo) del tiempo de respuesta
+     * @param seed La semilla de la que se derivan todos los jugadores
+     */
+    public BotSimulator(int bots, int gamesPerBot, double accuracy, double accuracyDrop,
+                        long medianReactionMillis, double sigma, long seed) {
+        if (bots < 1 || gamesPerBot < 1) {
+            throw new IllegalArgumentException("Se necesita al menos un jugador y una partida");
+        }
+        if (accuracy < 0 || accuracy > 1 || accuracyDrop < 0 || accuracyDrop > 1) {
+            throw new IllegalArgumentException("Las probabilidades deben estar entre 0 y 1");
+        }
+        if (medianReactionMillis <= 0 || sigma < 0) {
+            throw new IllegalArgumentException("Distribución de tiempos inválida: mediana "
+                    + medianReactionMillis + " ms, dispersión " + sigma);
+        }
+        this.bots = bots;
+        this.gamesPerBot = gamesPerBot;
+        this.accuracy = accuracy;
+        this.accuracyDrop = accuracyDrop;
+        this.medianReactionNanos = TimeUnit.MILLISECONDS.toNanos(medianReactionMillis);
+        this.sigma = sigma;
+        this.seed = seed;
+    }
+
+    /**
+     * Punto de entrada del simulador.
+     *
+     * @param args Las opciones
+     */
+    public static void main(String[] args) {
+        int bots = 1000;
+        int games = 10;
+        int threads = Runtime.getRuntime().availableProcessors();
+        double accuracy = 0.9;
+        double accuracyDrop = 0.1;
+        long medianMillis = 2500;
+        double sigma = 0.5;
+        long seed = System.nanoTime();
+        boolean realtime = false;
+
+        BotSimulator simulator;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--bots":
+                        bots = Integer.parseInt(value(args, ++i));
+                        break;
+                    case "--games":
+                        games = Integer.parseInt(value(args, ++i));
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(value(args, ++i));
+                        break;
+                    case "--accuracy":
+                        accuracy = Double.parseDouble(value(args, ++i));
+                        break;
+                    case "--accuracy-drop":
+                        accuracyDrop = Double.parseDouble(value(args, ++i));
+                        break;
+                    case "--median-ms":
+                        medianMillis = Long.parseLong(value(args, ++i));
+                        break;
+                    case "--sigma":
+                        sigma = Double.parseDouble(value(args, ++i));
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(value(args, ++i));
+                        break;
+                    case "--realtime":
+                        realtime = true;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Argumento desconocido: " + args[i]);
+                }
+            }
+            if (threads < 1) {
+                throw new IllegalArgumentException("--threads debe ser positivo: " + threads);
+            }
+            simulator = new BotSimulator(bots, games, accuracy, accuracyDrop, medianMillis, sigma, seed);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        try {
+            if (realtime) {
+                simulator.runRealtime(threads);
+            } else {
+                simulator.run(threads);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Ejecuta la simulación e imprime el informe.
+     *
+     * @param threads El número de hilos entre los que se reparten los jugadores
+     * @throws InterruptedException si se interrumpe la espera
+     */
+    public void run(int threads) throws InterruptedException {
+        int workers = Math.min(threads, bots);
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        LatencyHistogram latency = new LatencyHistogram();
+        long questions = 0;
+        long games = 0;
+
+        long start = System.nanoTime();
+        try {
+            List<Future<WorkerResult>> futures = new ArrayList<>(workers);
+            for (int w = 0; w < workers; w++) {
+                int first = (int) ((long) bots * w / workers);
+                int last = (int) ((long) bots * (w + 1) / workers);
+                futures.add(executor.submit(() -> simulate(first, last)));
+            }
+            for (Future<WorkerResult> future : futures) {
+                WorkerResult result = future.get();
+                latency.add(result.latency);
+                questions += result.questions;
+                games += result.games;
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falló la simulación", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        double seconds = Math.max(1, System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d jugadores en %d hilos: %d partidas y %d preguntas en %.2f s (semilla %d)%n",
+                bots, workers, games, questions, seconds, seed);
+        System.out.printf("%.0f partidas/s, %.0f preguntas/s%n", games / seconds, questions / seconds);
+        System.out.println(formatPercentiles("Latencia por pregunta (ns):", latency));
+    }
+
+    /**
+     * Ejecuta la simulación con el reloj real: los tiempos de reacción, los
+     * tiempos agotados y las pausas entre preguntas son temporizadores de una
+     * {@link TimingWheel} con la configuración de la compartida, y cada paso de
+     * la sesión se ejecuta en el grupo de hilos. Cada jugador tiene como mucho un
+     * temporizador pendiente, así que su sesión nunca se usa desde dos hilos a la vez.
+     *
+     * @param threads El número de hilos que ejecutan los pasos de las sesiones
+     * @throws InterruptedException si se interrumpe la espera
+     */
+    public void runRealtime(int threads) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        TimingWheel wheel = new TimingWheel(TimingWheel.DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS,
+                TimingWheel.DEFAULT_WHEEL_SIZE, "BotSimulator-Wheel");
+        RealtimeResult result = new RealtimeResult();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        AtomicInteger playing = new AtomicInteger(bots);
+
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < bots; i++) {
+                Bot bot = new Bot(new SplittableRandom(seed + i).nextLong(), System.nanoTime());
+                scheduleResolve(bot, wheel, executor, result, done, playing);
+            }
+            done.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falló la simulación", e.getCause());
+        } finally {
+            wheel.close();
+            executor.shutdownNow();
+        }
+        double seconds = Math.max(1, System.nanoTime() - start) / 1e9;
+
+        synchronized (result) {
+            System.out.printf("%d jugadores en tiempo real con %d hilos: %d partidas y %d preguntas en %.2f s"
+                    + " (semilla %d)%n", bots, threads, result.games, result.questions, seconds, seed);
+            System.out.printf("%.0f partidas/s, %.0f preguntas/s, máximo de %d temporizadores pendientes%n",
+                    result.games / seconds, result.questions / seconds, result.maxPendingTimers);
+            System.out.println(formatPercentiles("Latencia por paso (ns):", result.latency));
+            System.out.println(formatPercentiles("Retraso de los temporizadores (ns):", result.timerLag));
+        }
+    }
+
+    /**
+     * Programa la respuesta (o el tiempo agotado) de la pregunta actual de un
+     * jugador y, tras ella, la pausa hasta la siguiente.
+     */
+    private void scheduleResolve(Bot bot, TimingWheel wheel, ExecutorService executor, RealtimeResult result,
+                                 CompletableFuture<Void> done, AtomicInteger playing) {
+        long reaction = bot.sampleReaction();
+        long delay = Math.min(reaction, GameSession.TIME_LIMIT_NANOS);
+        scheduleStep(wheel, executor, result, done, delay, () -> {
+            bot.resolve(reaction, System.nanoTime());
+            synchronized (result) {
+                result.questions++;
+            }
+            scheduleStep(wheel, executor, result, done, DELAY_BETWEEN_QUESTIONS_NANOS, () -> {
+                if (bot.advance(System.nanoTime())) {
+                    synchronized (result) {
+                        result.games++;
+                    }
+                    if (bot.gamesLeft == 0) {
+                        if (playing.decrementAndGet() == 0) {
+                            done.complete(null);
+                        }
+                        return;
+                    }
+                }
+                scheduleResolve(bot, wheel, executor, result, done, playing);
+            });
+        });
+    }
+
+    /**
+     * Programa un paso en la rueda; al vencer, la rueda sólo lo pasa al grupo de
+     * hilos, que lo ejecuta y mide cuánto se retrasó y cuánto tardó.
+     */
+    private static void scheduleStep(TimingWheel wheel, ExecutorService executor, RealtimeResult result,
+                                     CompletableFuture<Void> done, long delayNanos, Runnable step) {
+        long dueNanos = System.nanoTime() + delayNanos;
+        wheel.schedule(() -> executor.execute(() -> {
+            long stepStart = System.nanoTime();
+            try {
+                step.run();
+            } catch (RuntimeException e) {
+                done.completeExceptionally(e);
+                return;
+            }
+            long stepEnd = System.nanoTime();
+            synchronized (result) {
+                result.timerLag.record(Math.max(0, stepStart - dueNanos));
+                result.latency.record(stepEnd - stepStart);
+                result.maxPendingTimers = Math.max(result.maxPendingTimers, wheel.getPendingCount());
+            }
+        }), delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static String formatPercentiles(String title, LatencyHistogram histogram) {
+        StringBuilder report = new StringBuilder(title);
+        for (double percentile : PERCENTILES) {
+            report.append(" p").append(percentile == (long) percentile ? String.valueOf((long) percentile)
+                    : String.valueOf(percentile)).append('=').append(histogram.percentile(percentile));
+        }
+        report.append(" max=").append(histogram.getMax());
+        return report.toString();
+    }
+
+    /**
+     * Hace jugar por turnos a los jugadores {@code [first, last)} hasta que todos
+     * terminen sus partidas.
+     */
+    private WorkerResult simulate(int first, int last) {
+        WorkerResult result = new WorkerResult();
+        Bot[] active = new Bot[last - first];
+        for (int i = 0; i < active.length; i++) {
+            // La semilla de cada jugador no depende de cómo se repartan entre los hilos
+            active[i] = new Bot(new SplittableRandom(seed + first + i).nextLong(), 0);
+        }
+
+        int remaining = active.length;
+        while (remaining > 0) {
+            int kept = 0;
+            for (int i = 0; i < remaining; i++) {
+                Bot bot = active[i];
+                long stepStart = System.nanoTime();
+                boolean finishedGame = bot.step();
+                result.latency.record(System.nanoTime() - stepStart);
+                result.questions++;
+                if (finishedGame) {
+                    result.games++;
+                }
+                if (bot.gamesLeft > 0) {
+                    active[kept++] = bot;
+                }
+            }
+            remaining = kept;
+        }
+        return result;
+    }
+
+    private double accuracyFor(int difficultyLevel) {
+        return Math.max(0, accuracy - accuracyDrop * difficultyLevel);
+    }
+
+    private static String value(String[] args, int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Falta el valor de " + args[index - 1]);
+        }
+        return args[index];
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.mathrush;
+
+import java.util.SplittableRandom;
+
+/**
+ * Genera las opciones de respuesta de una pregunta sobre un arreglo de enteros:
+ * la respuesta correcta en una posición aleatoria y tres distractores cercanos,
+ * todos distintos.
+ *
+ * <p>Los distractores se eligen con un Fisher-Yates parcial sobre un conjunto fijo
+ * de desplazamientos distintos de cero, así que nunca hace falta reintentar ni
+ * comprobar duplicados, y no se crean objetos por llamada. No es segura para
+ * hilos: cada fuente de preguntas tiene la suya.</p>
+ */
+public class DistractorGenerator {
+
+    // Desplazamientos posibles respecto a la respuesta correcta (el 0 se excluye)
+    private static final int[] OFFSETS = {-5, -4, -3, -2, -1, 1, 2, 3, 4, 5};
+
+    private final SplittableRandom random;
+    // Permutación de OFFSETS que se reutiliza entre llamadas
+    private final int[] offsets = OFFSETS.clone();
+
+    /**
+     * Crea un generador que toma sus números aleatorios de la fuente indicada.
+     * La fuente pasa a ser de uso exclusivo del generador.
+     *
+     * @param random La fuente de números aleatorios
+     */
+    public DistractorGenerator(SplittableRandom random) {
+        this.random = random;
+    }
+
+    /**
+     * Llena {@code options} con la respuesta correcta y distractores distintos.
+     *
+     * @param correctAnswer La respuesta correcta
+     * @param options El arreglo a llenar; su longitud es el número de opciones
+     *                (como máximo {@code 1 + 10})
+     * @return La posición de la respuesta correcta dentro de {@code options}
+     */
+    public int fill(int correctAnswer, int[] options) {
+        int count = options.length;
+        if (count < 1 || count > OFFSETS.length + 1) {
+            throw new IllegalArgumentException("Número de opciones no soportado: " + count);
+        }
+
+        GameEvents.AnswerOptions event = new GameEvents.AnswerOptions();
+        event.begin();
+
+        int correctIndex = random.nextInt(count);
+        int next = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == correctIndex) {
+                options[i] = correctAnswer;
+                continue;
+            }
+            // Fisher-Yates parcial: el desplazamiento elegido se mueve al prefijo ya usado
+            int j = next + random.nextInt(offsets.length - next);
+            int offset = offsets[j];
+            offsets[j] = offsets[next];
+            offsets[next] = offset;
+            next++;
+
+            options[i] = correctAnswer + offset;
+        }
+
+        if (event.shouldCommit()) {
+            event.optionCount = count;
+            event.correctIndex = correctIndex;
+            event.commit();
+        }
+        return correctIndex;
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.mathrush;
+
+/**
+ * Árbol de una expresión aritmética. Las hojas son huecos para operandos, sin
+ * valor propio: un mismo árbol describe una <em>forma</em> de pregunta (por
+ * ejemplo {@code (x + x) × x}) que se compila una sola vez con {@link #compile()}
+ * y luego se evalúa y se escribe con distintos operandos.
+ *
+ * <p>Los operandos se numeran de izquierda a derecha según aparecen en el
+ * texto. Los árboles son inmutables.</p>
+ */
+public final class Expression {
+
+    /**
+     * Operadores binarios, con su símbolo y su precedencia.
+     */
+    public enum Operator {
+        ADD("+", 1, true),
+        SUBTRACT("-", 1, false),
+        MULTIPLY("×", 2, true),
+        DIVIDE("÷", 2, false);
+
+        private final String symbol;
+        private final int precedence;
+        private final boolean associative;
+
+        Operator(String symbol, int precedence, boolean associative) {
+            this.symbol = symbol;
+            this.precedence = precedence;
+            this.associative = associative;
+        }
+
+        public String getSymbol() {
+            return symbol;
+        }
+
+        public int getPrecedence() {
+            return precedence;
+        }
+
+        /**
+         * Indica si {@code a op (b op' c)} equivale a {@code a op b op' c} cuando
+         * {@code op'} tiene la misma precedencia, es decir, si el operando derecho
+         * puede escribirse sin paréntesis.
+         *
+         * @return {@code true} para la suma y la multiplicación
+         */
+        public boolean isAssociative() {
+            return associative;
+        }
+    }
+
+    private static final Expression OPERAND = new Expression(null, null, null, 1, 0);
+
+    private final Operator operator;
+    private final Expression left;
+    private final Expression right;
+    private final int operandCount;
+    private final int depth;
+
+    private Expression(Operator operator, Expression left, Expression right, int operandCount, int depth) {
+        this.operator = operator;
+        this.left = left;
+        this.right = right;
+        this.operandCount = operandCount;
+        this.depth = depth;
+    }
+
+    /**
+     * Obtiene una hoja: un hueco para un operando.
+     *
+     * @return La hoja
+     */
+    public static Expression operand() {
+        return OPERAND;
+    }
+
+    /**
+     * Combina dos expresiones con un operador.
+     *
+     * @param operator El operador
+     * @param left La expresión de la izquierda
+     * @param right La expresión de la derecha
+     * @return La nueva expresión
+     */
+    public static Expression of(Operator operator, Expression left, Expression right) {
+        if (operator == null || left == null || right == null) {
+            throw new IllegalArgumentException("El operador y sus operandos son obligatorios");
+        }
+        return new Expression(operator, left, right,
+                left.operandCount + right.operandCount, Math.max(left.depth, right.depth) + 1);
+    }
+
+    /**
+     * Compila la forma de esta expresión, reutilizando la compilación anterior
+     * si ya se compiló una expresión con la misma forma.
+     *
+     * @return La forma compilada
+     */
+    public ExpressionShape compile() {
+        return ExpressionShape.compile(this);
+    }
+
+    public boolean isOperand() {
+        return operator == null;
+    }
+
+    public Operator getOperator() {
+        return operator;
+    }
+
+    public Expression getLeft() {
+        return left;
+    }
+
+    public Expression getRight() {
+        return right;
+    }
+
+    /**
+     * Obtiene cuántos operandos necesita la expresión.
+     *
+     * @return El número de hojas
+     */
+    public int getOperandCount() {
+        return operandCount;
+    }
+
+    /**
+     * Obtiene la profundidad del árbol.
+     *
+     * @return 0 para una hoja; 1 para {@code x op x}; y así sucesivamente
+     */
+    public int getDepth() {
+        return depth;
+    }
+}
@@ -0,0 +1,308 @@
+package com.example.mathrush;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Forma compilada de una {@link Expression}: un programa en notación postfija
+ * para evaluarla y los fragmentos de texto fijos que hay entre sus operandos para
+ * escribirla.
+ *
+ * <p>La compilación recorre el árbol una sola vez y decide dónde van los
+ * paréntesis según la precedencia de los operadores, así que evaluar o escribir
+ * una expresión profunda no vuelve a recorrer el árbol ni a concatenar sus
+ * partes. Las formas ya compiladas se guardan en una caché compartida; una forma
+ * es inmutable y puede usarse desde varios hilos.</p>
+ */
+public final class ExpressionShape {
+
+    /** Resultado de {@link #evaluateChecked} cuando los operandos no son válidos. */
+    public static final int INVALID = Integer.MIN_VALUE;
+
+    // Formas distintas que se guardan como máximo; las demás se compilan cada vez
+    private static final int MAX_CACHED_SHAPES = 4096;
+    private static final Map<String, ExpressionShape> CACHE = new ConcurrentHashMap<>();
+
+    // Instrucciones del programa: apilar el siguiente operando o aplicar un operador
+    private static final byte PUSH = -1;
+    private static final Expression.Operator[] OPERATORS = Expression.Operator.values();
+
+    private final byte[] program;
+    private final String[] fragments;
+    private final int operandCount;
+    private final int depth;
+    private final int maxStack;
+    private final int textLength;
+
+    private ExpressionShape(byte[] program, String[] fragments, int operandCount, int depth, int maxStack) {
+        this.program = program;
+        this.fragments = fragments;
+        this.operandCount = operandCount;
+        this.depth = depth;
+        this.maxStack = maxStack;
+
+        int length = 0;
+        for (String fragment : fragments) {
+            length += fragment.length();
+        }
+        this.textLength = length;
+    }
+
+    /**
+     * Compila la forma de una expresión, o devuelve la ya compilada si la hay.
+     *
+     * @param expression La expresión
+     * @return La forma compilada
+     */
+    public static ExpressionShape compile(Expression expression) {
+        StringBuilder keyBuilder = new StringBuilder(expression.getOperandCount() * 2);
+        appendKey(expression, keyBuilder);
+        String key = keyBuilder.toString();
+
+        ExpressionShape cached = CACHE.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        ExpressionShape shape = build(expression);
+        if (CACHE.size() < MAX_CACHED_SHAPES) {
+            ExpressionShape previous = CACHE.putIfAbsent(key, shape);
+            if (previous != null) {
+                return previous;
+            }
+        }
+        return shape;
+    }
+
+    /**
+     * Evalúa la expresión con aritmética entera.
+     *
+     * @param operands Los operandos, de izquierda a derecha
+     * @return El resultado
+     * @throws ArithmeticException si hay una división entre cero
+     */
+    public int evaluate(int[] operands) {
+        return evaluate(operands, new int[maxStack]);
+    }
+
+    /**
+     * Evalúa la expresión con aritmética entera usando una pila del llamador, que
+     * puede reutilizarse entre evaluaciones para no reservar memoria en cada una.
+     *
+     * @param operands Los operandos, de izquierda a derecha
+     * @param stack La pila, de al menos {@link #getMaxStack()} posiciones
+     * @return El resultado
+     * @throws ArithmeticException si hay una división entre cero
+     */
+    public int evaluate(int[] operands, int[] stack) {
+        requireOperands(operands);
+        requireStack(stack);
+        int top = 0;
+        int next = 0;
+        for (byte instruction : program) {
+            if (instruction == PUSH) {
+                stack[top++] = operands[next++];
+            } else {
+                int right = stack[--top];
+                int left = stack[--top];
+                stack[top++] = apply(OPERATORS[instruction], left, right);
+            }
+        }
+        return stack[0];
+    }
+
+    /**
+     * Evalúa la expresión comprobando que sirve como pregunta: todos los
+     * resultados intermedios deben estar entre 0 y {@code maxValue} y todas las
+     * divisiones deben ser exactas.
+     *
+     * @param operands Los operandos, de izquierda a derecha
+     * @param maxValue El mayor valor intermedio permitido
+     * @return El resultado, o {@link #INVALID} si los operandos no cumplen las condiciones
+     */
+    public int evaluateChecked(int[] operands, int maxValue) {
+        return evaluateChecked(operands, new int[maxStack], maxValue);
+    }
+
+    /**
+     * Como {@link #evaluateChecked(int[], int)}, pero con una pila del llamador
+     * que puede reutilizarse entre evaluaciones.
+     *
+     * @param operands Los operandos, de izquierda a derecha
+     * @param stack La pila, de al menos {@link #getMaxStack()} posiciones
+     * @param maxValue El mayor valor intermedio permitido
+     * @return El resultado, o {@link #INVALID} si los operandos no cumplen las condiciones
+     */
+    public int evaluateChecked(int[] operands, int[] stack, int maxValue) {
+        requireOperands(operands);
+        requireStack(stack);
+        int top = 0;
+        int next = 0;
+        for (byte instruction : program) {
+            if (instruction == PUSH) {
+                int value = operands[next++];
+                if (value < 0 || value > maxValue) {
+                    return INVALID;
+                }
+                stack[top++] = value;
+            } else {
+                int right = stack[--top];
+                int left = stack[--top];
+                Expression.Operator operator = OPERATORS[instruction];
+                if (operator == Expression.Operator.DIVIDE && (right == 0 || left % right != 0)) {
+                    return INVALID;
+                }
+                long value = applyLong(operator, left, right);
+                if (value < 0 || value > maxValue) {
+                    return INVALID;
+                }
+                stack[top++] = (int) value;
+            }
+        }
+        return stack[0];
+    }
+
+    /**
+     * Escribe el texto de la pregunta con los operandos indicados.
+     *
+     * @param operands Los operandos, de izquierda a derecha
+     * @return El texto de la pregunta, terminado en {@code " = ?"}
+     */
+    public String render(int[] operands) {
+        requireOperands(operands);
+        StringBuilder text = new StringBuilder(textLength + operandCount * 3);
+        text.append(fragments[0]);
+        for (int i = 0; i < operandCount; i++) {
+            text.append(operands[i]).append(fragments[i + 1]);
+        }
+        return text.toString();
+    }
+
+    public int getOperandCount() {
+        return operandCount;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Obtiene el tamaño de pila que necesita la evaluación.
+     *
+     * @return Las posiciones de pila necesarias
+     */
+    public int getMaxStack() {
+        return maxStack;
+    }
+
+    private void requireOperands(int[] operands) {
+        if (operands.length < operandCount) {
+            throw new IllegalArgumentException("Se necesitan " + operandCount + " operandos, no "
+                    + operands.length);
+        }
+    }
+
+    private void requireStack(int[] stack) {
+        if (stack.length < maxStack) {
+            throw new IllegalArgumentException("Se necesita una pila de " + maxStack + " posiciones, no "
+                    + stack.length);
+        }
+    }
+
+    private static int apply(Expression.Operator operator, int left, int right) {
+        return switch (operator) {
+            case ADD -> left + right;
+            case SUBTRACT -> left - right;
+            case MULTIPLY -> left * right;
+            case DIVIDE -> left / right;
+        };
+    }
+
+    private static long applyLong(Expression.Operator operator, long left, long right) {
+        return switch (operator) {
+            case ADD -> left + right;
+            case SUBTRACT -> left - right;
+            case MULTIPLY -> left * right;
+            case DIVIDE -> left / right;
+        };
+    }
+
+    private static ExpressionShape build(Expression expression) {
+        byte[] program = new byte[expression.getOperandCount() * 2 - 1];
+        List<String> fragments = new ArrayList<>(expression.getOperandCount() + 1);
+        StringBuilder fragment = new StringBuilder();
+
+        int[] position = new int[1];
+        int maxStack = emit(expression, program, position, 0);
+        write(expression, fragments, fragment);
+        fragment.append(" = ?");
+        fragments.add(fragment.toString());
+
+        return new ExpressionShape(program, fragments.toArray(new String[0]),
+                expression.getOperandCount(), expression.getDepth(), maxStack);
+    }
+
+    /**
+     * Genera el programa postfijo y devuelve la altura máxima de la pila.
+     */
+    private static int emit(Expression node, byte[] program, int[] position, int stackHeight) {
+        if (node.isOperand()) {
+            program[position[0]++] = PUSH;
+            return stackHeight + 1;
+        }
+        int leftMax = emit(node.getLeft(), program, position, stackHeight);
+        int rightMax = emit(node.getRight(), program, position, stackHeight + 1);
+        program[position[0]++] = (byte) node.getOperator().ordinal();
+        return Math.max(leftMax, rightMax);
+    }
+
+    /**
+     * Escribe el texto fijo de la expresión; cada hoja cierra un fragmento.
+     */
+    private static void write(Expression node, List<String> fragments, StringBuilder fragment) {
+        if (node.isOperand()) {
+            fragments.add(fragment.toString());
+            fragment.setLength(0);
+            return;
+        }
+
+        Expression.Operator operator = node.getOperator();
+        writeChild(node.getLeft(), needsParentheses(operator, node.getLeft(), false), fragments, fragment);
+        fragment.append(' ').append(operator.getSymbol()).append(' ');
+        writeChild(node.getRight(), needsParentheses(operator, node.getRight(), true), fragments, fragment);
+    }
+
+    private static void writeChild(Expression child, boolean parentheses,
+                                   List<String> fragments, StringBuilder fragment) {
+        if (parentheses) {
+            fragment.append('(');
+        }
+        write(child, fragments, fragment);
+        if (parentheses) {
+            fragment.append(')');
+        }
+    }
+
+    private static boolean needsParentheses(Expression.Operator parent, Expression child, boolean rightSide) {
+        if (child.isOperand()) {
+            return false;
+        }
+        int childPrecedence = child.getOperator().getPrecedence();
+        if (childPrecedence != parent.getPrecedence()) {
+            return childPrecedence < parent.getPrecedence();
+        }
+        return rightSide && !parent.isAssociative();
+    }
+
+    private static void appendKey(Expression node, StringBuilder key) {
+        if (node.isOperand()) {
+            key.append('x');
+            return;
+        }
+        appendKey(node.getLeft(), key);
+        appendKey(node.getRight(), key);
+        key.append((char) ('0' + node.getOperator().ordinal()));
+    }
+}
@@ -0,0 +1,372 @@
+package com.example.mathrush;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.layout.StackPane;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.FileHandler;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+
+/**
+ * Monitor del hilo de aplicación de JavaFX: mide cuánto esperan en cola las
+ * tareas de {@code Platform.runLater}, el intervalo y el trabajo de cada pulso
+ * y los bloqueos largos del hilo, y los muestra en una capa sobre el juego y en
+ * un registro rotativo.
+ *
+ * <ul>
+ *   <li><b>Cola de {@code runLater}</b>: cada {@value #PROBE_INTERVAL_MILLIS} ms
+ *   la rueda de temporizadores encola una sonda y se mide cuánto tarda en
+ *   ejecutarse en el hilo de JavaFX.</li>
+ *   <li><b>Bloqueos</b>: si una sonda lleva más de {@value #STALL_THRESHOLD_MILLIS} ms
+ *   sin ejecutarse, el hilo de la rueda registra la pila del hilo de JavaFX
+ *   en ese momento, que suele señalar al culpable.</li>
+ *   <li><b>Pulsos</b>: un {@link AnimationTimer} propio mide el intervalo entre
+ *   pulsos (los fps) y cuenta como lentos los que superan dos cuadros a 60 Hz;
+ *   los escuchas de pulso de la escena miden el trabajo del pulso (animaciones,
+ *   CSS y maquetado) y, por separado, el CSS y el maquetado. El renderizado
+ *   ocurre en otro hilo y no se cuenta.</li>
+ * </ul>
+ *
+ * <p>Ni el hilo de JavaFX ni el de la rueda escriben el registro: le pasan el
+ * mensaje (o la pila capturada) a un hilo propio del monitor, para que medir no
+ * añada esperas de disco a lo que se mide ni retrase los temporizadores del juego.</p>
+ *
+ * <p>El temporizador de animación mantiene los pulsos a la frecuencia de
+ * refresco mientras el monitor está activo, que es justo lo que se quiere
+ * medir; por eso el monitor sólo se instala si se pide con
+ * {@code -Dmathrush.fxMonitor}.</p>
+ */
+public class FxMonitor implements AutoCloseable {
+
+    /** Cada cuánto se encola una sonda en el hilo de JavaFX. */
+    public static final long PROBE_INTERVAL_MILLIS = 100;
+    /** Espera de una sonda a partir de la cual se considera que el hilo está bloqueado. */
+    public static final long STALL_THRESHOLD_MILLIS = 100;
+
+    private static final String LOG_DIRECTORY = "logs";
+    private static final String LOG_PATTERN = "fx-monitor-%g.log";
+    private static final int LOG_LIMIT_BYTES = 1024 * 1024;
+    private static final int LOG_FILE_COUNT = 5;
+
+    // Un pulso lento tarda más de dos cuadros a 60 Hz
+    private static final long SLOW_FRAME_NANOS = 2 * 1_000_000_000L / 60;
+    private static final long OVERLAY_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long LOG_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final int MAX_STACK_FRAMES = 40;
+    private static final long LOG_SHUTDOWN_MILLIS = 1000;
+
+    private static final Logger LOGGER = Logger.getLogger(FxMonitor.class.getName());
+
+    /**
+     * Mediciones acumuladas desde el inicio de una ventana de tiempo. Sólo las
+     * toca el hilo de JavaFX.
+     */
+    private static final class Window {
+        final LatencyHistogram frameInterval = new LatencyHistogram();
+        final LatencyHistogram pulseWork = new LatencyHistogram();
+        final LatencyHistogram layout = new LatencyHistogram();
+        final LatencyHistogram runLaterDelay = new LatencyHistogram();
+        long startNanos;
+        int slowFrames;
+        int stallsAtStart;
+
+        void reset(long now, int stalls) {
+            frameInterval.clear();
+            pulseWork.clear();
+            layout.clear();
+            runLaterDelay.clear();
+            startNanos = now;
+            slowFrames = 0;
+            stallsAtStart = stalls;
+        }
+
+        double fps(long now) {
+            long elapsed = now - startNanos;
+            return elapsed > 0 ? frameInterval.getCount() * 1e9 / elapsed : 0;
+        }
+    }
+
+    private final Scene scene;
+    private final StackPane root;
+    private final Label overlay;
+    private final FileHandler logHandler;
+    private final ExecutorService logWriter = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "FxMonitor-Log");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Thread fxThread;
+    private final TimingWheel wheel = TimingWheel.shared();
+    private final AtomicInteger stallCount = new AtomicInteger();
+    private final Window overlayWindow = new Window();
+    private final Window logWindow = new Window();
+    private final Runnable preLayoutListener = this::onPreLayout;
+    private final Runnable postLayoutListener = this::onPostLayout;
+    private final AnimationTimer pulseTimer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            onPulse(now);
+        }
+    };
+
+    // Estado de la sonda: lo comparten el hilo de la rueda y el de JavaFX
+    private volatile long probePostedNanos;
+    private volatile boolean stallReported;
+    private volatile TimingWheel.Timeout probeTimeout;
+    private volatile boolean closed;
+
+    // Estado del pulso en curso (hilo de JavaFX)
+    private long lastPulseNanos;
+    private long pulseStartNanos;
+    private long preLayoutNanos;
+
+    private FxMonitor(Scene scene, StackPane root, boolean showOverlay) {
+        this.scene = scene;
+        this.root = root;
+        this.fxThread = Thread.currentThread();
+        this.logHandler = openLog();
+
+        if (showOverlay) {
+            overlay = new Label();
+            overlay.getStyleClass().add("monitor-overlay");
+            overlay.setMouseTransparent(true);
+            StackPane.setAlignment(overlay, Pos.TOP_RIGHT);
+            root.getChildren().add(overlay);
+        } else {
+            overlay = null;
+        }
+    }
+
+    /**
+     * Instala el monitor en una escena. Debe llamarse desde el hilo de JavaFX.
+     *
+     * @param scene La escena cuyos pulsos se miden
+     * @param root La raíz donde se añade la capa del monitor
+     * @param showOverlay Si se muestran las mediciones sobre el juego además de registrarlas
+     * @return El monitor, que debe cerrarse al salir
+     * @throws IllegalStateException si no se llama desde el hilo de JavaFX
+     */
+    public static FxMonitor install(Scene scene, StackPane root, boolean showOverlay) {
+        if (!Platform.isFxApplicationThread()) {
+            throw new IllegalStateException("El monitor debe instalarse desde el hilo de JavaFX");
+        }
+        FxMonitor monitor = new FxMonitor(scene, root, showOverlay);
+        long now = System.nanoTime();
+        monitor.overlayWindow.reset(now, 0);
+        monitor.logWindow.reset(now, 0);
+        scene.addPreLayoutPulseListener(monitor.preLayoutListener);
+        scene.addPostLayoutPulseListener(monitor.postLayoutListener);
+        monitor.pulseTimer.start();
+        monitor.probeTimeout = monitor.wheel.schedule(monitor::probe, PROBE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        monitor.log(Level.INFO, "Monitor del hilo de JavaFX iniciado");
+        return monitor;
+    }
+
+    /**
+     * Abre el registro rotativo en el directorio de datos. Si no se puede, las
+     * mediciones van a la consola.
+     */
+    private static FileHandler openLog() {
+        try {
+            Path directory = Files.createDirectories(QuizGame.getDataDirectory().resolve(LOG_DIRECTORY));
+            FileHandler handler = new FileHandler(directory.resolve(LOG_PATTERN).toString(),
+                    LOG_LIMIT_BYTES, LOG_FILE_COUNT, true);
+            handler.setFormatter(new SimpleFormatter());
+            handler.setEncoding("UTF-8");
+            LOGGER.addHandler(handler);
+            LOGGER.setUseParentHandlers(false);
+            return handler;
+        } catch (IOException e) {
+            System.err.println("No se pudo abrir el registro del monitor: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Tick de la sonda en el hilo de la rueda: encola una sonda nueva o, si la
+     * anterior sigue esperando demasiado, informa del bloqueo.
+     */
+    private void probe() {
+        if (closed) {
+            return;
+        }
+        long now = System.nanoTime();
+        long posted = probePostedNanos;
+        if (posted == 0) {
+            probePostedNanos = now;
+            Platform.runLater(this::onProbe);
+        } else if (!stallReported && now - posted >= TimeUnit.MILLISECONDS.toNanos(STALL_THRESHOLD_MILLIS)) {
+            stallReported = true;
+            stallCount.incrementAndGet();
+            // Aquí sólo se captura la pila; darle formato y escribirla es cosa del hilo del registro
+            long stalledMillis = TimeUnit.NANOSECONDS.toMillis(now - posted);
+            StackTraceElement[] stack = fxThread.getStackTrace();
+            submitLog(() -> LOGGER.warning("Hilo de JavaFX bloqueado desde hace " + stalledMillis
+                    + " ms; pila actual:" + formatStack(stack)));
+        }
+        probeTimeout = wheel.schedule(this::probe, PROBE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * La sonda llegó al hilo de JavaFX.
+     */
+    private void onProbe() {
+        long delay = System.nanoTime() - probePostedNanos;
+        overlayWindow.runLaterDelay.record(delay);
+        logWindow.runLaterDelay.record(delay);
+        if (stallReported) {
+            log(Level.WARNING, "El hilo de JavaFX estuvo bloqueado " + TimeUnit.NANOSECONDS.toMillis(delay) + " ms");
+            stallReported = false;
+        }
+        // Se libera la sonda al final para que la rueda no encole otra antes
+        probePostedNanos = 0;
+    }
+
+    private void onPulse(long now) {
+        pulseStartNanos = System.nanoTime();
+        if (lastPulseNanos != 0) {
+            long interval = now - lastPulseNanos;
+            overlayWindow.frameInterval.record(interval);
+            logWindow.frameInterval.record(interval);
+            if (interval > SLOW_FRAME_NANOS) {
+                overlayWindow.slowFrames++;
+                logWindow.slowFrames++;
+            }
+        }
+        lastPulseNanos = now;
+
+        if (now - overlayWindow.startNanos >= OVERLAY_INTERVAL_NANOS) {
+            if (overlay != null) {
+                overlay.setText(formatOverlay(overlayWindow, now));
+            }
+            overlayWindow.reset(now, stallCount.get());
+        }
+        if (now - logWindow.startNanos >= LOG_INTERVAL_NANOS) {
+            log(Level.INFO, formatSummary(logWindow, now));
+            logWindow.reset(now, stallCount.get());
+        }
+    }
+
+    private void onPreLayout() {
+        preLayoutNanos = System.nanoTime();
+    }
+
+    private void onPostLayout() {
+        long end = System.nanoTime();
+        long layout = end - preLayoutNanos;
+        overlayWindow.layout.record(layout);
+        logWindow.layout.record(layout);
+        // Los pulsos de escena que no vienen del temporizador de animación no tienen inicio
+        if (pulseStartNanos != 0) {
+            long work = end - pulseStartNanos;
+            overlayWindow.pulseWork.record(work);
+            logWindow.pulseWork.record(work);
+            pulseStartNanos = 0;
+        }
+    }
+
+    private String formatOverlay(Window window, long now) {
+        return String.format(Locale.ROOT, "%.0f fps · p99 %.1f ms · lentos %d%n"
+                        + "pulso p99 %.1f ms · runLater p99 %.1f ms%nbloqueos %d",
+                window.fps(now), millis(window.frameInterval.percentile(99)), window.slowFrames,
+                millis(window.pulseWork.percentile(99)), millis(window.runLaterDelay.percentile(99)),
+                stallCount.get());
+    }
+
+    private String formatSummary(Window window, long now) {
+        return String.format(Locale.ROOT, "%.1f s: %.1f fps; intervalo p50 %.1f ms, p99 %.1f ms, máx %.1f ms,"
+                        + " %d pulsos lentos; trabajo del pulso p99 %.2f ms, máx %.2f ms;"
+                        + " CSS y maquetado p99 %.2f ms; runLater p50 %.2f ms, p99 %.2f ms, máx %.2f ms;"
+                        + " %d bloqueos",
+                (now - window.startNanos) / 1e9, window.fps(now),
+                millis(window.frameInterval.percentile(50)), millis(window.frameInterval.percentile(99)),
+                millis(window.frameInterval.getMax()), window.slowFrames,
+                millis(window.pulseWork.percentile(99)), millis(window.pulseWork.getMax()),
+                millis(window.layout.percentile(99)),
+                millis(window.runLaterDelay.percentile(50)), millis(window.runLaterDelay.percentile(99)),
+                millis(window.runLaterDelay.getMax()), stallCount.get() - window.stallsAtStart);
+    }
+
+    /**
+     * Pasa un mensaje ya formateado al hilo del registro.
+     */
+    private void log(Level level, String message) {
+        submitLog(() -> LOGGER.log(level, message));
+    }
+
+    private void submitLog(Runnable task) {
+        try {
+            logWriter.execute(task);
+        } catch (RejectedExecutionException e) {
+            // El monitor ya se cerró
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static String formatStack(StackTraceElement[] stack) {
+        StringBuilder text = new StringBuilder();
+        int frames = Math.min(stack.length, MAX_STACK_FRAMES);
+        for (int i = 0; i < frames; i++) {
+            text.append(System.lineSeparator()).append("\tat ").append(stack[i]);
+        }
+        if (stack.length > frames) {
+            text.append(System.lineSeparator()).append("\t... ").append(stack.length - frames).append(" más");
+        }
+        return text.toString();
+    }
+
+    /**
+     * Detiene el monitor, registra el resumen de la última ventana y cierra el
+     * registro. Debe llamarse desde el hilo de JavaFX.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        TimingWheel.Timeout timeout = probeTimeout;
+        if (timeout != null) {
+            timeout.cancel();
+        }
+        pulseTimer.stop();
+        scene.removePreLayoutPulseListener(preLayoutListener);
+        scene.removePostLayoutPulseListener(postLayoutListener);
+        if (overlay != null) {
+            root.getChildren().remove(overlay);
+        }
+
+        log(Level.INFO, formatSummary(logWindow, System.nanoTime()));
+        if (logHandler != null) {
+            submitLog(() -> {
+                LOGGER.removeHandler(logHandler);
+                LOGGER.setUseParentHandlers(true);
+                logHandler.close();
+            });
+        }
+        // Se espera poco: los mensajes pendientes son pocos y el proceso está por salir
+        logWriter.shutdown();
+        try {
+            logWriter.awaitTermination(LOG_SHUTDOWN_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.mathrush;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Eventos de JDK Flight Recorder del ciclo de juego. Con una grabación activa
+ * (por ejemplo {@code -XX:StartFlightRecording=filename=partida.jfr}) muestran
+ * dónde se va el tiempo de cada pregunta junto a los eventos de GC, safepoints
+ * y asignación de la propia JVM.
+ *
+ * <p>Se usan siempre con el patrón {@code begin()} / {@code shouldCommit()} /
+ * {@code commit()} y los campos se llenan sólo dentro de {@code shouldCommit()}:
+ * sin grabación esas llamadas no hacen nada y el JIT elimina el objeto del
+ * evento, así que no cuestan nada.</p>
+ */
+final class GameEvents {
+
+    private static final String CATEGORY = "Math Rush";
+
+    private GameEvents() {
+    }
+
+    @Name("com.example.mathrush.QuestionGenerated")
+    @Label("Pregunta generada")
+    @Description("Generación de una pregunta con la progresión de dificultad")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class QuestionGenerated extends Event {
+        @Label("Plantilla")
+        String template;
+
+        @Label("Dificultad")
+        int difficulty;
+    }
+
+    @Name("com.example.mathrush.AnswerOptions")
+    @Label("Opciones de respuesta")
+    @Description("Colocación de la respuesta correcta y los distractores")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class AnswerOptions extends Event {
+        @Label("Opciones")
+        int optionCount;
+
+        @Label("Posición correcta")
+        int correctIndex;
+    }
+
+    @Name("com.example.mathrush.AnswerHandled")
+    @Label("Respuesta atendida")
+    @Description("Atención en el hilo de JavaFX de una respuesta o un tiempo agotado")
+    @Category(CATEGORY)
+    static final class AnswerHandled extends Event {
+        @Label("Resultado")
+        String outcome;
+
+        @Label("Tiempo de reacción")
+        @Timespan(Timespan.NANOSECONDS)
+        long reactionTime;
+
+        @Label("Plantilla")
+        String template;
+
+        @Label("Dificultad")
+        int difficulty;
+
+        @Label("Vidas")
+        int lives;
+
+        @Label("Puntuación")
+        int score;
+    }
+
+    @Name("com.example.mathrush.GameReset")
+    @Label("Reinicio de partida")
+    @Description("Reinicio de vidas, puntuación y dificultad, hasta mostrar la primera pregunta")
+    @Category(CATEGORY)
+    static final class GameReset extends Event {
+        @Label("Puntuación final")
+        @Description("Puntuación de la partida que termina")
+        int previousScore;
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.mathrush;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Estadísticas en vivo de todas las sesiones de juego del proceso: preguntas,
+ * respuestas por resultado, vidas perdidas, reinicios, partidas en curso y
+ * trabajo pendiente en segundo plano.
+ *
+ * <p>Las actualiza cada {@link GameSession} que las recibe al crearse (el juego
+ * le pasa las del proceso, {@link #global()}), así que una JVM con miles
+ * de sesiones en muchos hilos las toca continuamente. Por eso cada contador es
+ * un {@link LongAdder}: los hilos suman en celdas separadas y sólo al leer se
+ * combinan, de modo que registrar un evento nunca compite por una misma línea
+ * de caché.</p>
+ *
+ * <p>Se exportan como MBean ({@link #registerMBean()}) y en el formato de texto
+ * de Prometheus ({@link #writeText}, servido por {@link MetricsServer}).</p>
+ */
+public class GameMetrics implements GameMetricsMBean {
+
+    /** Nombre del MBean en el servidor de plataforma. */
+    public static final String OBJECT_NAME = "com.example.mathrush:type=GameMetrics";
+
+    private static final GameMetrics GLOBAL = new GameMetrics();
+
+    private final LongAdder questionsShown = new LongAdder();
+    private final LongAdder correctAnswers = new LongAdder();
+    private final LongAdder incorrectAnswers = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder livesLost = new LongAdder();
+    private final LongAdder restarts = new LongAdder();
+    private final LongAdder activeSessions = new LongAdder();
+    private final List<ThreadPoolExecutor> executors = new CopyOnWriteArrayList<>();
+
+    /**
+     * Obtiene las estadísticas compartidas por todas las sesiones del proceso.
+     *
+     * @return Las estadísticas del proceso
+     */
+    public static GameMetrics global() {
+        return GLOBAL;
+    }
+
+    void questionShown() {
+        questionsShown.increment();
+    }
+
+    void answered(GameSession.Outcome outcome) {
+        switch (outcome) {
+            case CORRECT -> correctAnswers.increment();
+            case INCORRECT -> incorrectAnswers.increment();
+            case TIMEOUT -> timeouts.increment();
+        }
+    }
+
+    void lifeLost() {
+        livesLost.increment();
+    }
+
+    void gameStarted() {
+        activeSessions.increment();
+    }
+
+    void gameEnded() {
+        activeSessions.decrement();
+    }
+
+    void gameRestarted() {
+        restarts.increment();
+    }
+
+    /**
+     * Incluye la cola de un executor en {@link #getExecutorQueueDepth()}.
+     *
+     * @param executor El executor
+     */
+    public void registerExecutor(ThreadPoolExecutor executor) {
+        executors.add(executor);
+    }
+
+    /**
+     * Deja de contar la cola de un executor, normalmente al apagarlo.
+     *
+     * @param executor El executor
+     */
+    public void unregisterExecutor(ThreadPoolExecutor executor) {
+        executors.remove(executor);
+    }
+
+    @Override
+    public long getQuestionsShown() {
+        return questionsShown.sum();
+    }
+
+    @Override
+    public long getCorrectAnswers() {
+        return correctAnswers.sum();
+    }
+
+    @Override
+    public long getIncorrectAnswers() {
+        return incorrectAnswers.sum();
+    }
+
+    @Override
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    @Override
+    public long getLivesLost() {
+        return livesLost.sum();
+    }
+
+    @Override
+    public long getRestarts() {
+        return restarts.sum();
+    }
+
+    @Override
+    public long getActiveSessions() {
+        return activeSessions.sum();
+    }
+
+    @Override
+    public long getExecutorQueueDepth() {
+        long depth = 0;
+        for (ThreadPoolExecutor executor : executors) {
+            depth += executor.getQueue().size();
+        }
+        return depth;
+    }
+
+    @Override
+    public long getPendingTimers() {
+        // Consultar las estadísticas no debe arrancar el hilo de la rueda
+        TimingWheel wheel = TimingWheel.sharedIfStarted();
+        return wheel != null ? wheel.getPendingCount() : 0;
+    }
+
+    /**
+     * Registra estas estadísticas en el servidor de MBeans de la plataforma, donde
+     * las ven JConsole, VisualVM o cualquier cliente JMX. No hace nada si ya
+     * estaban registradas.
+     *
+     * @throws JMException si el registro falla
+     */
+    public synchronized void registerMBean() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(OBJECT_NAME);
+        if (!server.isRegistered(name)) {
+            server.registerMBean(this, name);
+        }
+    }
+
+    /**
+     * Escribe las estadísticas en el formato de texto de Prometheus (versión 0.0.4).
+     *
+     * @param out El destino
+     */
+    public void writeText(StringBuilder out) {
+        counter(out, "mathrush_questions_shown_total", "Preguntas mostradas", getQuestionsShown());
+
+        out.append("# HELP mathrush_answers_total Preguntas resueltas por resultado\n");
+        out.append("# TYPE mathrush_answers_total counter\n");
+        sample(out, "mathrush_answers_total{outcome=\"correct\"}", getCorrectAnswers());
+        sample(out, "mathrush_answers_total{outcome=\"incorrect\"}", getIncorrectAnswers());
+        sample(out, "mathrush_answers_total{outcome=\"timeout\"}", getTimeouts());
+
+        counter(out, "mathrush_lives_lost_total", "Vidas perdidas", getLivesLost());
+        counter(out, "mathrush_restarts_total", "Partidas reiniciadas", getRestarts());
+        gauge(out, "mathrush_active_sessions", "Partidas en curso", getActiveSessions());
+        gauge(out, "mathrush_executor_queue_depth", "Tareas en cola en segundo plano", getExecutorQueueDepth());
+        gauge(out, "mathrush_pending_timers", "Temporizadores pendientes", getPendingTimers());
+    }
+
+    private static void counter(StringBuilder out, String name, String help, long value) {
+        metadata(out, name, help, "counter");
+        sample(out, name, value);
+    }
+
+    private static void gauge(StringBuilder out, String name, String help, long value) {
+        metadata(out, name, help, "gauge");
+        sample(out, name, value);
+    }
+
+    private static void metadata(StringBuilder out, String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String series, long value) {
+        out.append(series).append(' ').append(value).append('\n');
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.mathrush;
+
+/**
+ * Interfaz JMX de {@link GameMetrics}: contadores acumulados desde que arrancó
+ * el proceso e indicadores instantáneos. Las tasas (preguntas por segundo,
+ * etc.) se obtienen derivando los contadores en quien los consulta.
+ */
+public interface GameMetricsMBean {
+
+    long getQuestionsShown();
+
+    long getCorrectAnswers();
+
+    long getIncorrectAnswers();
+
+    long getTimeouts();
+
+    long getLivesLost();
+
+    long getRestarts();
+
+    /**
+     * Obtiene las partidas en curso: empezadas y que aún no terminaron ni se reiniciaron.
+     *
+     * @return El número de partidas en curso
+     */
+    long getActiveSessions();
+
+    /**
+     * Obtiene las tareas que esperan en las colas de los executors registrados.
+     *
+     * @return La suma de las tareas en cola
+     */
+    long getExecutorQueueDepth();
+
+    /**
+     * Obtiene los temporizadores pendientes de la rueda compartida.
+     *
+     * @return El número de temporizadores pendientes, o 0 si la rueda aún no se usó
+     */
+    long getPendingTimers();
+}
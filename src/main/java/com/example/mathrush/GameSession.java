@@ -0,0 +1,386 @@
+package com.example.mathrush;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Máquina de estados sin dependencias de JavaFX que contiene todas las reglas
+ * de una partida: vidas, puntuación, tiempo límite, verificación de respuestas
+ * y cuándo debe programarse la siguiente pregunta.
+ *
+ * <p>Una sesión no es segura para hilos: debe usarse siempre desde el mismo hilo
+ * (el hilo de JavaFX en {@link QuizGame}, o el hilo del servidor que la hospede).
+ * Al no tener nodos de UI, una misma JVM puede mantener miles de sesiones.</p>
+ *
+ * <p>La sesión no lee el reloj: quien la hospeda le pasa el instante actual en
+ * nanosegundos (normalmente {@link System#nanoTime()}), lo que permite detectar
+ * el tiempo agotado con precisión de milisegundos y usar relojes simulados.</p>
+ */
+public class GameSession {
+
+    /**
+     * Estados posibles de la sesión.
+     */
+    public enum State {
+        /** Hay una pregunta en pantalla esperando respuesta. */
+        AWAITING_ANSWER,
+        /** La pregunta ya se respondió (o expiró) y se espera la siguiente. */
+        SHOWING_FEEDBACK,
+        /** El jugador se quedó sin vidas. */
+        GAME_OVER
+    }
+
+    /**
+     * Resultado de una pregunta.
+     */
+    public enum Outcome {
+        CORRECT,
+        INCORRECT,
+        TIMEOUT
+    }
+
+    // Reglas del juego
+    public static final int INITIAL_LIVES = 3;
+    public static final int POINTS_PER_CORRECT_ANSWER = 10;
+    public static final int INITIAL_TIME = 10;
+    public static final long TIME_LIMIT_NANOS = TimeUnit.SECONDS.toNanos(INITIAL_TIME);
+    public static final int DELAY_BETWEEN_QUESTIONS_MS = 1500;
+    public static final int OPTIONS_PER_QUESTION = 4;
+
+    private final QuestionSource questionSource;
+    private final MasteryStore mastery;
+    private final GameMetrics metrics;
+    private SessionJournal journal;
+    private int sessionId;
+    private PreparedQuestion currentQuestion;
+    private State state;
+    private long questionShownNanos;
+    private long lastReactionNanos;
+    private int lives;
+    private int score;
+    // Si la partida ya mostró su primera pregunta y aún no terminó (para GameMetrics)
+    private boolean inProgress;
+
+    /**
+     * Crea una sesión nueva que genera cada pregunta al momento de pedirla.
+     */
+    public GameSession() {
+        this(new GeneratedQuestionSource());
+    }
+
+    /**
+     * Crea una sesión reproducible: con la misma semilla y las mismas respuestas
+     * se obtiene la misma partida.
+     *
+     * @param seed La semilla de la secuencia de preguntas
+     */
+    public GameSession(long seed) {
+        this(new GeneratedQuestionSource(seed));
+    }
+
+    /**
+     * Crea una sesión nueva que toma sus preguntas de la fuente indicada.
+     *
+     * @param questionSource La fuente de preguntas, de uso exclusivo de esta sesión
+     */
+    public GameSession(QuestionSource questionSource) {
+        this(questionSource, null);
+    }
+
+    /**
+     * Crea una sesión que registra el dominio del jugador y mezcla entre las
+     * preguntas de la fuente los hechos fallados que toca repasar.
+     *
+     * @param questionSource La fuente de preguntas, de uso exclusivo de esta sesión
+     * @param mastery El dominio del jugador, o {@code null} para no registrarlo
+     */
+    public GameSession(QuestionSource questionSource, MasteryStore mastery) {
+        this(questionSource, mastery, new GameMetrics());
+    }
+
+    /**
+     * Crea una sesión que además cuenta sus eventos en las estadísticas indicadas.
+     * Las sesiones creadas con los otros constructores usan unas estadísticas
+     * propias, de modo que las simulaciones y las reproducciones no se mezclan
+     * con las del juego.
+     *
+     * @param questionSource La fuente de preguntas, de uso exclusivo de esta sesión
+     * @param mastery El dominio del jugador, o {@code null} para no registrarlo
+     * @param metrics Las estadísticas donde contar, normalmente {@link GameMetrics#global()}
+     */
+    public GameSession(QuestionSource questionSource, MasteryStore mastery, GameMetrics metrics) {
+        this.questionSource = questionSource;
+        this.mastery = mastery;
+        this.metrics = metrics;
+        resetState();
+    }
+
+    /**
+     * Reinicia vidas, puntuación y progresión de dificultad para un juego nuevo.
+     * Después de llamarlo se debe pedir la primera pregunta con {@link #nextQuestion(long)}.
+     */
+    public void reset() {
+        if (inProgress) {
+            inProgress = false;
+            metrics.gameEnded();
+        }
+        metrics.gameRestarted();
+        resetState();
+        startJournal();
+
+        // Reiniciar el contador de preguntas para comenzar con nivel fácil
+        questionSource.reset();
+    }
+
+    /**
+     * Registra desde ahora esta sesión en una bitácora. Cada partida (la actual
+     * y las que empiecen con {@link #reset()}) recibe un identificador propio.
+     *
+     * @param journal La bitácora, compartida o no con otras sesiones
+     */
+    public void attachJournal(SessionJournal journal) {
+        this.journal = journal;
+        startJournal();
+    }
+
+    private void startJournal() {
+        if (journal != null) {
+            sessionId = journal.newSessionId();
+            journal.gameStarted(sessionId, lives, score);
+        }
+    }
+
+    private void resetState() {
+        lives = INITIAL_LIVES;
+        score = 0;
+        lastReactionNanos = 0;
+        currentQuestion = null;
+        state = State.SHOWING_FEEDBACK;
+    }
+
+    /**
+     * Obtiene la siguiente pregunta y sus opciones de respuesta.
+     *
+     * @param nowNanos El instante en que se muestra la pregunta
+     * @return La nueva pregunta
+     * @throws IllegalStateException si el juego ya terminó
+     */
+    public MathQuestion nextQuestion(long nowNanos) {
+        if (state == State.GAME_OVER) {
+            throw new IllegalStateException("El juego ya terminó");
+        }
+
+        PreparedQuestion review = mastery == null ? null : mastery.pollDue();
+        currentQuestion = review != null ? review : questionSource.next();
+        questionShownNanos = nowNanos;
+        state = State.AWAITING_ANSWER;
+        metrics.questionShown();
+        if (!inProgress) {
+            inProgress = true;
+            metrics.gameStarted();
+        }
+        if (journal != null) {
+            journal.questionShown(sessionId, nowNanos, currentQuestion, review != null, lives, score);
+        }
+
+        return currentQuestion.getQuestion();
+    }
+
+    /**
+     * Comprueba si se agotó el tiempo de la pregunta actual y, en ese caso, la
+     * resuelve como {@link Outcome#TIMEOUT}.
+     *
+     * @param nowNanos El instante actual
+     * @return {@code true} si con esta comprobación se agotó el tiempo
+     */
+    public boolean updateClock(long nowNanos) {
+        if (state != State.AWAITING_ANSWER || nowNanos - questionShownNanos < TIME_LIMIT_NANOS) {
+            return false;
+        }
+
+        timeOut(nowNanos);
+        return true;
+    }
+
+    /**
+     * Responde la pregunta actual. Una respuesta que llega cuando ya venció el
+     * tiempo límite (aunque nadie lo haya comprobado todavía con
+     * {@link #updateClock(long)}) no se puntúa: la pregunta se resuelve como
+     * {@link Outcome#TIMEOUT}.
+     *
+     * @param optionIndex La posición de la opción elegida por el jugador
+     * @param nowNanos El instante de la respuesta
+     * @return {@link Outcome#CORRECT}, {@link Outcome#INCORRECT} o, si la
+     *         respuesta llegó tarde, {@link Outcome#TIMEOUT}
+     * @throws IllegalStateException si no hay una pregunta esperando respuesta
+     */
+    public Outcome answer(int optionIndex, long nowNanos) {
+        requireAwaitingAnswer();
+        if (updateClock(nowNanos)) {
+            return Outcome.TIMEOUT;
+        }
+        lastReactionNanos = nowNanos - questionShownNanos;
+
+        boolean correct = optionIndex == currentQuestion.getCorrectIndex();
+        recordMastery(correct);
+        if (correct) {
+            score += POINTS_PER_CORRECT_ANSWER;
+            state = State.SHOWING_FEEDBACK;
+            metrics.answered(Outcome.CORRECT);
+            if (journal != null) {
+                journal.answered(sessionId, nowNanos, optionIndex, lastReactionNanos, lives, score);
+            }
+            return Outcome.CORRECT;
+        }
+
+        if (journal != null) {
+            journal.answered(sessionId, nowNanos, optionIndex, lastReactionNanos, lives - 1, score);
+        }
+        metrics.answered(Outcome.INCORRECT);
+        loseLife(nowNanos);
+        return Outcome.INCORRECT;
+    }
+
+    /**
+     * Resuelve la pregunta actual como tiempo agotado.
+     *
+     * @param nowNanos El instante en que expiró la pregunta
+     * @return Siempre {@link Outcome#TIMEOUT}
+     * @throws IllegalStateException si no hay una pregunta esperando respuesta
+     */
+    public Outcome timeOut(long nowNanos) {
+        requireAwaitingAnswer();
+
+        lastReactionNanos = nowNanos - questionShownNanos;
+        recordMastery(false);
+        if (journal != null) {
+            journal.timedOut(sessionId, nowNanos, lastReactionNanos, lives - 1, score);
+        }
+        metrics.answered(Outcome.TIMEOUT);
+        loseLife(nowNanos);
+        return Outcome.TIMEOUT;
+    }
+
+    private void recordMastery(boolean correct) {
+        if (mastery != null) {
+            mastery.record(currentQuestion.getQuestion(), correct);
+        }
+    }
+
+    private void loseLife(long nowNanos) {
+        lives--;
+        state = lives <= 0 ? State.GAME_OVER : State.SHOWING_FEEDBACK;
+        metrics.lifeLost();
+        if (state == State.GAME_OVER) {
+            inProgress = false;
+            metrics.gameEnded();
+        }
+        if (journal != null) {
+            journal.lifeLost(sessionId, nowNanos, lives, score);
+            if (state == State.GAME_OVER) {
+                journal.gameOver(sessionId, nowNanos, lives, score);
+            }
+        }
+    }
+
+    private void requireAwaitingAnswer() {
+        if (state != State.AWAITING_ANSWER) {
+            throw new IllegalStateException("No hay una pregunta esperando respuesta: " + state);
+        }
+    }
+
+    /**
+     * Indica si, tras resolver la pregunta actual, debe programarse otra.
+     *
+     * @return {@code true} si el juego continúa
+     */
+    public boolean shouldScheduleNextQuestion() {
+        return state == State.SHOWING_FEEDBACK;
+    }
+
+    public boolean isGameOver() {
+        return state == State.GAME_OVER;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public MathQuestion getCurrentQuestion() {
+        return currentQuestion == null ? null : currentQuestion.getQuestion();
+    }
+
+    /**
+     * Obtiene una opción de la pregunta actual, en el orden en que deben mostrarse.
+     *
+     * @param index La posición de la opción
+     * @return El valor de la opción
+     */
+    public int getOption(int index) {
+        return currentQuestion.getOption(index);
+    }
+
+    /**
+     * Obtiene la posición de la respuesta correcta entre las opciones actuales.
+     *
+     * @return La posición de la respuesta correcta
+     */
+    public int getCorrectOptionIndex() {
+        return currentQuestion.getCorrectIndex();
+    }
+
+    /**
+     * Obtiene el nivel de dificultad de la pregunta actual.
+     *
+     * @return El nivel de dificultad (ver {@link QuestionGenerator#getDifficultyLevel()})
+     */
+    public int getDifficultyLevel() {
+        return currentQuestion == null ? QuestionGenerator.EASY_LEVEL : currentQuestion.getDifficultyLevel();
+    }
+
+    /**
+     * Calcula el tiempo restante de la pregunta actual.
+     *
+     * @param nowNanos El instante actual
+     * @return Los milisegundos restantes, o 0 si no hay una pregunta esperando respuesta
+     */
+    public long getRemainingMillis(long nowNanos) {
+        if (state != State.AWAITING_ANSWER) {
+            return 0;
+        }
+        long remaining = TIME_LIMIT_NANOS - (nowNanos - questionShownNanos);
+        return remaining <= 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(remaining);
+    }
+
+    /**
+     * Calcula los segundos restantes tal como se muestran en pantalla (redondeados
+     * hacia arriba, de modo que se ve {@value #INITIAL_TIME} durante el primer segundo).
+     *
+     * @param nowNanos El instante actual
+     * @return Los segundos restantes
+     */
+    public int getTimeRemaining(long nowNanos) {
+        return (int) ((getRemainingMillis(nowNanos) + 999) / 1000);
+    }
+
+    /**
+     * Obtiene el tiempo que tardó el jugador en resolver la última pregunta, desde
+     * que se mostró hasta que respondió o se agotó el tiempo.
+     *
+     * @return El tiempo de reacción en nanosegundos
+     */
+    public long getLastReactionNanos() {
+        return lastReactionNanos;
+    }
+
+    public long getLastReactionMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(lastReactionNanos);
+    }
+
+    public int getLives() {
+        return lives;
+    }
+
+    public int getScore() {
+        return score;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.mathrush;
+
+import java.util.SplittableRandom;
+
+/**
+ * Fuente que genera cada pregunta en el momento en que se pide, usando un
+ * {@link QuestionGenerator} propio. No es segura para hilos.
+ *
+ * <p>Las preguntas, los distractores y el orden de las opciones salen de
+ * flujos {@link SplittableRandom} separados a partir de una misma raíz, de modo
+ * que con la misma semilla se reproduce exactamente la misma partida.</p>
+ */
+public class GeneratedQuestionSource implements QuestionSource {
+    private final QuestionGenerator generator;
+    private final DistractorGenerator distractors;
+
+    /**
+     * Crea una fuente con una semilla arbitraria.
+     */
+    public GeneratedQuestionSource() {
+        this(new SplittableRandom());
+    }
+
+    /**
+     * Crea una fuente reproducible.
+     *
+     * @param seed La semilla de la secuencia de preguntas y opciones
+     */
+    public GeneratedQuestionSource(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    private GeneratedQuestionSource(SplittableRandom root) {
+        this.generator = new QuestionGenerator(root.split());
+        this.distractors = new DistractorGenerator(root.split());
+    }
+
+    @Override
+    public PreparedQuestion next() {
+        MathQuestion question = generator.generateRandom();
+        int[] options = new int[GameSession.OPTIONS_PER_QUESTION];
+        int correctIndex = distractors.fill(question.getCorrectAnswer(), options);
+        return new PreparedQuestion(question, options, correctIndex, generator.getDifficultyLevel());
+    }
+
+    @Override
+    public void reset() {
+        generator.reset();
+    }
+}
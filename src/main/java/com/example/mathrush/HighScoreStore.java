@@ -0,0 +1,361 @@
+package com.example.mathrush;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Registro persistente de puntuaciones: un archivo de sólo anexado con todas
+ * las partidas y un índice pequeño con las {@value #TOP_K} mejores.
+ *
+ * <p>Cada partida es un registro de ancho fijo protegido con CRC32. Los
+ * registros se escriben al momento, pero {@code fsync} se hace por lotes: al
+ * acumular {@value #SYNC_BATCH_SIZE} partidas, al anexar una partida cuando la
+ * más antigua pendiente lleva {@value #SYNC_INTERVAL_MILLIS} ms sin sincronizar,
+ * al llamar a {@link #sync()} (quien lo hospeda debe programarlo tras cada
+ * partida) y siempre al cerrar. Si el proceso se
+ * interrumpe a mitad de una escritura, al abrir el registro se descarta el final
+ * incompleto o dañado.</p>
+ *
+ * <p>El índice guarda las mejores puntuaciones y hasta qué byte del registro las
+ * tiene en cuenta. Al abrir sólo se vuelve a leer el registro a partir de ese
+ * punto, y consultar la tabla de clasificación cuesta O(K) sin importar cuántos
+ * millones de partidas haya. Es segura para hilos.</p>
+ */
+public class HighScoreStore implements AutoCloseable {
+
+    /** Número de puntuaciones que guarda el índice. */
+    public static final int TOP_K = 10;
+
+    private static final String LOG_FILE = "scores.log";
+    private static final String INDEX_FILE = "scores.idx";
+
+    // Formato del registro: cabecera y registros (little-endian)
+    private static final int LOG_MAGIC = 0x4C48524D; // "MRHL"
+    private static final int INDEX_MAGIC = 0x4948524D; // "MRHI"
+    private static final int VERSION = 1;
+    private static final int LOG_HEADER_SIZE = 8;
+    // long fecha, int puntuación, int CRC32 de los 12 bytes anteriores
+    private static final int RECORD_SIZE = 16;
+    // int magia, int versión, long bytes del registro cubiertos, int entradas, entradas (int, long)
+    private static final int INDEX_HEADER_SIZE = 20;
+    private static final int INDEX_SIZE = INDEX_HEADER_SIZE + TOP_K * 12;
+
+    // Política de sincronización
+    public static final long SYNC_INTERVAL_MILLIS = 1000;
+    private static final int SYNC_BATCH_SIZE = 16;
+    // El índice se reescribe cada tantas partidas (y al cerrar)
+    private static final int INDEX_INTERVAL = 64;
+
+    private final Path indexPath;
+    private final FileChannel log;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private final CRC32 crc = new CRC32();
+
+    // Las K mejores, ordenadas de mayor a menor puntuación
+    private final int[] topScores = new int[TOP_K];
+    private final long[] topTimestamps = new long[TOP_K];
+    private int topCount;
+
+    private long logLength;
+    private long totalGames;
+    private int unsyncedRecords;
+    private long firstUnsyncedNanos;
+    private int recordsSinceIndex;
+
+    private HighScoreStore(Path indexPath, FileChannel log) {
+        this.indexPath = indexPath;
+        this.log = log;
+    }
+
+    /**
+     * Abre (o crea) el registro de puntuaciones de un directorio, recuperándolo
+     * si la última escritura quedó incompleta.
+     *
+     * @param directory El directorio de datos
+     * @return El registro abierto
+     * @throws IOException si no se puede leer o crear el registro
+     */
+    public static HighScoreStore open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        FileChannel log = FileChannel.open(directory.resolve(LOG_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            HighScoreStore store = new HighScoreStore(directory.resolve(INDEX_FILE), log);
+            store.recover();
+            return store;
+        } catch (IOException | RuntimeException e) {
+            log.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Agrega una partida al registro y, si entra, a la tabla de clasificación.
+     *
+     * @param timestampMillis El momento de la partida (milisegundos desde la época)
+     * @param score La puntuación final
+     * @return La posición en la tabla (0 es la mejor), o -1 si no entró
+     * @throws IOException si falla la escritura
+     */
+    public synchronized int append(long timestampMillis, int score) throws IOException {
+        record.clear();
+        record.putLong(timestampMillis).putInt(score);
+        crc.reset();
+        crc.update(record.array(), 0, RECORD_SIZE - 4);
+        record.putInt((int) crc.getValue());
+        record.flip();
+        while (record.hasRemaining()) {
+            log.write(record, logLength + record.position());
+        }
+        logLength += RECORD_SIZE;
+        totalGames++;
+
+        if (unsyncedRecords++ == 0) {
+            firstUnsyncedNanos = System.nanoTime();
+        }
+        if (unsyncedRecords >= SYNC_BATCH_SIZE
+                || System.nanoTime() - firstUnsyncedNanos >= TimeUnit.MILLISECONDS.toNanos(SYNC_INTERVAL_MILLIS)) {
+            sync();
+        }
+
+        int rank = offer(timestampMillis, score);
+        if (++recordsSinceIndex >= INDEX_INTERVAL) {
+            writeIndex();
+        }
+        return rank;
+    }
+
+    /**
+     * Fuerza a disco las partidas escritas desde la última sincronización.
+     *
+     * @throws IOException si falla la sincronización
+     */
+    public synchronized void sync() throws IOException {
+        if (unsyncedRecords > 0) {
+            log.force(false);
+            unsyncedRecords = 0;
+        }
+    }
+
+    /**
+     * Obtiene cuántas puntuaciones tiene la tabla de clasificación.
+     *
+     * @return Entre 0 y {@value #TOP_K}
+     */
+    public synchronized int getTopCount() {
+        return topCount;
+    }
+
+    /**
+     * Obtiene una puntuación de la tabla de clasificación.
+     *
+     * @param rank La posición, empezando en 0 por la mejor
+     * @return La puntuación
+     */
+    public synchronized int getTopScore(int rank) {
+        checkRank(rank);
+        return topScores[rank];
+    }
+
+    /**
+     * Obtiene el momento de una partida de la tabla de clasificación.
+     *
+     * @param rank La posición, empezando en 0 por la mejor
+     * @return El momento de la partida, en milisegundos desde la época
+     */
+    public synchronized long getTopTimestamp(int rank) {
+        checkRank(rank);
+        return topTimestamps[rank];
+    }
+
+    /**
+     * Obtiene cuántas partidas hay en el registro.
+     *
+     * @return El número de partidas
+     */
+    public synchronized long getTotalGames() {
+        return totalGames;
+    }
+
+    /**
+     * Sincroniza el registro, guarda el índice y cierra el archivo.
+     *
+     * @throws IOException si falla la escritura
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            sync();
+            writeIndex();
+        } finally {
+            log.close();
+        }
+    }
+
+    private void checkRank(int rank) {
+        if (rank < 0 || rank >= topCount) {
+            throw new IndexOutOfBoundsException("Posición fuera de la tabla: " + rank);
+        }
+    }
+
+    /**
+     * Inserta una puntuación en la tabla si entra, en O(K). Con puntuaciones
+     * iguales queda primero la más antigua.
+     */
+    private int offer(long timestampMillis, int score) {
+        if (topCount == TOP_K && score <= topScores[TOP_K - 1]) {
+            return -1;
+        }
+        int position = Math.min(topCount, TOP_K - 1);
+        while (position > 0 && topScores[position - 1] < score) {
+            topScores[position] = topScores[position - 1];
+            topTimestamps[position] = topTimestamps[position - 1];
+            position--;
+        }
+        topScores[position] = score;
+        topTimestamps[position] = timestampMillis;
+        topCount = Math.min(topCount + 1, TOP_K);
+        return position;
+    }
+
+    /**
+     * Carga el índice y vuelve a leer el registro desde donde el índice lo dejó,
+     * truncando cualquier final incompleto o dañado.
+     */
+    private void recover() throws IOException {
+        long size = log.size();
+        if (size < LOG_HEADER_SIZE) {
+            // Registro nuevo (o cabecera a medio escribir)
+            ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(LOG_MAGIC).putInt(VERSION).flip();
+            log.truncate(0);
+            while (header.hasRemaining()) {
+                log.write(header, header.position());
+            }
+            log.force(true);
+            logLength = LOG_HEADER_SIZE;
+            return;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(header, 0);
+        if (header.getInt(0) != LOG_MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException("No es un registro de puntuaciones válido");
+        }
+
+        long replayFrom = readIndex(size);
+
+        // Volver a leer la cola del registro que el índice no cubre
+        ByteBuffer chunk = ByteBuffer.allocate(RECORD_SIZE * 4096).order(ByteOrder.LITTLE_ENDIAN);
+        long position = replayFrom;
+        boolean damaged = false;
+        while (!damaged && position + RECORD_SIZE <= size) {
+            chunk.clear();
+            chunk.limit((int) Math.min(chunk.capacity(), (size - position) / RECORD_SIZE * RECORD_SIZE));
+            readFully(chunk, position);
+            chunk.flip();
+            while (chunk.remaining() >= RECORD_SIZE) {
+                int start = chunk.position();
+                crc.reset();
+                crc.update(chunk.array(), start, RECORD_SIZE - 4);
+                long timestamp = chunk.getLong();
+                int score = chunk.getInt();
+                if (chunk.getInt() != (int) crc.getValue()) {
+                    damaged = true;
+                    break;
+                }
+                offer(timestamp, score);
+                totalGames++;
+                position += RECORD_SIZE;
+            }
+        }
+
+        logLength = position;
+        if (logLength < size) {
+            // Final incompleto o dañado: se descarta
+            log.truncate(logLength);
+            log.force(true);
+        }
+        if (replayFrom < logLength) {
+            writeIndex();
+        }
+    }
+
+    /**
+     * Carga el índice si es válido y coherente con el registro.
+     *
+     * @return La posición del registro desde la que hay que volver a leer
+     */
+    private long readIndex(long logSize) throws IOException {
+        ByteBuffer index = ByteBuffer.allocate(INDEX_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+            while (index.hasRemaining()) {
+                if (channel.read(index) < 0) {
+                    return LOG_HEADER_SIZE;
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return LOG_HEADER_SIZE;
+        }
+        index.flip();
+
+        if (index.getInt() != INDEX_MAGIC || index.getInt() != VERSION) {
+            return LOG_HEADER_SIZE;
+        }
+        long coveredLength = index.getLong();
+        int count = index.getInt();
+        if (coveredLength < LOG_HEADER_SIZE || coveredLength > logSize
+                || (coveredLength - LOG_HEADER_SIZE) % RECORD_SIZE != 0 || count < 0 || count > TOP_K) {
+            return LOG_HEADER_SIZE;
+        }
+        for (int i = 0; i < count; i++) {
+            topScores[i] = index.getInt();
+            topTimestamps[i] = index.getLong();
+        }
+        topCount = count;
+        totalGames = (coveredLength - LOG_HEADER_SIZE) / RECORD_SIZE;
+        return coveredLength;
+    }
+
+    /**
+     * Reescribe el índice de forma atómica con la tabla actual.
+     */
+    private void writeIndex() throws IOException {
+        ByteBuffer index = ByteBuffer.allocate(INDEX_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        index.putInt(INDEX_MAGIC).putInt(VERSION).putLong(logLength).putInt(topCount);
+        for (int i = 0; i < topCount; i++) {
+            index.putInt(topScores[i]).putLong(topTimestamps[i]);
+        }
+        index.position(0).limit(INDEX_SIZE);
+
+        // El índice sólo puede cubrir lo que ya está en disco
+        sync();
+        Path temporary = indexPath.resolveSibling(INDEX_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (index.hasRemaining()) {
+                channel.write(index);
+            }
+            channel.force(false);
+        }
+        Files.move(temporary, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        recordsSinceIndex = 0;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (log.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Fin inesperado del registro de puntuaciones");
+            }
+        }
+    }
+}
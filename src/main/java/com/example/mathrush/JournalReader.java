@@ -0,0 +1,228 @@
+package com.example.mathrush;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Lee en orden los registros de una bitácora escrita por {@link SessionJournal}.
+ *
+ * <p>El archivo se lee en bloques grandes con un búfer directo reutilizado y cada
+ * registro se decodifica en el sitio, sin crear objetos: tras {@link #next()} los
+ * campos del registro actual se consultan con los métodos {@code get}. Un
+ * registro incompleto al final del archivo (por ejemplo, si el proceso terminó a
+ * mitad de una escritura) se ignora.</p>
+ */
+public class JournalReader implements AutoCloseable {
+
+    private static final int READ_BUFFER_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private final long[] words = new long[SessionJournal.RECORD_WORDS];
+    private boolean endOfFile;
+    private long recordCount;
+
+    /**
+     * Abre una bitácora y comprueba su cabecera.
+     *
+     * @param path El archivo de la bitácora
+     * @throws IOException si no se puede leer o no es una bitácora válida
+     */
+    public JournalReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(SessionJournal.FILE_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    throw new EOFException("Bitácora truncada: " + path);
+                }
+            }
+            if (header.getInt(0) != SessionJournal.FILE_MAGIC) {
+                throw new IOException("No es una bitácora de partidas: " + path);
+            }
+            if (header.getInt(4) != SessionJournal.FILE_VERSION) {
+                throw new IOException("Versión de bitácora no soportada: " + header.getInt(4));
+            }
+            if (header.getInt(8) != SessionJournal.RECORD_SIZE) {
+                throw new IOException("Tamaño de registro inválido: " + header.getInt(8));
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        buffer.limit(0);
+    }
+
+    /**
+     * Avanza al siguiente registro.
+     *
+     * @return {@code false} si no hay más registros completos
+     * @throws IOException si falla la lectura
+     */
+    public boolean next() throws IOException {
+        if (buffer.remaining() < SessionJournal.RECORD_SIZE && !fill()) {
+            return false;
+        }
+        for (int i = 0; i < words.length; i++) {
+            words[i] = buffer.getLong();
+        }
+        recordCount++;
+        return true;
+    }
+
+    /**
+     * Lee más bytes del archivo conservando el registro parcial que quede en el búfer.
+     */
+    private boolean fill() throws IOException {
+        while (!endOfFile && buffer.remaining() < SessionJournal.RECORD_SIZE) {
+            buffer.compact();
+            int read = channel.read(buffer);
+            buffer.flip();
+            if (read < 0) {
+                endOfFile = true;
+            }
+        }
+        return buffer.remaining() >= SessionJournal.RECORD_SIZE;
+    }
+
+    /**
+     * Obtiene cuántos registros se han leído.
+     *
+     * @return El número de registros leídos
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Obtiene el tipo del registro actual.
+     *
+     * @return Una de las constantes de tipo de {@link SessionJournal}
+     */
+    public int getType() {
+        return (int) (words[0] & 0xFF);
+    }
+
+    public int getSessionId() {
+        return (int) (words[0] >>> 32);
+    }
+
+    public long getSequence() {
+        return words[1];
+    }
+
+    public long getNanos() {
+        return words[2];
+    }
+
+    public int getLives() {
+        return (int) words[3];
+    }
+
+    public int getScore() {
+        return (int) (words[3] >>> 32);
+    }
+
+    /**
+     * Obtiene la plantilla de la pregunta; sólo en registros {@link SessionJournal#QUESTION_SHOWN}.
+     *
+     * @return La plantilla
+     * @throws IOException si el registro tiene una plantilla desconocida
+     */
+    public QuestionTemplate getTemplate() throws IOException {
+        int ordinal = (int) ((words[0] >>> 8) & 0xFF);
+        QuestionTemplate[] templates = QuestionTemplate.values();
+        if (ordinal >= templates.length) {
+            throw new IOException("Plantilla desconocida en el registro " + getSequence() + ": " + ordinal);
+        }
+        return templates[ordinal];
+    }
+
+    public int getDifficultyLevel() {
+        return (int) ((words[0] >>> 16) & 0xFF);
+    }
+
+    /**
+     * Obtiene la posición de la respuesta correcta (en registros de pregunta) o
+     * de la opción elegida (en registros de respuesta).
+     *
+     * @return La posición
+     */
+    public int getIndex() {
+        return (int) ((words[0] >>> 24) & 0xFF);
+    }
+
+    /**
+     * Obtiene el tiempo de reacción; sólo en registros de respuesta o de tiempo agotado.
+     *
+     * @return El tiempo de reacción en nanosegundos
+     */
+    public long getReactionNanos() {
+        return words[4];
+    }
+
+    /**
+     * Obtiene la fecha de comienzo; sólo en registros {@link SessionJournal#GAME_START}.
+     *
+     * @return Los milisegundos desde la época
+     */
+    public long getStartMillis() {
+        return words[4];
+    }
+
+    public int getAnswer() {
+        return (int) words[5];
+    }
+
+    public int getOperandA() {
+        return (int) (words[5] >>> 32);
+    }
+
+    public int getOperandB() {
+        return (int) words[6];
+    }
+
+    public int getOperandC() {
+        return (int) (words[6] >>> 32);
+    }
+
+    public int getOptionCount() {
+        return (int) words[7];
+    }
+
+    /**
+     * Indica si la pregunta fue un repaso del dominio del jugador (ver
+     * {@link SessionJournal#FLAG_REVIEW}) en lugar de la siguiente de la fuente.
+     *
+     * @return {@code true} si fue un repaso
+     */
+    public boolean isReview() {
+        return ((words[7] >>> 32) & SessionJournal.FLAG_REVIEW) != 0;
+    }
+
+    /**
+     * Obtiene una opción de la pregunta, reconstruida a partir de su
+     * desplazamiento respecto a la respuesta correcta.
+     *
+     * @param index La posición de la opción
+     * @return El valor de la opción
+     */
+    public int getOption(int index) {
+        return getAnswer() + (byte) (words[4] >>> (index * 8));
+    }
+
+    /**
+     * Cierra el archivo.
+     *
+     * @throws IOException si falla el cierre
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,364 @@
+package com.example.mathrush;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reproduce sin interfaz las partidas de una bitácora ({@link SessionJournal})
+ * a través de las reglas de {@link GameSession} y comprueba que vidas,
+ * puntuación, dificultad y tiempos agotados salen iguales a los registrados.
+ *
+ * <p>Cada pregunta registrada se entrega a una sesión nueva mediante una fuente
+ * de preguntas que sólo devuelve la pregunta grabada, y cada respuesta o tiempo
+ * agotado se aplica en el instante registrado, con un reloj simulado: la
+ * reproducción va tan rápido como lo permita la CPU. Los repasos de
+ * {@link MasteryStore} quedan grabados como preguntas normales, así que no hace
+ * falta el dominio del jugador. Las preguntas de expresiones no guardan sus
+ * operandos y se reproducen con un texto genérico; para las demás se vuelve a
+ * calcular la respuesta con {@link MathQuestion#of}.</p>
+ *
+ * <p>Sirve como prueba de regresión tras cambiar la progresión de preguntas o
+ * las reglas de puntuación, y como benchmark del motor de reglas:</p>
+ *
+ * <pre>
+ * java -cp target/classes com.example.mathrush.JournalReplay \
+ *      ~/.mathrush/journal/session-*.journal --repeat 100
+ * </pre>
+ */
+public class JournalReplay {
+
+    private static final String USAGE = "Uso: JournalReplay <bitácora>... [--repeat N]";
+
+    // Diferencias que se guardan con su descripción; las demás sólo se cuentan
+    private static final int MAX_REPORTED_MISMATCHES = 20;
+
+    // Texto de las preguntas de expresiones, cuyos operandos no se registran
+    private static final String EXPRESSION_PLACEHOLDER = "(expresión) = ?";
+
+    /**
+     * Fuente que entrega la pregunta grabada que toca mostrar.
+     */
+    private static final class RecordedQuestionSource implements QuestionSource {
+        private PreparedQuestion pending;
+
+        @Override
+        public PreparedQuestion next() {
+            PreparedQuestion question = pending;
+            if (question == null) {
+                throw new IllegalStateException("No hay una pregunta grabada pendiente");
+            }
+            pending = null;
+            return question;
+        }
+
+        @Override
+        public void reset() {
+            pending = null;
+        }
+    }
+
+    /**
+     * Partida que se está reproduciendo.
+     */
+    private static final class Replayed {
+        final RecordedQuestionSource source = new RecordedQuestionSource();
+        final GameSession session = new GameSession(source);
+        // Preguntas tomadas de la fuente (sin contar los repasos), para seguir la progresión
+        int generatedCount;
+    }
+
+    private final Map<Integer, Replayed> sessions = new HashMap<>();
+    private final List<String> mismatches = new ArrayList<>();
+    private long eventCount;
+    private long sessionCount;
+    private long completedCount;
+    private long skippedCount;
+    private long mismatchCount;
+
+    /**
+     * Punto de entrada del modo de reproducción.
+     *
+     * @param args Las bitácoras seguidas de las opciones
+     */
+    public static void main(String[] args) {
+        List<Path> files = new ArrayList<>();
+        int repeat = 1;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--repeat")) {
+                    if (++i >= args.length) {
+                        throw new IllegalArgumentException("Falta el valor de --repeat");
+                    }
+                    repeat = Integer.parseInt(args[i]);
+                } else if (args[i].startsWith("--")) {
+                    throw new IllegalArgumentException("Argumento desconocido: " + args[i]);
+                } else {
+                    files.add(Paths.get(args[i]));
+                }
+            }
+            if (files.isEmpty()) {
+                throw new IllegalArgumentException("Falta la bitácora");
+            }
+            if (repeat < 1) {
+                throw new IllegalArgumentException("--repeat debe ser positivo: " + repeat);
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        JournalReplay replay = new JournalReplay();
+        try {
+            long start = System.nanoTime();
+            for (int round = 0; round < repeat; round++) {
+                for (Path file : files) {
+                    replay.replay(file);
+                }
+            }
+            long nanos = Math.max(1, System.nanoTime() - start);
+
+            for (String mismatch : replay.getMismatches()) {
+                System.err.println(mismatch);
+            }
+            System.out.println("Reproducidos " + replay.getEventCount() + " eventos de "
+                    + replay.getSessionCount() + " partidas (" + replay.getCompletedCount() + " terminadas) en "
+                    + nanos / 1_000_000 + " ms (" + (long) (replay.getEventCount() * 1e9 / nanos) + " eventos/s)");
+            System.out.println(replay.getMismatchCount() + " diferencias, "
+                    + replay.getSkippedCount() + " eventos sin partida");
+            if (replay.getMismatchCount() > 0) {
+                System.exit(1);
+            }
+        } catch (IOException e) {
+            System.err.println("Error al leer la bitácora: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reproduce todas las partidas de una bitácora. Las partidas que quedaron
+     * sin terminar (por ejemplo, porque se cerró el juego) no cuentan como error.
+     *
+     * @param file El archivo de la bitácora
+     * @throws IOException si no se puede leer o no es una bitácora válida
+     */
+    public void replay(Path file) throws IOException {
+        // Los identificadores de partida sólo son únicos dentro de cada bitácora
+        sessions.clear();
+        try (JournalReader reader = new JournalReader(file)) {
+            while (reader.next()) {
+                eventCount++;
+                apply(reader);
+            }
+        }
+        sessions.clear();
+    }
+
+    private void apply(JournalReader reader) throws IOException {
+        int type = reader.getType();
+        int sessionId = reader.getSessionId();
+
+        if (type == SessionJournal.GAME_START) {
+            Replayed replayed = new Replayed();
+            sessions.put(sessionId, replayed);
+            sessionCount++;
+            checkTotals(reader, replayed, "inicio");
+            return;
+        }
+
+        Replayed replayed = sessions.get(sessionId);
+        if (replayed == null) {
+            // El inicio de la partida se descartó o la partida ya se dio por diferente
+            skippedCount++;
+            return;
+        }
+        GameSession session = replayed.session;
+
+        switch (type) {
+            case SessionJournal.QUESTION_SHOWN:
+                if (session.getState() != GameSession.State.SHOWING_FEEDBACK) {
+                    mismatch(reader, "pregunta", "la sesión está en " + session.getState());
+                    return;
+                }
+                PreparedQuestion question = decodeQuestion(reader);
+                if (question == null) {
+                    return;
+                }
+                if (!reader.isReview() && !checkDifficulty(reader, ++replayed.generatedCount)) {
+                    return;
+                }
+                replayed.source.pending = question;
+                session.nextQuestion(reader.getNanos());
+                checkTotals(reader, replayed, "pregunta");
+                break;
+
+            case SessionJournal.ANSWER:
+                if (session.getState() != GameSession.State.AWAITING_ANSWER) {
+                    mismatch(reader, "respuesta", "la sesión está en " + session.getState());
+                    return;
+                }
+                if (session.updateClock(reader.getNanos())) {
+                    mismatch(reader, "respuesta", "el tiempo se agotó antes de responder");
+                    return;
+                }
+                session.answer(reader.getIndex(), reader.getNanos());
+                if (checkTotals(reader, replayed, "respuesta")) {
+                    checkReaction(reader, replayed, "respuesta");
+                }
+                break;
+
+            case SessionJournal.TIMEOUT:
+                if (session.getState() != GameSession.State.AWAITING_ANSWER) {
+                    mismatch(reader, "tiempo agotado", "la sesión está en " + session.getState());
+                    return;
+                }
+                if (!session.updateClock(reader.getNanos())) {
+                    mismatch(reader, "tiempo agotado", "aún quedaban "
+                            + session.getRemainingMillis(reader.getNanos()) + " ms");
+                    return;
+                }
+                if (checkTotals(reader, replayed, "tiempo agotado")) {
+                    checkReaction(reader, replayed, "tiempo agotado");
+                }
+                break;
+
+            case SessionJournal.LIFE_LOST:
+                checkTotals(reader, replayed, "vida perdida");
+                break;
+
+            case SessionJournal.GAME_OVER:
+                if (!session.isGameOver()) {
+                    mismatch(reader, "fin del juego", "la sesión está en " + session.getState());
+                    return;
+                }
+                if (checkTotals(reader, replayed, "fin del juego")) {
+                    sessions.remove(sessionId);
+                    completedCount++;
+                }
+                break;
+
+            default:
+                throw new IOException("Tipo de registro desconocido en el registro "
+                        + reader.getSequence() + ": " + type);
+        }
+    }
+
+    /**
+     * Reconstruye la pregunta grabada, o registra una diferencia si ya no coincide
+     * con las plantillas actuales.
+     */
+    private PreparedQuestion decodeQuestion(JournalReader reader) throws IOException {
+        QuestionTemplate template = reader.getTemplate();
+        int answer = reader.getAnswer();
+
+        MathQuestion math;
+        if (template.hasFixedOperands()) {
+            math = MathQuestion.of(template, reader.getOperandA(), reader.getOperandB(), reader.getOperandC());
+            if (math.getCorrectAnswer() != answer) {
+                mismatch(reader, "pregunta", math.getQuestionText() + " tenía respuesta " + answer
+                        + ", ahora da " + math.getCorrectAnswer());
+                return null;
+            }
+        } else {
+            math = new MathQuestion(EXPRESSION_PLACEHOLDER, answer, template);
+        }
+
+        int optionCount = reader.getOptionCount();
+        int correctIndex = reader.getIndex();
+        if (optionCount < 1 || optionCount > Long.BYTES || correctIndex >= optionCount) {
+            mismatch(reader, "pregunta", "opciones inválidas: " + optionCount + ", correcta " + correctIndex);
+            return null;
+        }
+        int[] options = new int[optionCount];
+        for (int i = 0; i < optionCount; i++) {
+            options[i] = reader.getOption(i);
+        }
+        return new PreparedQuestion(math, options, correctIndex, reader.getDifficultyLevel());
+    }
+
+    /**
+     * Comprueba que el nivel grabado sea el que la progresión de dificultad
+     * asigna a la n-ésima pregunta de la fuente. Las expresiones cuentan para la
+     * progresión pero no se comprueban: su dificultad real la da la profundidad
+     * del árbol, que la bitácora no guarda.
+     */
+    private boolean checkDifficulty(JournalReader reader, int questionNumber) throws IOException {
+        if (reader.getTemplate() == QuestionTemplate.EXPRESSION) {
+            return true;
+        }
+        int expected = QuestionGenerator.difficultyForQuestion(questionNumber);
+        if (reader.getDifficultyLevel() == expected) {
+            return true;
+        }
+        mismatch(reader, "pregunta", "la pregunta " + questionNumber + " debía ser de nivel " + expected
+                + ", se grabó de nivel " + reader.getDifficultyLevel());
+        return false;
+    }
+
+    private boolean checkTotals(JournalReader reader, Replayed replayed, String event) {
+        GameSession session = replayed.session;
+        if (session.getLives() == reader.getLives() && session.getScore() == reader.getScore()) {
+            return true;
+        }
+        mismatch(reader, event, "se esperaban " + reader.getLives() + " vidas y " + reader.getScore()
+                + " puntos, se obtuvieron " + session.getLives() + " vidas y " + session.getScore() + " puntos");
+        return false;
+    }
+
+    private void checkReaction(JournalReader reader, Replayed replayed, String event) {
+        long reaction = replayed.session.getLastReactionNanos();
+        if (reaction != reader.getReactionNanos()) {
+            mismatch(reader, event, "se esperaba un tiempo de reacción de " + reader.getReactionNanos()
+                    + " ns, se obtuvo " + reaction + " ns");
+        }
+    }
+
+    /**
+     * Registra una diferencia y deja de reproducir la partida: sus eventos
+     * siguientes ya no pueden compararse.
+     */
+    private void mismatch(JournalReader reader, String event, String detail) {
+        mismatchCount++;
+        if (mismatches.size() < MAX_REPORTED_MISMATCHES) {
+            mismatches.add("Partida " + reader.getSessionId() + ", registro " + reader.getSequence()
+                    + " (" + event + "): " + detail);
+        }
+        sessions.remove(reader.getSessionId());
+    }
+
+    /**
+     * Obtiene la descripción de las primeras diferencias encontradas.
+     *
+     * @return Como mucho {@value #MAX_REPORTED_MISMATCHES} descripciones
+     */
+    public List<String> getMismatches() {
+        return mismatches;
+    }
+
+    public long getEventCount() {
+        return eventCount;
+    }
+
+    public long getSessionCount() {
+        return sessionCount;
+    }
+
+    public long getCompletedCount() {
+        return completedCount;
+    }
+
+    public long getSkippedCount() {
+        return skippedCount;
+    }
+
+    public long getMismatchCount() {
+        return mismatchCount;
+    }
+}
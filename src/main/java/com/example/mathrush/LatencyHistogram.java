@@ -0,0 +1,83 @@
+package com.example.mathrush;
+
+import java.util.Arrays;
+
+/**
+ * Histograma de latencias en nanosegundos con el mismo esquema log-lineal de
+ * {@link ReactionTimeStats} (16 cubetas por potencia de dos, con un error
+ * relativo máximo de 1/16), pero sin límite práctico de rango.
+ *
+ * <p>No es seguro para hilos: cada hilo usa el suyo y al final se suman con
+ * {@link #add}, o quien lo comparta debe sincronizarse.</p>
+ */
+final class LatencyHistogram {
+
+    private static final int BUCKET_COUNT = ReactionTimeStats.bucketIndex(Long.MAX_VALUE, Long.MAX_VALUE) + 1;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long total;
+    private long max;
+
+    /**
+     * Registra una latencia.
+     *
+     * @param nanos La latencia en nanosegundos (las negativas cuentan como 0)
+     */
+    void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[ReactionTimeStats.bucketIndex(value, Long.MAX_VALUE)]++;
+        total++;
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Suma a este histograma los registros de otro.
+     *
+     * @param other El otro histograma
+     */
+    void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Calcula un percentil.
+     *
+     * @param percentile El percentil, entre 0 y 100
+     * @return El límite superior de la cubeta del percentil, o 0 si no hay registros
+     */
+    long percentile(double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, ReactionTimeStats.bucketUpperBound(i));
+            }
+        }
+        return max;
+    }
+
+    long getCount() {
+        return total;
+    }
+
+    long getMax() {
+        return max;
+    }
+
+    /**
+     * Borra todos los registros, para empezar una ventana nueva.
+     */
+    void clear() {
+        Arrays.fill(counts, 0);
+        total = 0;
+        max = 0;
+    }
+}
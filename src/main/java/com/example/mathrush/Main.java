@@ -6,6 +6,11 @@ import javafx.scene.Scene;
 import javafx.scene.image.Image;
 import javafx.stage.Stage;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import javax.management.JMException;
+
 /**
  * Clase principal que inicia la aplicación Math Rush.
  */
@@ -16,9 +21,25 @@ public class Main extends Application {
     private static final int WINDOW_WIDTH = 600;
     private static final int WINDOW_HEIGHT = 650;
     
+    // Propiedad del sistema: medir el tiempo hasta la primera pregunta y salir
+    private static final String STARTUP_PROBE_PROPERTY = "mathrush.startupProbe";
+    
+    // Propiedad del sistema: monitor del hilo de JavaFX (log | overlay)
+    private static final String FX_MONITOR_PROPERTY = "mathrush.fxMonitor";
+    
+    // Propiedades del sistema: publicar las estadísticas por JMX y por HTTP
+    private static final String JMX_PROPERTY = "mathrush.jmx";
+    private static final String METRICS_PORT_PROPERTY = "mathrush.metricsPort";
+    
     // Referencia al juego para poder limpiarlo al cerrar
     private QuizGame quizGame;
     
+    // Monitor del hilo de JavaFX, o null si no se pidió
+    private FxMonitor fxMonitor;
+    
+    // Servidor de estadísticas, o null si no se pidió
+    private MetricsServer metricsServer;
+    
     @Override
     public void start(Stage stage) {
         try {
@@ -35,11 +56,21 @@ public class Main extends Application {
             
             // Agregar manejador para limpieza de recursos al cerrar
             stage.setOnCloseRequest(event -> {
+                if (fxMonitor != null) {
+                    fxMonitor.close();
+                }
                 if (quizGame != null) {
                     quizGame.shutdown();
                 }
             });
             
+            if (Boolean.getBoolean(STARTUP_PROBE_PROPERTY)) {
+                installStartupProbe(scene);
+            }
+            
+            installFxMonitor(scene);
+            exportMetrics();
+            
             // Mostrar la aplicación
             stage.show();
         } catch (Exception e) {
@@ -50,6 +81,96 @@ public class Main extends Application {
         }
     }
 
+    /**
+     * Informa el tiempo transcurrido desde que arrancó el proceso hasta el primer
+     * pulso en que la primera pregunta ya está maquetada en pantalla, y cierra la
+     * aplicación. Se usa para entrenar el archivo de CDS y para medir el arranque
+     * en frío del perfil {@code kiosk}.
+     * 
+     * @param scene La escena del juego
+     */
+    private void installStartupProbe(Scene scene) {
+        scene.addPostLayoutPulseListener(new Runnable() {
+            @Override
+            public void run() {
+                scene.removePostLayoutPulseListener(this);
+                
+                Instant processStart = ProcessHandle.current().info().startInstant().orElse(null);
+                if (processStart != null) {
+                    long millis = Duration.between(processStart, Instant.now()).toMillis();
+                    System.out.println("Tiempo hasta la primera pregunta: " + millis + " ms");
+                }
+                
+                quizGame.shutdown();
+                Platform.exit();
+            }
+        });
+    }
+
+    /**
+     * Instala el monitor del hilo de JavaFX si se pidió con
+     * {@code -Dmathrush.fxMonitor=log} (sólo el registro) o
+     * {@code -Dmathrush.fxMonitor=overlay} (además, las mediciones sobre el juego).
+     * 
+     * @param scene La escena del juego
+     */
+    private void installFxMonitor(Scene scene) {
+        String mode = System.getProperty(FX_MONITOR_PROPERTY);
+        if (mode == null) {
+            return;
+        }
+        switch (mode) {
+            case "log":
+                fxMonitor = FxMonitor.install(scene, quizGame.getRoot(), false);
+                break;
+            case "overlay":
+                fxMonitor = FxMonitor.install(scene, quizGame.getRoot(), true);
+                break;
+            default:
+                System.err.println("Valor desconocido de " + FX_MONITOR_PROPERTY + ": " + mode
+                        + " (se esperaba log u overlay)");
+        }
+    }
+
+    /**
+     * Publica las estadísticas del juego como MBean si se pidió con
+     * {@code -Dmathrush.jmx=true} o {@code -Dmathrush.metricsPort}, y en este
+     * último caso también en formato Prometheus en {@code http://localhost:puerto/metrics}.
+     */
+    private void exportMetrics() {
+        String port = System.getProperty(METRICS_PORT_PROPERTY);
+        if (!Boolean.getBoolean(JMX_PROPERTY) && port == null) {
+            return;
+        }
+        
+        GameMetrics metrics = GameMetrics.global();
+        try {
+            metrics.registerMBean();
+        } catch (JMException e) {
+            System.err.println("No se pudieron registrar las estadísticas en JMX: " + e.getMessage());
+        }
+        
+        if (port != null) {
+            try {
+                metricsServer = new MetricsServer(Integer.parseInt(port), metrics);
+            } catch (NumberFormatException e) {
+                System.err.println("Puerto de estadísticas inválido: " + port);
+            } catch (IOException e) {
+                System.err.println("No se pudo iniciar el servidor de estadísticas: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Detiene el servidor de estadísticas, cuyo hilo impediría que termine la JVM.
+     */
+    @Override
+    public void stop() {
+        if (metricsServer != null) {
+            metricsServer.close();
+        }
+    }
+
     /**
      * Método principal que lanza la aplicación JavaFX.
      * 
@@ -0,0 +1,439 @@
+package com.example.mathrush;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Dominio de un jugador sobre cada hecho (por ejemplo {@code 7 × 8} o
+ * {@code 12 ÷ 4}) y planificador de repaso espaciado de los hechos fallados.
+ *
+ * <p>Cada hecho se empaqueta en un {@code int} (plantilla y tres operandos) y se
+ * guarda en una tabla de direccionamiento abierto que apunta a arreglos
+ * primitivos de contadores, así que la memoria crece con el número de hechos
+ * distintos y no con el número de respuestas. Los hechos pendientes de repaso
+ * están en un montículo binario indexado ordenado por el turno en que vencen:
+ * registrar una respuesta y consultar el siguiente repaso cuestan O(log n).</p>
+ *
+ * <p>El tiempo se mide en respuestas registradas, no en segundos: un hecho
+ * fallado vuelve {@value #RETRY_INTERVAL} respuestas después, y cada acierto en
+ * un repaso duplica el intervalo hasta que el hecho se da por dominado. No es
+ * segura para hilos: debe usarse desde el hilo de la sesión.</p>
+ */
+public class MasteryStore {
+
+    // Intervalos de repaso, en respuestas
+    private static final int RETRY_INTERVAL = 3;
+    // Aciertos seguidos en repaso para dar un hecho por dominado
+    private static final int MASTERED_LEVEL = 4;
+    // Preguntas normales como mínimo entre dos repasos
+    private static final int MIN_QUESTIONS_BETWEEN_REVIEWS = 2;
+
+    // Empaquetado de un hecho: 4 bits de plantilla y 8 bits por operando
+    private static final int OPERAND_BITS = 8;
+    private static final int OPERAND_MASK = (1 << OPERAND_BITS) - 1;
+    private static final int NO_FACT = -1;
+
+    // Formato del archivo
+    private static final int FILE_MAGIC = 0x4D524D53; // "MRMS"
+    private static final int FILE_VERSION = 1;
+    private static final int SNAPSHOT_BYTES_PER_FACT = 24;
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final QuestionTemplate[] TEMPLATES = QuestionTemplate.values();
+
+    // Tabla hash: posición -> índice denso + 1 (0 = vacía)
+    private int[] table = new int[INITIAL_CAPACITY * 2];
+
+    // Datos por hecho, indexados por índice denso
+    private int[] facts = new int[INITIAL_CAPACITY];
+    private int[] correctCounts = new int[INITIAL_CAPACITY];
+    private int[] incorrectCounts = new int[INITIAL_CAPACITY];
+    private int[] reviewLevels = new int[INITIAL_CAPACITY];
+    private long[] dueTurns = new long[INITIAL_CAPACITY];
+    private int[] heapPositions = new int[INITIAL_CAPACITY];
+    private int size;
+
+    // Montículo de índices densos ordenado por dueTurns
+    private int[] heap = new int[INITIAL_CAPACITY];
+    private int heapSize;
+
+    private long turn;
+    private int questionsSinceReview = MIN_QUESTIONS_BETWEEN_REVIEWS;
+    private final DistractorGenerator distractors;
+
+    /**
+     * Crea un almacén vacío.
+     */
+    public MasteryStore() {
+        this(new SplittableRandom());
+    }
+
+    /**
+     * Crea un almacén vacío cuyas opciones de repaso salen de la fuente indicada.
+     *
+     * @param random La fuente de números aleatorios, de uso exclusivo del almacén
+     */
+    public MasteryStore(SplittableRandom random) {
+        this.distractors = new DistractorGenerator(random);
+    }
+
+    /**
+     * Empaqueta el hecho de una pregunta.
+     *
+     * @param question La pregunta
+     * @return El hecho empaquetado, o -1 si la pregunta no tiene operandos fijos
+     *         o alguno no cabe en 8 bits
+     */
+    public static int packFact(MathQuestion question) {
+        QuestionTemplate template = question.getTemplate();
+        int a = question.getOperandA();
+        int b = question.getOperandB();
+        int c = question.getOperandC();
+        if (!template.hasFixedOperands() || a < 1 || b < 1 || (a | b | c) < 0
+                || (a | b | c) > OPERAND_MASK) {
+            return NO_FACT;
+        }
+        return template.ordinal() << (OPERAND_BITS * 3) | a << (OPERAND_BITS * 2) | b << OPERAND_BITS | c;
+    }
+
+    /**
+     * Reconstruye la pregunta de un hecho empaquetado.
+     *
+     * @param fact El hecho empaquetado con {@link #packFact}
+     * @return La pregunta
+     */
+    public static MathQuestion unpackFact(int fact) {
+        QuestionTemplate template = TEMPLATES[fact >>> (OPERAND_BITS * 3)];
+        return MathQuestion.of(template,
+                (fact >>> (OPERAND_BITS * 2)) & OPERAND_MASK,
+                (fact >>> OPERAND_BITS) & OPERAND_MASK,
+                fact & OPERAND_MASK);
+    }
+
+    /**
+     * Registra la respuesta del jugador a una pregunta y reprograma su hecho.
+     *
+     * @param question La pregunta respondida
+     * @param correct {@code true} si la respuesta fue correcta
+     */
+    public void record(MathQuestion question, boolean correct) {
+        turn++;
+        int fact = packFact(question);
+        if (fact == NO_FACT) {
+            return;
+        }
+
+        int index = indexOf(fact, true);
+        if (!correct) {
+            incorrectCounts[index]++;
+            reviewLevels[index] = 1;
+            schedule(index, turn + RETRY_INTERVAL);
+            return;
+        }
+
+        correctCounts[index]++;
+        if (reviewLevels[index] == 0) {
+            // Acierto en un hecho que no está en repaso
+            return;
+        }
+        reviewLevels[index]++;
+        if (reviewLevels[index] > MASTERED_LEVEL) {
+            reviewLevels[index] = 0;
+            heapRemove(index);
+        } else {
+            schedule(index, turn + ((long) RETRY_INTERVAL << (reviewLevels[index] - 1)));
+        }
+    }
+
+    /**
+     * Obtiene el siguiente hecho que toca repasar, si hay uno vencido y ya pasaron
+     * suficientes preguntas normales desde el último repaso. El hecho se aplaza
+     * {@value #RETRY_INTERVAL} respuestas, por si la pregunta queda sin responder;
+     * al registrar la respuesta se reprograma según el resultado.
+     *
+     * @return La pregunta de repaso con sus opciones, o {@code null} si ahora no
+     *         toca repasar
+     */
+    public PreparedQuestion pollDue() {
+        if (heapSize == 0 || dueTurns[heap[0]] > turn
+                || questionsSinceReview < MIN_QUESTIONS_BETWEEN_REVIEWS) {
+            questionsSinceReview++;
+            return null;
+        }
+
+        int index = heap[0];
+        schedule(index, turn + RETRY_INTERVAL);
+        questionsSinceReview = 0;
+
+        MathQuestion question = unpackFact(facts[index]);
+        int[] options = new int[GameSession.OPTIONS_PER_QUESTION];
+        int correctIndex = distractors.fill(question.getCorrectAnswer(), options);
+        return new PreparedQuestion(question, options, correctIndex, question.getTemplate().getDifficultyLevel());
+    }
+
+    /**
+     * Obtiene cuántos hechos distintos se conocen.
+     *
+     * @return El número de hechos
+     */
+    public int getFactCount() {
+        return size;
+    }
+
+    /**
+     * Obtiene cuántos hechos esperan repaso.
+     *
+     * @return El número de hechos programados
+     */
+    public int getScheduledCount() {
+        return heapSize;
+    }
+
+    /**
+     * Obtiene cuántas veces se acertó un hecho.
+     *
+     * @param question Una pregunta del hecho
+     * @return El número de aciertos
+     */
+    public int getCorrectCount(MathQuestion question) {
+        int index = indexOf(packFact(question), false);
+        return index < 0 ? 0 : correctCounts[index];
+    }
+
+    /**
+     * Obtiene cuántas veces se falló un hecho.
+     *
+     * @param question Una pregunta del hecho
+     * @return El número de fallos (incluidos los tiempos agotados)
+     */
+    public int getIncorrectCount(MathQuestion question) {
+        int index = indexOf(packFact(question), false);
+        return index < 0 ? 0 : incorrectCounts[index];
+    }
+
+    /**
+     * Guarda el almacén en un archivo, reemplazándolo de forma atómica.
+     *
+     * @param path La ruta del archivo
+     * @throws IOException si falla la escritura
+     */
+    public void save(Path path) throws IOException {
+        write(path, snapshot());
+    }
+
+    /**
+     * Copia el estado del almacén en el formato del archivo, sin tocar el disco,
+     * para poder escribirlo después desde otro hilo con {@link #write}.
+     *
+     * @return El contenido del archivo
+     */
+    public byte[] snapshot() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(20 + size * SNAPSHOT_BYTES_PER_FACT);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+            out.writeLong(turn);
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                out.writeInt(facts[i]);
+                out.writeInt(correctCounts[i]);
+                out.writeInt(incorrectCounts[i]);
+                out.writeInt(reviewLevels[i]);
+                out.writeLong(heapPositions[i] < 0 ? -1 : dueTurns[i]);
+            }
+        } catch (IOException e) {
+            // Un ByteArrayOutputStream no falla
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Escribe una copia obtenida con {@link #snapshot()}, reemplazando el archivo
+     * de forma atómica.
+     *
+     * @param path La ruta del archivo
+     * @param snapshot El contenido del archivo
+     * @throws IOException si falla la escritura
+     */
+    public static void write(Path path, byte[] snapshot) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.write(temporary, snapshot);
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Carga un almacén guardado con {@link #save}.
+     *
+     * @param path La ruta del archivo
+     * @return El almacén cargado, o uno vacío si el archivo no existe
+     * @throws IOException si el archivo no se puede leer o no es válido
+     */
+    public static MasteryStore load(Path path) throws IOException {
+        MasteryStore store = new MasteryStore();
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+                throw new IOException("Archivo de dominio inválido: " + path);
+            }
+            store.turn = in.readLong();
+            int count = in.readInt();
+            if (count < 0) {
+                throw new IOException("Archivo de dominio inválido: " + path);
+            }
+            for (int i = 0; i < count; i++) {
+                int fact = in.readInt();
+                if (fact < 0 || fact >>> (OPERAND_BITS * 3) >= TEMPLATES.length) {
+                    throw new IOException("Hecho inválido en el archivo de dominio: " + fact);
+                }
+                int index = store.indexOf(fact, true);
+                store.correctCounts[index] = in.readInt();
+                store.incorrectCounts[index] = in.readInt();
+                store.reviewLevels[index] = in.readInt();
+                long due = in.readLong();
+                if (due >= 0) {
+                    store.schedule(index, due);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return new MasteryStore();
+        }
+        return store;
+    }
+
+    private int indexOf(int fact, boolean insert) {
+        if (fact == NO_FACT) {
+            return -1;
+        }
+        int mask = table.length - 1;
+        for (int slot = mix(fact) & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0) {
+                return insert ? insert(slot, fact) : -1;
+            }
+            if (facts[entry - 1] == fact) {
+                return entry - 1;
+            }
+        }
+    }
+
+    private int insert(int slot, int fact) {
+        if (size == facts.length) {
+            grow();
+            return indexOf(fact, true);
+        }
+        int index = size++;
+        facts[index] = fact;
+        heapPositions[index] = -1;
+        table[slot] = index + 1;
+        return index;
+    }
+
+    private void grow() {
+        int capacity = facts.length * 2;
+        facts = Arrays.copyOf(facts, capacity);
+        correctCounts = Arrays.copyOf(correctCounts, capacity);
+        incorrectCounts = Arrays.copyOf(incorrectCounts, capacity);
+        reviewLevels = Arrays.copyOf(reviewLevels, capacity);
+        dueTurns = Arrays.copyOf(dueTurns, capacity);
+        heapPositions = Arrays.copyOf(heapPositions, capacity);
+        heap = Arrays.copyOf(heap, capacity);
+
+        // La tabla se mantiene como máximo a la mitad de su capacidad
+        table = new int[capacity * 2];
+        int mask = table.length - 1;
+        for (int index = 0; index < size; index++) {
+            int slot = mix(facts[index]) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = index + 1;
+        }
+    }
+
+    private static int mix(int fact) {
+        int h = fact * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private void schedule(int index, long due) {
+        dueTurns[index] = due;
+        int position = heapPositions[index];
+        if (position < 0) {
+            position = heapSize++;
+            heap[position] = index;
+            heapPositions[index] = position;
+            siftUp(position);
+        } else if (!siftUp(position)) {
+            siftDown(position);
+        }
+    }
+
+    private void heapRemove(int index) {
+        int position = heapPositions[index];
+        if (position < 0) {
+            return;
+        }
+        heapPositions[index] = -1;
+        int last = heap[--heapSize];
+        if (position == heapSize) {
+            return;
+        }
+        heap[position] = last;
+        heapPositions[last] = position;
+        if (!siftUp(position)) {
+            siftDown(position);
+        }
+    }
+
+    private boolean siftUp(int position) {
+        int index = heap[position];
+        long due = dueTurns[index];
+        int start = position;
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            int parentIndex = heap[parent];
+            if (dueTurns[parentIndex] <= due) {
+                break;
+            }
+            heap[position] = parentIndex;
+            heapPositions[parentIndex] = position;
+            position = parent;
+        }
+        heap[position] = index;
+        heapPositions[index] = position;
+        return position != start;
+    }
+
+    private void siftDown(int position) {
+        int index = heap[position];
+        long due = dueTurns[index];
+        int half = heapSize >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            int right = child + 1;
+            if (right < heapSize && dueTurns[heap[right]] < dueTurns[heap[child]]) {
+                child = right;
+            }
+            int childIndex = heap[child];
+            if (due <= dueTurns[childIndex]) {
+                break;
+            }
+            heap[position] = childIndex;
+            heapPositions[childIndex] = position;
+            position = child;
+        }
+        heap[position] = index;
+        heapPositions[index] = position;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.mathrush;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Servidor HTTP mínimo que publica {@link GameMetrics} en {@value #PATH} con el
+ * formato de texto de Prometheus. Atiende en su propio hilo, y cada consulta
+ * sólo suma los contadores, sin tocar las sesiones.
+ *
+ * <pre>
+ * curl http://localhost:9404/metrics
+ * </pre>
+ */
+public class MetricsServer implements AutoCloseable {
+
+    /** Ruta donde se publican las estadísticas. */
+    public static final String PATH = "/metrics";
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final HttpServer server;
+    private final GameMetrics metrics;
+
+    /**
+     * Crea el servidor en la interfaz local (loopback) y lo arranca.
+     *
+     * @param port El puerto, o 0 para uno libre
+     * @param metrics Las estadísticas a publicar
+     * @throws IOException si no se puede abrir el puerto
+     */
+    public MetricsServer(int port, GameMetrics metrics) throws IOException {
+        this(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), metrics);
+    }
+
+    /**
+     * Crea el servidor en la dirección indicada y lo arranca.
+     *
+     * @param address La dirección donde escuchar
+     * @param metrics Las estadísticas a publicar
+     * @throws IOException si no se puede abrir el puerto
+     */
+    public MetricsServer(InetSocketAddress address, GameMetrics metrics) throws IOException {
+        this.metrics = metrics;
+        this.server = HttpServer.create(address, 0);
+        server.createContext(PATH, this::handle);
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            if (!"GET".equals(method) && !"HEAD".equals(method)) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            StringBuilder text = new StringBuilder(1024);
+            metrics.writeText(text);
+            byte[] body = text.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            if ("HEAD".equals(method)) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    /**
+     * Detiene el servidor sin esperar a las consultas en curso.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
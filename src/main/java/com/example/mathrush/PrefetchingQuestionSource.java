@@ -0,0 +1,140 @@
+package com.example.mathrush;
+
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fuente que genera preguntas por adelantado en un hilo de fondo y las guarda
+ * en un búfer acotado, de modo que quien consume (el hilo de JavaFX) sólo tiene
+ * que sacar la siguiente pregunta ya preparada.
+ *
+ * <p>{@link #next()} nunca espera al executor, que puede estar ocupado con otro
+ * trabajo: si el búfer está vacío genera la pregunta en el hilo que llama. Para
+ * que las preguntas salgan en el orden de la fuente delegada, cada pregunta se
+ * genera y se encola (o se entrega) bajo un mismo cerrojo, así que como mucho
+ * se espera a que el productor termine la pregunta que tiene entre manos.</p>
+ *
+ * <p>{@link #next()} y {@link #reset()} deben llamarse siempre desde un mismo
+ * hilo consumidor.</p>
+ */
+public class PrefetchingQuestionSource implements QuestionSource {
+
+    /**
+     * Pregunta generada junto con el juego (época) al que pertenece.
+     */
+    private static final class Entry {
+        final int epoch;
+        final PreparedQuestion question;
+
+        Entry(int epoch, PreparedQuestion question) {
+            this.epoch = epoch;
+            this.question = question;
+        }
+    }
+
+    private final QuestionSource delegate;
+    private final Executor producer;
+    private final Queue<Entry> buffer;
+    private final int lookahead;
+    private final AtomicBoolean refillScheduled = new AtomicBoolean();
+    // Protege la fuente delegada, producedEpoch y el orden de llegada al búfer
+    private final Object generationLock = new Object();
+
+    // Sólo la modifica el consumidor; el productor la lee para detectar reinicios
+    private volatile int epoch;
+    // Época para la que se reinició la fuente delegada por última vez
+    private int producedEpoch;
+
+    /**
+     * Crea la fuente y empieza a llenar el búfer de inmediato.
+     *
+     * @param delegate La fuente que genera las preguntas
+     * @param producer El executor donde se generan las preguntas
+     * @param lookahead Cuántas preguntas mantener preparadas por adelantado
+     */
+    public PrefetchingQuestionSource(QuestionSource delegate, Executor producer, int lookahead) {
+        if (lookahead < 1) {
+            throw new IllegalArgumentException("lookahead debe ser positivo: " + lookahead);
+        }
+        this.delegate = delegate;
+        this.producer = producer;
+        this.lookahead = lookahead;
+        this.buffer = new ArrayBlockingQueue<>(lookahead);
+        scheduleRefill();
+    }
+
+    @Override
+    public PreparedQuestion next() {
+        int current = epoch;
+        PreparedQuestion question = poll(current);
+        if (question == null) {
+            synchronized (generationLock) {
+                // El productor pudo encolar mientras se esperaba el cerrojo
+                question = poll(current);
+                if (question == null) {
+                    question = generate(current);
+                }
+            }
+        }
+        // Se repone después de sacar la pregunta, para volver a tener lookahead preparadas
+        scheduleRefill();
+        return question;
+    }
+
+    /**
+     * Saca la siguiente pregunta del juego actual, descartando las de juegos anteriores.
+     *
+     * @return La pregunta, o {@code null} si el búfer no tiene ninguna del juego actual
+     */
+    private PreparedQuestion poll(int current) {
+        Entry entry;
+        while ((entry = buffer.poll()) != null) {
+            if (entry.epoch == current) {
+                return entry.question;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void reset() {
+        epoch++;
+        buffer.clear();
+        scheduleRefill();
+    }
+
+    private void scheduleRefill() {
+        if (refillScheduled.compareAndSet(false, true)) {
+            producer.execute(this::refill);
+        }
+    }
+
+    private void refill() {
+        refillScheduled.set(false);
+
+        int target = epoch;
+        while (epoch == target) {
+            synchronized (generationLock) {
+                // Se comprueba bajo el cerrojo: el consumidor pudo sacar o generar mientras tanto
+                if (buffer.size() >= lookahead || epoch != target) {
+                    return;
+                }
+                buffer.offer(new Entry(target, generate(target)));
+            }
+        }
+    }
+
+    /**
+     * Genera la siguiente pregunta de la fuente delegada para un juego,
+     * reiniciándola si el juego cambió. Debe llamarse con el cerrojo tomado.
+     */
+    private PreparedQuestion generate(int target) {
+        if (producedEpoch != target) {
+            delegate.reset();
+            producedEpoch = target;
+        }
+        return delegate.next();
+    }
+}
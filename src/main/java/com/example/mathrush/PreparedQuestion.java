@@ -0,0 +1,57 @@
+package com.example.mathrush;
+
+/**
+ * Pregunta lista para mostrarse: el enunciado, sus opciones de respuesta ya
+ * mezcladas y el nivel de dificultad con el que se generó.
+ */
+public class PreparedQuestion {
+    private final MathQuestion question;
+    private final int[] options;
+    private final int correctIndex;
+    private final int difficultyLevel;
+
+    /**
+     * Constructor para crear una pregunta preparada.
+     *
+     * @param question La pregunta
+     * @param options Las opciones en el orden en que deben mostrarse; el arreglo
+     *                pasa a ser de esta pregunta y no debe modificarse después
+     * @param correctIndex La posición de la respuesta correcta en {@code options}
+     * @param difficultyLevel El nivel de dificultad de la pregunta
+     */
+    public PreparedQuestion(MathQuestion question, int[] options, int correctIndex, int difficultyLevel) {
+        if (options[correctIndex] != question.getCorrectAnswer()) {
+            throw new IllegalArgumentException("La opción " + correctIndex + " no es la respuesta correcta");
+        }
+        this.question = question;
+        this.options = options;
+        this.correctIndex = correctIndex;
+        this.difficultyLevel = difficultyLevel;
+    }
+
+    public MathQuestion getQuestion() {
+        return question;
+    }
+
+    public int getOptionCount() {
+        return options.length;
+    }
+
+    /**
+     * Obtiene el valor de una opción.
+     *
+     * @param index La posición de la opción
+     * @return El valor de la opción
+     */
+    public int getOption(int index) {
+        return options[index];
+    }
+
+    public int getCorrectIndex() {
+        return correctIndex;
+    }
+
+    public int getDifficultyLevel() {
+        return difficultyLevel;
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.mathrush;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+
+/**
+ * Banco de preguntas de sólo lectura guardado en un archivo binario de registros
+ * de ancho fijo, que se lee directamente del archivo mapeado en memoria.
+ *
+ * <p>Formato (little-endian):</p>
+ * <pre>
+ * Cabecera ({@value #HEADER_SIZE} bytes)
+ *   int   magia "MRQB"
+ *   short versión ({@value #VERSION})
+ *   short tamaño de registro ({@value #RECORD_SIZE})
+ *   long  número total de preguntas
+ *   por nivel de dificultad: long primer registro, long número de registros
+ * Registros ({@value #RECORD_SIZE} bytes cada uno, agrupados por nivel)
+ *   byte  plantilla (ordinal de {@link QuestionTemplate})
+ *   byte  nivel de dificultad
+ *   short reservado
+ *   short operando a, short operando b, short operando c
+ *   short reservado
+ *   int   respuesta correcta
+ * </pre>
+ *
+ * <p>Abrir un banco sólo valida la cabecera y mapea el archivo en segmentos de
+ * hasta 1 GiB, así que un banco de varios gigabytes se abre al instante y no
+ * ocupa memoria del heap; el sistema operativo carga las páginas al leerlas.
+ * Gracias al índice por nivel, elegir una pregunta al azar de un nivel es O(1).
+ * Cada lectura comprueba la respuesta guardada contra la plantilla, así que un
+ * registro dañado se detecta al leerlo en lugar de mostrar una respuesta falsa.
+ * Una vez abierto, un banco puede leerse desde varios hilos a la vez.</p>
+ */
+public class QuestionBank {
+
+    // Formato del archivo
+    static final int MAGIC = 0x4251524D; // "MRQB" en little-endian
+    static final short VERSION = 1;
+    static final int RECORD_SIZE = 16;
+    static final int HEADER_SIZE = 64;
+    static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    // Posiciones dentro de la cabecera
+    static final int COUNT_OFFSET = 8;
+    static final int LEVEL_INDEX_OFFSET = 16;
+
+    // Posiciones dentro de un registro
+    static final int TEMPLATE_OFFSET = 0;
+    static final int DIFFICULTY_OFFSET = 1;
+    static final int OPERAND_A_OFFSET = 4;
+    static final int OPERAND_B_OFFSET = 6;
+    static final int OPERAND_C_OFFSET = 8;
+    static final int ANSWER_OFFSET = 12;
+
+    // Cada segmento mapeado contiene un número entero de registros
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+
+    private static final QuestionTemplate[] TEMPLATES = QuestionTemplate.values();
+
+    private final MappedByteBuffer[] segments;
+    private final long count;
+    private final long[] levelStart = new long[QuestionGenerator.LEVEL_COUNT];
+    private final long[] levelCount = new long[QuestionGenerator.LEVEL_COUNT];
+
+    private QuestionBank(MappedByteBuffer[] segments, long count) {
+        this.segments = segments;
+        this.count = count;
+    }
+
+    /**
+     * Abre un banco de preguntas.
+     *
+     * @param path La ruta del archivo
+     * @return El banco abierto
+     * @throws IOException si no se puede leer el archivo o no es un banco válido
+     */
+    public static QuestionBank open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("Banco de preguntas inválido (demasiado corto): " + path);
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(BYTE_ORDER);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    throw new IOException("Banco de preguntas inválido (demasiado corto): " + path);
+                }
+            }
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("No es un banco de preguntas: " + path);
+            }
+            if (header.getShort(4) != VERSION || header.getShort(6) != RECORD_SIZE) {
+                throw new IOException("Versión de banco de preguntas no soportada: " + path);
+            }
+            long count = header.getLong(COUNT_OFFSET);
+            if (count < 0 || count > (size - HEADER_SIZE) / RECORD_SIZE) {
+                throw new IOException("Banco de preguntas incompleto: " + path);
+            }
+
+            long length = HEADER_SIZE + count * RECORD_SIZE;
+            MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((length + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT)];
+            for (int i = 0; i < segments.length; i++) {
+                long start = (long) i << SEGMENT_SHIFT;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, length - start));
+                segments[i].order(BYTE_ORDER);
+            }
+
+            QuestionBank bank = new QuestionBank(segments, count);
+            long expectedStart = 0;
+            for (int level = 0; level < QuestionGenerator.LEVEL_COUNT; level++) {
+                long start = header.getLong(LEVEL_INDEX_OFFSET + level * 16);
+                long levelCount = header.getLong(LEVEL_INDEX_OFFSET + level * 16 + 8);
+                if (start != expectedStart || levelCount < 0 || start + levelCount > count) {
+                    throw new IOException("Índice de niveles inválido en el banco de preguntas: " + path);
+                }
+                bank.levelStart[level] = start;
+                bank.levelCount[level] = levelCount;
+                expectedStart = start + levelCount;
+            }
+            if (expectedStart != count) {
+                throw new IOException("Índice de niveles inválido en el banco de preguntas: " + path);
+            }
+            return bank;
+        }
+    }
+
+    /**
+     * Obtiene el número total de preguntas del banco.
+     *
+     * @return El número de preguntas
+     */
+    public long size() {
+        return count;
+    }
+
+    /**
+     * Obtiene cuántas preguntas del banco son de un nivel.
+     *
+     * @param difficultyLevel El nivel de dificultad
+     * @return El número de preguntas de ese nivel
+     */
+    public long size(int difficultyLevel) {
+        return levelCount[checkLevel(difficultyLevel)];
+    }
+
+    /**
+     * Lee una pregunta del banco.
+     *
+     * @param index La posición de la pregunta, entre 0 y {@link #size()} - 1
+     * @return La pregunta
+     * @throws IllegalStateException si el registro está dañado
+     */
+    public MathQuestion get(long index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Pregunta fuera del banco: " + index);
+        }
+        long position = HEADER_SIZE + index * RECORD_SIZE;
+        MappedByteBuffer segment = segments[(int) (position >>> SEGMENT_SHIFT)];
+        int offset = (int) (position & (SEGMENT_SIZE - 1));
+
+        int template = segment.get(offset + TEMPLATE_OFFSET);
+        if (template < 0 || template >= TEMPLATES.length) {
+            throw new IllegalStateException("Plantilla desconocida en la pregunta " + index + ": " + template);
+        }
+        int a = segment.getShort(offset + OPERAND_A_OFFSET);
+        int b = segment.getShort(offset + OPERAND_B_OFFSET);
+        int c = segment.getShort(offset + OPERAND_C_OFFSET);
+        int answer = segment.getInt(offset + ANSWER_OFFSET);
+
+        QuestionTemplate questionTemplate = TEMPLATES[template];
+        if (!questionTemplate.hasFixedOperands()) {
+            throw new IllegalStateException("Plantilla sin operandos fijos en la pregunta " + index + ": "
+                    + questionTemplate);
+        }
+        int expected;
+        try {
+            expected = questionTemplate.evaluate(a, b, c);
+        } catch (ArithmeticException e) {
+            throw new IllegalStateException("Operandos inválidos en la pregunta " + index, e);
+        }
+        if (answer != expected) {
+            throw new IllegalStateException("Respuesta dañada en la pregunta " + index + ": " + answer
+                    + " en lugar de " + expected);
+        }
+        return new MathQuestion(questionTemplate.render(a, b, c), answer, questionTemplate, a, b, c);
+    }
+
+    /**
+     * Elige una pregunta al azar de un nivel en tiempo constante.
+     *
+     * @param difficultyLevel El nivel de dificultad
+     * @param random El generador aleatorio
+     * @return La pregunta elegida
+     * @throws IllegalStateException si el banco no tiene preguntas de ese nivel
+     */
+    public MathQuestion pick(int difficultyLevel, SplittableRandom random) {
+        long levelSize = size(difficultyLevel);
+        if (levelSize == 0) {
+            throw new IllegalStateException("El banco no tiene preguntas de nivel " + difficultyLevel);
+        }
+        return get(levelStart[difficultyLevel] + random.nextLong(levelSize));
+    }
+
+    private static int checkLevel(int difficultyLevel) {
+        if (difficultyLevel < 0 || difficultyLevel >= QuestionGenerator.LEVEL_COUNT) {
+            throw new IllegalArgumentException("Nivel de dificultad inválido: " + difficultyLevel);
+        }
+        return difficultyLevel;
+    }
+}
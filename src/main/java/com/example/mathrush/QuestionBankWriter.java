@@ -0,0 +1,136 @@
+package com.example.mathrush;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Escribe un banco de preguntas en el formato binario de {@link QuestionBank}.
+ *
+ * <p>Los registros se escriben en orden a través de un búfer directo
+ * reutilizado, así que la memoria usada no depende del tamaño del banco. Las
+ * preguntas deben llegar agrupadas por nivel, en orden creciente de dificultad;
+ * la cabecera con el índice de niveles se completa al cerrar el escritor.</p>
+ */
+public class QuestionBankWriter implements QuestionSink {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(QuestionBank.BYTE_ORDER);
+    private final long[] levelCount = new long[QuestionGenerator.LEVEL_COUNT];
+    private int currentLevel;
+    private long written;
+
+    /**
+     * Crea (o reemplaza) el archivo del banco.
+     *
+     * @param path La ruta del archivo
+     * @throws IOException si no se puede abrir el archivo
+     */
+    public QuestionBankWriter(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        // La cabecera se reserva ahora y se escribe al cerrar
+        channel.position(QuestionBank.HEADER_SIZE);
+    }
+
+    /**
+     * Agrega una pregunta al banco.
+     *
+     * @param question La pregunta, con sus operandos
+     * @param difficulty Su nivel de dificultad; no puede ser menor que el de la pregunta anterior
+     * @throws IOException si falla la escritura
+     * @throws IllegalArgumentException si el nivel es inválido o la pregunta no cabe en el formato
+     * @throws IllegalStateException si las preguntas no llegan ordenadas por nivel
+     */
+    @Override
+    public void write(MathQuestion question, int difficulty) throws IOException {
+        if (difficulty < 0 || difficulty >= QuestionGenerator.LEVEL_COUNT) {
+            throw new IllegalArgumentException("Nivel de dificultad inválido: " + difficulty);
+        }
+        if (!question.getTemplate().hasFixedOperands()) {
+            throw new IllegalArgumentException("Las preguntas de plantilla " + question.getTemplate()
+                    + " no caben en un banco");
+        }
+        if (difficulty < currentLevel) {
+            throw new IllegalStateException("Las preguntas deben escribirse en orden de dificultad: "
+                    + difficulty + " después de " + currentLevel);
+        }
+
+        int position = buffer.position();
+        if (buffer.remaining() < QuestionBank.RECORD_SIZE) {
+            flush();
+            position = 0;
+        }
+
+        buffer.put(position + QuestionBank.TEMPLATE_OFFSET, (byte) question.getTemplate().ordinal());
+        buffer.put(position + QuestionBank.DIFFICULTY_OFFSET, (byte) difficulty);
+        buffer.putShort(position + 2, (short) 0);
+        buffer.putShort(position + QuestionBank.OPERAND_A_OFFSET, operand(question.getOperandA()));
+        buffer.putShort(position + QuestionBank.OPERAND_B_OFFSET, operand(question.getOperandB()));
+        buffer.putShort(position + QuestionBank.OPERAND_C_OFFSET, operand(question.getOperandC()));
+        buffer.putShort(position + 10, (short) 0);
+        buffer.putInt(position + QuestionBank.ANSWER_OFFSET, question.getCorrectAnswer());
+        buffer.position(position + QuestionBank.RECORD_SIZE);
+
+        currentLevel = difficulty;
+        levelCount[difficulty]++;
+        written++;
+    }
+
+    /**
+     * Obtiene cuántas preguntas se han escrito.
+     *
+     * @return El número de preguntas escritas
+     */
+    public long getWrittenCount() {
+        return written;
+    }
+
+    /**
+     * Vuelca los registros pendientes, escribe la cabecera y cierra el archivo.
+     *
+     * @throws IOException si falla la escritura
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+
+            ByteBuffer header = ByteBuffer.allocate(QuestionBank.HEADER_SIZE).order(QuestionBank.BYTE_ORDER);
+            header.putInt(0, QuestionBank.MAGIC);
+            header.putShort(4, QuestionBank.VERSION);
+            header.putShort(6, (short) QuestionBank.RECORD_SIZE);
+            header.putLong(QuestionBank.COUNT_OFFSET, written);
+            long start = 0;
+            for (int level = 0; level < QuestionGenerator.LEVEL_COUNT; level++) {
+                header.putLong(QuestionBank.LEVEL_INDEX_OFFSET + level * 16, start);
+                header.putLong(QuestionBank.LEVEL_INDEX_OFFSET + level * 16 + 8, levelCount[level]);
+                start += levelCount[level];
+            }
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static short operand(int value) {
+        if (value < Short.MIN_VALUE || value > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Operando fuera del rango del banco: " + value);
+        }
+        return (short) value;
+    }
+}
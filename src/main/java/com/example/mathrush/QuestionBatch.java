@@ -0,0 +1,126 @@
+package com.example.mathrush;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Generación masiva de preguntas (bancos de preguntas, hojas de ejercicios)
+ * repartida entre todos los núcleos con fork/join.
+ *
+ * <p>El lote se divide en bloques de {@value #CHUNK_SIZE} preguntas y cada bloque
+ * tiene su propio generador, sembrado a partir de la semilla del lote y del número
+ * de bloque. Así el resultado depende sólo de la semilla, no del número de hilos ni
+ * del orden en que se ejecuten los bloques.</p>
+ */
+public class QuestionBatch {
+
+    /** Preguntas por bloque; cada bloque es la unidad mínima de trabajo. */
+    public static final int CHUNK_SIZE = 4096;
+
+    private QuestionBatch() {
+    }
+
+    /**
+     * Genera un lote de preguntas en el pool común de fork/join.
+     *
+     * @param count El número de preguntas
+     * @param difficulty El nivel de dificultad de todas las preguntas
+     * @param seed La semilla del lote
+     * @return Las preguntas, siempre las mismas para la misma semilla
+     * @throws IllegalArgumentException si {@code count} es negativo o el nivel es inválido
+     */
+    public static MathQuestion[] generateBatch(int count, int difficulty, long seed) {
+        return generateBatch(count, difficulty, seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Genera un lote de preguntas en el pool indicado.
+     *
+     * @param count El número de preguntas
+     * @param difficulty El nivel de dificultad de todas las preguntas
+     * @param seed La semilla del lote
+     * @param pool El pool donde se reparte el trabajo
+     * @return Las preguntas, siempre las mismas para la misma semilla
+     * @throws IllegalArgumentException si {@code count} es negativo o el nivel es inválido
+     */
+    public static MathQuestion[] generateBatch(int count, int difficulty, long seed, ForkJoinPool pool) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count no puede ser negativo: " + count);
+        }
+        if (difficulty < 0 || difficulty >= QuestionGenerator.LEVEL_COUNT) {
+            throw new IllegalArgumentException("Nivel de dificultad inválido: " + difficulty);
+        }
+        MathQuestion[] questions = new MathQuestion[count];
+        int chunks = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        if (chunks > 0) {
+            pool.invoke(new GenerateTask(questions, difficulty, seed, 0, chunks));
+        }
+        return questions;
+    }
+
+    /**
+     * Genera un bloque del lote. Con la misma semilla, dificultad y número de
+     * bloque produce siempre las mismas preguntas que {@link #generateBatch}.
+     *
+     * @param seed La semilla del lote
+     * @param difficulty El nivel de dificultad
+     * @param chunkIndex El número de bloque dentro del lote
+     * @param out El arreglo de salida
+     * @param offset La posición de {@code out} donde se escribe la primera pregunta
+     * @param length Cuántas preguntas del bloque generar (como máximo {@link #CHUNK_SIZE})
+     */
+    static void generateChunk(long seed, int difficulty, long chunkIndex,
+                              MathQuestion[] out, int offset, int length) {
+        QuestionGenerator generator = new QuestionGenerator(new SplittableRandom(chunkSeed(seed, chunkIndex)));
+        for (int i = 0; i < length; i++) {
+            out[offset + i] = generator.generateAtLevel(difficulty);
+        }
+    }
+
+    /**
+     * Deriva la semilla de un bloque mezclando la semilla del lote con el número
+     * de bloque (función de mezcla de SplitMix64), para que bloques vecinos no
+     * produzcan secuencias relacionadas.
+     */
+    private static long chunkSeed(long seed, long chunkIndex) {
+        long z = seed + (chunkIndex + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Genera un rango de bloques, dividiéndolo a la mitad hasta llegar a un bloque.
+     */
+    private static final class GenerateTask extends RecursiveAction {
+        private final MathQuestion[] out;
+        private final int difficulty;
+        private final long seed;
+        private final int fromChunk;
+        private final int toChunk;
+
+        GenerateTask(MathQuestion[] out, int difficulty, long seed, int fromChunk, int toChunk) {
+            this.out = out;
+            this.difficulty = difficulty;
+            this.seed = seed;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (toChunk - fromChunk > 1) {
+                int middle = (fromChunk + toChunk) >>> 1;
+                invokeAll(new GenerateTask(out, difficulty, seed, fromChunk, middle),
+                          new GenerateTask(out, difficulty, seed, middle, toChunk));
+                return;
+            }
+
+            for (int chunk = fromChunk; chunk < toChunk; chunk++) {
+                int offset = chunk * CHUNK_SIZE;
+                generateChunk(seed, difficulty, chunk, out, offset, Math.min(CHUNK_SIZE, out.length - offset));
+            }
+        }
+    }
+}
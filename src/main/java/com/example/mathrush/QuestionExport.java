@@ -0,0 +1,173 @@
+package com.example.mathrush;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+/**
+ * Modo de línea de comandos que exporta preguntas generadas a un archivo CSV,
+ * JSON Lines o a un banco binario ({@link QuestionBank}) sin abrir ninguna ventana.
+ *
+ * <p>No extiende {@code Application}, así que el toolkit de JavaFX nunca se
+ * inicia. Las preguntas se generan bloque a bloque con
+ * {@link QuestionBatch#generateChunk} en un arreglo reutilizado y se escriben con
+ * {@link QuestionFileWriter} o {@link QuestionBankWriter}, de modo que la memoria usada es constante aunque se
+ * exporten cientos de millones de preguntas. Con la misma semilla y dificultad el
+ * archivo contiene las mismas preguntas que {@link QuestionBatch#generateBatch}.
+ * Con {@code --difficulty all} se exportan {@code --count} preguntas de cada
+ * nivel, empezando por el fácil.</p>
+ *
+ * <pre>
+ * java -cp target/classes com.example.mathrush.QuestionExport \
+ *      preguntas.csv --count 100000000 --difficulty 2 --seed 42
+ * </pre>
+ */
+public class QuestionExport {
+
+    private static final String USAGE =
+            "Uso: QuestionExport <archivo> [--format csv|jsonl|bank] [--count N] [--difficulty 0|1|2|all] [--seed S]";
+
+    // Valores por defecto
+    private static final long DEFAULT_COUNT = 1000;
+    private static final int DEFAULT_DIFFICULTY = QuestionGenerator.EASY_LEVEL;
+    
+    // Valor de --difficulty que exporta todos los niveles
+    private static final int ALL_LEVELS = -1;
+    private static final String BANK_FORMAT = "bank";
+
+    /**
+     * Punto de entrada del modo de exportación.
+     *
+     * @param args La ruta del archivo seguida de las opciones
+     */
+    public static void main(String[] args) {
+        Path output = null;
+        String format = null;
+        long count = DEFAULT_COUNT;
+        int difficulty = DEFAULT_DIFFICULTY;
+        long seed = System.nanoTime();
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--format":
+                        format = value(args, ++i).toLowerCase(Locale.ROOT);
+                        break;
+                    case "--count":
+                        count = Long.parseLong(value(args, ++i));
+                        break;
+                    case "--difficulty":
+                        String level = value(args, ++i);
+                        difficulty = level.equals("all") ? ALL_LEVELS : Integer.parseInt(level);
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(value(args, ++i));
+                        break;
+                    default:
+                        if (args[i].startsWith("--") || output != null) {
+                            throw new IllegalArgumentException("Argumento desconocido: " + args[i]);
+                        }
+                        output = Paths.get(args[i]);
+                }
+            }
+            if (output == null) {
+                throw new IllegalArgumentException("Falta el archivo de salida");
+            }
+            if (count < 0) {
+                throw new IllegalArgumentException("--count no puede ser negativo: " + count);
+            }
+            if (difficulty != ALL_LEVELS && (difficulty < 0 || difficulty >= QuestionGenerator.LEVEL_COUNT)) {
+                throw new IllegalArgumentException("Nivel de dificultad inválido: " + difficulty);
+            }
+            if (format == null) {
+                format = formatFor(output);
+            }
+            if (!format.equals(BANK_FORMAT) && !format.equals("csv") && !format.equals("jsonl")) {
+                throw new IllegalArgumentException("Formato desconocido: " + format);
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        try {
+            long start = System.nanoTime();
+            long written;
+            try (QuestionSink sink = openSink(output, format)) {
+                if (difficulty == ALL_LEVELS) {
+                    for (int level = 0; level < QuestionGenerator.LEVEL_COUNT; level++) {
+                        export(sink, count, level, seed);
+                    }
+                    written = count * QuestionGenerator.LEVEL_COUNT;
+                } else {
+                    export(sink, count, difficulty, seed);
+                    written = count;
+                }
+            }
+            long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+            System.out.println("Exportadas " + written + " preguntas a " + output + " en " + millis
+                    + " ms (" + (written * 1000 / millis) + " preguntas/s, semilla " + seed + ")");
+        } catch (IOException e) {
+            System.err.println("Error al exportar las preguntas: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Genera y escribe las preguntas en el archivo indicado.
+     *
+     * @param output El archivo de salida (se reemplaza si existe)
+     * @param format El formato de salida
+     * @param count El número de preguntas
+     * @param difficulty El nivel de dificultad de todas las preguntas
+     * @param seed La semilla del lote
+     * @throws IOException si falla la escritura
+     */
+    public static void export(Path output, QuestionFileWriter.Format format,
+                              long count, int difficulty, long seed) throws IOException {
+        try (QuestionFileWriter writer = new QuestionFileWriter(output, format)) {
+            export(writer, count, difficulty, seed);
+        }
+    }
+
+    private static void export(QuestionSink sink, long count, int difficulty, long seed) throws IOException {
+        MathQuestion[] chunk = new MathQuestion[QuestionBatch.CHUNK_SIZE];
+
+        long chunkIndex = 0;
+        for (long remaining = count; remaining > 0; remaining -= QuestionBatch.CHUNK_SIZE) {
+            int length = (int) Math.min(remaining, QuestionBatch.CHUNK_SIZE);
+            QuestionBatch.generateChunk(seed, difficulty, chunkIndex++, chunk, 0, length);
+            for (int i = 0; i < length; i++) {
+                sink.write(chunk[i], difficulty);
+            }
+        }
+    }
+
+    private static QuestionSink openSink(Path output, String format) throws IOException {
+        if (format.equals(BANK_FORMAT)) {
+            return new QuestionBankWriter(output);
+        }
+        return new QuestionFileWriter(output, QuestionFileWriter.Format.valueOf(format.toUpperCase(Locale.ROOT)));
+    }
+
+    private static String formatFor(Path output) {
+        String name = output.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".jsonl") || name.endsWith(".json")) {
+            return "jsonl";
+        }
+        if (name.endsWith(".mqb")) {
+            return BANK_FORMAT;
+        }
+        return "csv";
+    }
+
+    private static String value(String[] args, int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Falta el valor de " + args[index - 1]);
+        }
+        return args[index];
+    }
+}
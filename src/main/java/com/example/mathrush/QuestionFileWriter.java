@@ -0,0 +1,190 @@
+package com.example.mathrush;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Escribe preguntas en un archivo de texto (CSV o JSON Lines) a través de un
+ * {@link FileChannel} y un único búfer directo reutilizado.
+ *
+ * <p>Cada registro se codifica en UTF-8 directamente en el búfer, sin crear
+ * cadenas ni arreglos intermedios, y el búfer se vuelca al canal cuando se
+ * llena. La memoria usada no depende del número de preguntas escritas.</p>
+ */
+public class QuestionFileWriter implements QuestionSink {
+
+    /**
+     * Formatos de salida soportados.
+     */
+    public enum Format {
+        /** Columnas {@code text,answer,template,difficulty} con encabezado. */
+        CSV,
+        /** Un objeto JSON por línea. */
+        JSONL
+    }
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    // Espacio que se deja libre antes de codificar un registro
+    private static final int MAX_RECORD_BYTES = 4096;
+
+    private static final byte[] CSV_HEADER = ascii("text,answer,template,difficulty\n");
+    private static final byte[] JSON_TEXT = ascii("{\"text\":\"");
+    private static final byte[] JSON_ANSWER = ascii("\",\"answer\":");
+    private static final byte[] JSON_TEMPLATE = ascii(",\"template\":\"");
+    private static final byte[] JSON_DIFFICULTY = ascii("\",\"difficulty\":");
+    private static final byte[] JSON_END = ascii("}\n");
+
+    // Nombres de plantilla ya codificados, indexados por ordinal
+    private static final byte[][] TEMPLATE_NAMES = new byte[QuestionTemplate.values().length][];
+
+    static {
+        for (QuestionTemplate template : QuestionTemplate.values()) {
+            TEMPLATE_NAMES[template.ordinal()] = ascii(template.name());
+        }
+    }
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final Format format;
+    private long written;
+
+    /**
+     * Crea (o reemplaza) el archivo de salida.
+     *
+     * @param path La ruta del archivo
+     * @param format El formato de salida
+     * @throws IOException si no se puede abrir el archivo
+     */
+    public QuestionFileWriter(Path path, Format format) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        this.format = format;
+        if (format == Format.CSV) {
+            buffer.put(CSV_HEADER);
+        }
+    }
+
+    @Override
+    public void write(MathQuestion question, int difficulty) throws IOException {
+        String text = question.getQuestionText();
+        if (buffer.remaining() < MAX_RECORD_BYTES || text.length() * 6 > MAX_RECORD_BYTES - 64) {
+            flush();
+        }
+
+        if (format == Format.CSV) {
+            buffer.put((byte) '"');
+            putEscaped(text, '"', '"');
+            buffer.put((byte) '"').put((byte) ',');
+            putInt(question.getCorrectAnswer());
+            buffer.put((byte) ',');
+            buffer.put(TEMPLATE_NAMES[question.getTemplate().ordinal()]);
+            buffer.put((byte) ',');
+            putInt(difficulty);
+            buffer.put((byte) '\n');
+        } else {
+            buffer.put(JSON_TEXT);
+            putEscaped(text, '"', '\\');
+            buffer.put(JSON_ANSWER);
+            putInt(question.getCorrectAnswer());
+            buffer.put(JSON_TEMPLATE);
+            buffer.put(TEMPLATE_NAMES[question.getTemplate().ordinal()]);
+            buffer.put(JSON_DIFFICULTY);
+            putInt(difficulty);
+            buffer.put(JSON_END);
+        }
+        written++;
+    }
+
+    /**
+     * Obtiene cuántas preguntas se han escrito.
+     *
+     * @return El número de preguntas escritas
+     */
+    public long getWrittenCount() {
+        return written;
+    }
+
+    /**
+     * Vuelca al canal lo que haya en el búfer.
+     *
+     * @throws IOException si falla la escritura
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Codifica el texto en UTF-8, anteponiendo {@code escape} a cada aparición de
+     * {@code special} (y a la barra invertida en JSON).
+     */
+    private void putEscaped(String text, char special, char escape) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == special || (escape == '\\' && c == '\\')) {
+                buffer.put((byte) escape);
+            }
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length()) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    /**
+     * Escribe un entero en decimal sin crear cadenas.
+     */
+    private void putInt(int value) {
+        if (value == Integer.MIN_VALUE) {
+            buffer.put(ascii(Integer.toString(value)));
+            return;
+        }
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+
+        int digits = 1;
+        for (int v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        int end = buffer.position() + digits;
+        for (int pos = end - 1; pos >= end - digits; pos--) {
+            buffer.put(pos, (byte) ('0' + value % 10));
+            value /= 10;
+        }
+        buffer.position(end);
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,495 @@
+package com.example.mathrush;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Generador de preguntas aleatorias con dificultad progresiva.
+ *
+ * <p>Cada sesión de juego tiene su propio generador, de modo que la progresión de
+ * dificultad de un jugador no afecta a los demás. La clase no tiene estado estático
+ * mutable; una instancia no es segura para hilos y debe usarse desde un solo hilo
+ * a la vez. Cada generador tiene su propio {@link SplittableRandom}, por lo que
+ * varios generadores en hilos distintos no compiten entre sí, y con la misma
+ * semilla se obtiene siempre la misma secuencia de preguntas.</p>
+ */
+public class QuestionGenerator {
+    
+    // Constantes para la dificultad
+    public static final int QUESTIONS_PER_LEVEL = 5;
+    public static final int EASY_LEVEL = 0;
+    public static final int MEDIUM_LEVEL = 1;
+    public static final int HARD_LEVEL = 2;
+    public static final int LEVEL_COUNT = 3;
+    
+    // Rangos de números para las preguntas según el nivel
+    private static final int EASY_MAX_NUMBER = 10;
+    private static final int MEDIUM_MAX_NUMBER = 15;
+    private static final int HARD_MAX_NUMBER = 20;
+    
+    // Expresiones de profundidad variable: aparecen tras superar el nivel difícil
+    // y se hacen más profundas cada QUESTIONS_PER_LEVEL preguntas hasta MAX_EXPRESSION_DEPTH
+    public static final int MAX_EXPRESSION_DEPTH = 4;
+    private static final int EXPRESSION_START = QUESTIONS_PER_LEVEL * LEVEL_COUNT;
+    private static final int EXPRESSION_MIN_DEPTH = 2;
+    private static final int EXPRESSION_MAX_OPERAND = 10;
+    private static final int EXPRESSION_MAX_VALUE = 999;
+    private static final int HARD_TEMPLATE_COUNT = 3;
+    private static final Expression.Operator[] OPERATORS = Expression.Operator.values();
+    
+    // Operaciones matemáticas
+    private static final int OPERATION_ADD = 0;
+    private static final int OPERATION_SUBTRACT = 1;
+    private static final int OPERATION_MULTIPLY = 2;
+    private static final int OPERATION_DIVIDE = 3;
+    
+    // Fuente de números aleatorios de este generador
+    private final SplittableRandom random;
+    
+    // Contador para aumentar la dificultad gradualmente
+    private int questionCounter = 0;
+    
+    // Operandos de la expresión en construcción, de izquierda a derecha
+    private int[] expressionOperands = new int[1 << MAX_EXPRESSION_DEPTH];
+    private int expressionOperandCount;
+    
+    /**
+     * Crea un generador con una semilla arbitraria.
+     */
+    public QuestionGenerator() {
+        this(new SplittableRandom());
+    }
+    
+    /**
+     * Crea un generador reproducible: con la misma semilla produce la misma
+     * secuencia de preguntas.
+     * 
+     * @param seed La semilla
+     */
+    public QuestionGenerator(long seed) {
+        this(new SplittableRandom(seed));
+    }
+    
+    /**
+     * Crea un generador que toma sus números aleatorios de la fuente indicada.
+     * La fuente pasa a ser de uso exclusivo del generador.
+     * 
+     * @param random La fuente de números aleatorios
+     */
+    public QuestionGenerator(SplittableRandom random) {
+        this.random = random;
+    }
+
+    /**
+     * Genera una pregunta matemática aleatoria con dificultad progresiva.
+     * 
+     * @return Una nueva pregunta matemática
+     */
+    public MathQuestion generateRandom() {
+        GameEvents.QuestionGenerated event = new GameEvents.QuestionGenerated();
+        event.begin();
+        
+        MathQuestion question = nextRandomQuestion();
+        
+        if (event.shouldCommit()) {
+            event.template = question.getTemplate().name();
+            event.difficulty = getDifficultyLevel();
+            event.commit();
+        }
+        return question;
+    }
+    
+    private MathQuestion nextRandomQuestion() {
+        // Incrementar contador de preguntas
+        questionCounter++;
+        
+        // Pasado el nivel difícil, mezclar expresiones cada vez más profundas
+        if (questionCounter > EXPRESSION_START && random.nextInt(HARD_TEMPLATE_COUNT + 1) == 0) {
+            int depth = EXPRESSION_MIN_DEPTH + (questionCounter - EXPRESSION_START - 1) / QUESTIONS_PER_LEVEL;
+            return generateExpression(Math.min(depth, MAX_EXPRESSION_DEPTH));
+        }
+        
+        // Determinar nivel de dificultad según el contador
+        return generateAtLevel(getDifficultyLevel());
+    }
+    
+    /**
+     * Genera una pregunta aleatoria del nivel indicado sin avanzar la progresión
+     * de dificultad.
+     * 
+     * @param difficulty El nivel de dificultad (0: fácil, 1: medio, 2: difícil)
+     * @return Una nueva pregunta matemática
+     */
+    public MathQuestion generateAtLevel(int difficulty) {
+        return switch (difficulty) {
+            case EASY_LEVEL -> generateSimpleQuestion();
+            case MEDIUM_LEVEL -> generateMediumQuestion();
+            case HARD_LEVEL -> generateHardQuestion();
+            default -> generateSimpleQuestion();
+        };
+    }
+    
+    /**
+     * Genera una pregunta de la plantilla indicada, con el rango de números de
+     * su nivel, sin avanzar la progresión de dificultad.
+     * 
+     * @param template La plantilla de la pregunta
+     * @return Una nueva pregunta matemática
+     */
+    public MathQuestion generate(QuestionTemplate template) {
+        return switch (template) {
+            case ADDITION -> generateAdditionQuestion(EASY_MAX_NUMBER);
+            case SUBTRACTION -> generateSubtractionQuestion(EASY_MAX_NUMBER);
+            case MULTIPLICATION -> generateMultiplicationQuestion(EASY_MAX_NUMBER);
+            case DIVISION -> generateDivisionQuestion(EASY_MAX_NUMBER);
+            case COMBINED_ADD_SUBTRACT -> generateCombinedAddSubtractQuestion(MEDIUM_MAX_NUMBER);
+            case COMBINED_MULTIPLY_ADD -> generateCombinedMultiplyAddQuestion(MEDIUM_MAX_NUMBER);
+            case COMBINED_MULTIPLY_SUBTRACT -> generateCombinedMultiplySubtractQuestion(MEDIUM_MAX_NUMBER);
+            case PARENTHESIS_ADD_MULTIPLY -> generateParenthesisAddMultiplyQuestion(HARD_MAX_NUMBER);
+            case EXPONENT -> generateExponentQuestion(HARD_MAX_NUMBER);
+            case PARENTHESIS_MULTIPLY_ADD -> generateParenthesisMultiplyAddQuestion(HARD_MAX_NUMBER);
+            case EXPRESSION -> generateExpression(EXPRESSION_MIN_DEPTH);
+        };
+    }
+    
+    /**
+     * Genera una pregunta con una expresión aleatoria de la profundidad indicada,
+     * con cualquier combinación de operadores. El árbol se construye de abajo
+     * arriba y cada operador se elige entre los que valen para los valores de sus
+     * dos ramas, así que todas las divisiones son exactas y ningún resultado
+     * intermedio es negativo ni mayor que {@value #EXPRESSION_MAX_VALUE} sin
+     * tener que reintentar. Un árbol de profundidad {@code d} tiene hasta
+     * {@code 2^d} operandos.
+     * 
+     * @param depth La profundidad del árbol de la expresión, al menos 1
+     * @return Una nueva pregunta de plantilla {@link QuestionTemplate#EXPRESSION}
+     */
+    public MathQuestion generateExpression(int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Profundidad de expresión inválida: " + depth);
+        }
+        
+        expressionOperandCount = 0;
+        Expression[] node = new Expression[1];
+        int result = buildExpression(depth, node);
+        ExpressionShape shape = node[0].compile();
+        return new MathQuestion(shape.render(expressionOperands), result, QuestionTemplate.EXPRESSION);
+    }
+    
+    /**
+     * Construye un árbol aleatorio de exactamente la profundidad indicada: una
+     * rama tiene la profundidad completa y la otra una profundidad al azar. Deja
+     * el árbol en {@code node[0]}, añade sus operandos a {@link #expressionOperands}
+     * y devuelve su valor.
+     */
+    private int buildExpression(int depth, Expression[] node) {
+        if (depth == 0) {
+            int value = random.nextInt(1, EXPRESSION_MAX_OPERAND + 1);
+            if (expressionOperandCount == expressionOperands.length) {
+                expressionOperands = Arrays.copyOf(expressionOperands, expressionOperandCount * 2);
+            }
+            expressionOperands[expressionOperandCount++] = value;
+            node[0] = Expression.operand();
+            return value;
+        }
+        
+        int start = expressionOperandCount;
+        int deepValue = buildExpression(depth - 1, node);
+        Expression deep = node[0];
+        int middle = expressionOperandCount;
+        int otherValue = buildExpression(random.nextInt(depth), node);
+        Expression other = node[0];
+        
+        Expression left = deep;
+        Expression right = other;
+        int leftValue = deepValue;
+        int rightValue = otherValue;
+        int leftEnd = middle;
+        if (random.nextBoolean()) {
+            swapOperands(start, middle);
+            leftEnd = start + expressionOperandCount - middle;
+            left = other;
+            right = deep;
+            leftValue = otherValue;
+            rightValue = deepValue;
+        }
+        
+        // Se prueba desde un operador al azar; si ninguno vale, la resta con las ramas cambiadas siempre vale
+        int first = random.nextInt(OPERATORS.length);
+        for (int i = 0; i < OPERATORS.length; i++) {
+            Expression.Operator operator = OPERATORS[(first + i) % OPERATORS.length];
+            int value = applyChecked(operator, leftValue, rightValue);
+            if (value >= 0) {
+                node[0] = Expression.of(operator, left, right);
+                return value;
+            }
+        }
+        swapOperands(start, leftEnd);
+        node[0] = Expression.of(Expression.Operator.SUBTRACT, right, left);
+        return rightValue - leftValue;
+    }
+    
+    /**
+     * Intercambia los operandos de dos ramas contiguas: los que van de
+     * {@code start} a {@code middle} y los que siguen hasta el final.
+     */
+    private void swapOperands(int start, int middle) {
+        reverseOperands(start, middle);
+        reverseOperands(middle, expressionOperandCount);
+        reverseOperands(start, expressionOperandCount);
+    }
+    
+    private void reverseOperands(int from, int to) {
+        for (int i = from, j = to - 1; i < j; i++, j--) {
+            int value = expressionOperands[i];
+            expressionOperands[i] = expressionOperands[j];
+            expressionOperands[j] = value;
+        }
+    }
+    
+    /**
+     * Aplica un operador si el resultado sirve para una pregunta.
+     * 
+     * @return El resultado, o -1 si no es exacto o se sale de 0..{@value #EXPRESSION_MAX_VALUE}
+     */
+    private static int applyChecked(Expression.Operator operator, int left, int right) {
+        long value = switch (operator) {
+            case ADD -> left + right;
+            case SUBTRACT -> left - right;
+            case MULTIPLY -> (long) left * right;
+            case DIVIDE -> right != 0 && left % right == 0 ? left / right : -1;
+        };
+        return value <= EXPRESSION_MAX_VALUE ? (int) value : -1;
+    }
+    
+    /**
+     * Determina el nivel de dificultad actual basado en el contador de preguntas.
+     * 
+     * @return El nivel de dificultad (0: fácil, 1: medio, 2: difícil)
+     */
+    public int getDifficultyLevel() {
+        return difficultyForQuestion(questionCounter);
+    }
+    
+    /**
+     * Determina el nivel de dificultad que corresponde a una pregunta según su
+     * posición en la partida, para que otras fuentes de preguntas sigan la misma
+     * progresión que el generador.
+     * 
+     * @param questionNumber El número de la pregunta, empezando en 1
+     * @return El nivel de dificultad (0: fácil, 1: medio, 2: difícil)
+     */
+    public static int difficultyForQuestion(int questionNumber) {
+        if (questionNumber <= QUESTIONS_PER_LEVEL) {
+            return EASY_LEVEL;
+        } else if (questionNumber <= QUESTIONS_PER_LEVEL * 2) {
+            return MEDIUM_LEVEL;
+        } else {
+            return HARD_LEVEL;
+        }
+    }
+    
+    /**
+     * Resetea el contador para un nuevo juego.
+     */
+    public void reset() {
+        questionCounter = 0;
+    }
+    
+    /**
+     * Genera una pregunta matemática simple (nivel fácil).
+     * 
+     * @return Una pregunta matemática de nivel fácil
+     */
+    private MathQuestion generateSimpleQuestion() {
+        int operation = random.nextInt(4); // 0: suma, 1: resta, 2: multiplicación, 3: división
+        
+        return switch (operation) {
+            case OPERATION_ADD -> generateAdditionQuestion(EASY_MAX_NUMBER);
+            case OPERATION_SUBTRACT -> generateSubtractionQuestion(EASY_MAX_NUMBER);
+            case OPERATION_MULTIPLY -> generateMultiplicationQuestion(EASY_MAX_NUMBER);
+            case OPERATION_DIVIDE -> generateDivisionQuestion(EASY_MAX_NUMBER);
+            default -> generateAdditionQuestion(EASY_MAX_NUMBER);
+        };
+    }
+    
+    /**
+     * Genera una pregunta matemática de nivel medio.
+     * 
+     * @return Una pregunta matemática de nivel medio
+     */
+    private MathQuestion generateMediumQuestion() {
+        int type = random.nextInt(3);
+        
+        return switch (type) {
+            case 0 -> generateCombinedAddSubtractQuestion(MEDIUM_MAX_NUMBER);
+            case 1 -> generateCombinedMultiplyAddQuestion(MEDIUM_MAX_NUMBER);
+            case 2 -> generateCombinedMultiplySubtractQuestion(MEDIUM_MAX_NUMBER);
+            default -> generateCombinedAddSubtractQuestion(MEDIUM_MAX_NUMBER);
+        };
+    }
+    
+    /**
+     * Genera una pregunta matemática de nivel difícil.
+     * 
+     * @return Una pregunta matemática de nivel difícil
+     */
+    private MathQuestion generateHardQuestion() {
+        int type = random.nextInt(HARD_TEMPLATE_COUNT);
+        
+        return switch (type) {
+            case 0 -> generateParenthesisAddMultiplyQuestion(HARD_MAX_NUMBER);
+            case 1 -> generateExponentQuestion(HARD_MAX_NUMBER);
+            case 2 -> generateParenthesisMultiplyAddQuestion(HARD_MAX_NUMBER);
+            default -> generateParenthesisAddMultiplyQuestion(HARD_MAX_NUMBER);
+        };
+    }
+    
+    /**
+     * Genera una pregunta de suma.
+     * 
+     * @param maxNumber El número máximo para los operandos
+     * @return Una pregunta de suma
+     */
+    private MathQuestion generateAdditionQuestion(int maxNumber) {
+        int a = random.nextInt(1, maxNumber + 1);
+        int b = random.nextInt(1, maxNumber + 1);
+        
+        return MathQuestion.of(QuestionTemplate.ADDITION, a, b, 0);
+    }
+    
+    /**
+     * Genera una pregunta de resta.
+     * 
+     * @param maxNumber El número máximo para los operandos
+     * @return Una pregunta de resta
+     */
+    private MathQuestion generateSubtractionQuestion(int maxNumber) {
+        int a = random.nextInt(1, maxNumber + 1);
+        int b = random.nextInt(1, maxNumber + 1);
+        
+        // Asegurar resultado positivo
+        if (a < b) {
+            int temp = a;
+            a = b;
+            b = temp;
+        }
+        
+        return MathQuestion.of(QuestionTemplate.SUBTRACTION, a, b, 0);
+    }
+    
+    /**
+     * Genera una pregunta de multiplicación.
+     * 
+     * @param maxNumber El número máximo para los operandos
+     * @return Una pregunta de multiplicación
+     */
+    private MathQuestion generateMultiplicationQuestion(int maxNumber) {
+        int a = random.nextInt(1, Math.min(maxNumber, 10) + 1); // Limitar para que no sea muy difícil
+        int b = random.nextInt(1, Math.min(maxNumber, 10) + 1);
+        
+        return MathQuestion.of(QuestionTemplate.MULTIPLICATION, a, b, 0);
+    }
+    
+    /**
+     * Genera una pregunta de división.
+     * 
+     * @param maxNumber El número máximo para los operandos
+     * @return Una pregunta de división
+     */
+    private MathQuestion generateDivisionQuestion(int maxNumber) {
+        int divisor = random.nextInt(1, Math.min(maxNumber, 10) + 1);
+        int result = random.nextInt(1, Math.min(maxNumber, 10) + 1);
+        
+        // Calcular el dividendo para asegurar división exacta
+        int dividend = result * divisor;
+
+        return MathQuestion.of(QuestionTemplate.DIVISION, dividend, divisor, 0);
+    }
+    
+    /**
+     * Genera una pregunta combinada de suma y resta.
+     * 
+     * @param maxNumber El número máximo para los operandos
+     * @return Una pregunta combinada de suma y resta
+     */
+    private MathQuestion generateCombinedAddSubtractQuestion(int maxNumber) {
+        int a = random.nextInt(1, maxNumber + 1);
+        int b = random.nextInt(1, maxNumber + 1);
+        int c = random.nextInt(1, maxNumber + 1);
+        
+        return MathQuestion.of(QuestionTemplate.COMBINED_ADD_SUBTRACT, a, b, c);
+    }
+    
+    /**
+     * Genera una pregunta combinada de multiplicación y suma.
+     * 
+     * @param maxNumber El número máximo para los operandos
+     * @return Una pregunta combinada de multiplicación y suma
+     */
+    private MathQuestion generateCombinedMultiplyAddQuestion(int maxNumber) {
+        int a = random.nextInt(1, Math.min(maxNumber, 5) + 1);
+        int b = random.nextInt(1, Math.min(maxNumber, 5) + 1);
+        int c = random.nextInt(1, maxNumber + 1);
+        
+        return MathQuestion.of(QuestionTemplate.COMBINED_MULTIPLY_ADD, a, b, c);
+    }
+    
+    /**
+     * Genera una pregunta combinada de multiplicación y resta.
+     * 
+     * @param maxNumber El número máximo para los operandos
+     * @return Una pregunta combinada de multiplicación y resta
+     */
+    private MathQuestion generateCombinedMultiplySubtractQuestion(int maxNumber) {
+        int a = random.nextInt(1, Math.min(maxNumber, 5) + 1);
+        // b >= 2 para que el producto deje espacio a un sustraendo (1 × 1 no lo permite)
+        int b = random.nextInt(2, Math.min(maxNumber, 5) + 1);
+        int product = a * b;
+        // Asegurar que el resultado sea positivo
+        int c = random.nextInt(1, product);
+        
+        return MathQuestion.of(QuestionTemplate.COMBINED_MULTIPLY_SUBTRACT, a, b, c);
+    }
+    
+    /**
+     * Genera una pregunta con paréntesis: (a + b) × c
+     * 
+     * @param maxNumber El número máximo para los operandos
+     * @return Una pregunta con paréntesis
+     */
+    private MathQuestion generateParenthesisAddMultiplyQuestion(int maxNumber) {
+        int a = random.nextInt(1, Math.min(maxNumber, 10) + 1);
+        int b = random.nextInt(1, Math.min(maxNumber, 10) + 1);
+        int c = random.nextInt(1, Math.min(maxNumber, 5) + 1);
+        
+        return MathQuestion.of(QuestionTemplate.PARENTHESIS_ADD_MULTIPLY, a, b, c);
+    }
+    
+    /**
+     * Genera una pregunta con exponentes: a² o a³
+     * 
+     * @param maxNumber El número máximo para la base
+     * @return Una pregunta con exponentes
+     */
+    private MathQuestion generateExponentQuestion(int maxNumber) {
+        int base = random.nextInt(2, Math.min(maxNumber, 8) + 1);
+        int exp = random.nextInt(2, 4); // 2 o 3
+        
+        return MathQuestion.of(QuestionTemplate.EXPONENT, base, exp, 0);
+    }
+    
+    /**
+     * Genera una pregunta con paréntesis: a × (b + c)
+     * 
+     * @param maxNumber El número máximo para los operandos
+     * @return Una pregunta con paréntesis
+     */
+    private MathQuestion generateParenthesisMultiplyAddQuestion(int maxNumber) {
+        int a = random.nextInt(1, Math.min(maxNumber, 5) + 1);
+        int b = random.nextInt(1, Math.min(maxNumber, 10) + 1);
+        int c = random.nextInt(1, Math.min(maxNumber, 10) + 1);
+        
+        return MathQuestion.of(QuestionTemplate.PARENTHESIS_MULTIPLY_ADD, a, b, c);
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.mathrush;
+
+import java.io.IOException;
+
+/**
+ * Destino de una exportación de preguntas (ver {@link QuestionExport}).
+ */
+interface QuestionSink extends AutoCloseable {
+
+    /**
+     * Escribe una pregunta con su nivel de dificultad.
+     *
+     * @param question La pregunta
+     * @param difficulty El nivel de dificultad con el que se generó
+     * @throws IOException si falla la escritura
+     */
+    void write(MathQuestion question, int difficulty) throws IOException;
+
+    @Override
+    void close() throws IOException;
+}
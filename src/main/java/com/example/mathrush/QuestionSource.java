@@ -0,0 +1,20 @@
+package com.example.mathrush;
+
+/**
+ * Fuente de preguntas preparadas para una sesión de juego.
+ */
+public interface QuestionSource {
+
+    /**
+     * Obtiene la siguiente pregunta de la secuencia.
+     *
+     * @return La siguiente pregunta con sus opciones
+     */
+    PreparedQuestion next();
+
+    /**
+     * Reinicia la progresión de dificultad para un juego nuevo. Las preguntas
+     * que se obtengan después pertenecen al juego nuevo.
+     */
+    void reset();
+}
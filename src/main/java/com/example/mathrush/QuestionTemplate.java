@@ -0,0 +1,113 @@
+package com.example.mathrush;
+
+/**
+ * Plantillas de pregunta que sabe generar {@link QuestionGenerator}, junto con
+ * el nivel de dificultad al que pertenece cada una.
+ *
+ * <p>Cada plantilla usa hasta tres operandos {@code a}, {@code b} y {@code c}, y
+ * sabe escribir su texto y calcular su resultado a partir de ellos. Así una
+ * pregunta puede guardarse sólo con sus operandos (ver {@link QuestionBank}).
+ * La excepción es {@link #EXPRESSION}, cuya forma no cabe en tres operandos.</p>
+ */
+public enum QuestionTemplate {
+    ADDITION(QuestionGenerator.EASY_LEVEL),
+    SUBTRACTION(QuestionGenerator.EASY_LEVEL),
+    MULTIPLICATION(QuestionGenerator.EASY_LEVEL),
+    DIVISION(QuestionGenerator.EASY_LEVEL),
+    COMBINED_ADD_SUBTRACT(QuestionGenerator.MEDIUM_LEVEL),
+    COMBINED_MULTIPLY_ADD(QuestionGenerator.MEDIUM_LEVEL),
+    COMBINED_MULTIPLY_SUBTRACT(QuestionGenerator.MEDIUM_LEVEL),
+    PARENTHESIS_ADD_MULTIPLY(QuestionGenerator.HARD_LEVEL),
+    EXPONENT(QuestionGenerator.HARD_LEVEL),
+    PARENTHESIS_MULTIPLY_ADD(QuestionGenerator.HARD_LEVEL),
+    /** Expresión de forma y profundidad variables (ver {@link Expression}). */
+    EXPRESSION(QuestionGenerator.HARD_LEVEL);
+
+    private final int difficultyLevel;
+
+    QuestionTemplate(int difficultyLevel) {
+        this.difficultyLevel = difficultyLevel;
+    }
+
+    /**
+     * Obtiene el nivel de dificultad de la plantilla.
+     *
+     * @return El nivel de dificultad (0: fácil, 1: medio, 2: difícil)
+     */
+    public int getDifficultyLevel() {
+        return difficultyLevel;
+    }
+
+    /**
+     * Escribe el texto de una pregunta de esta plantilla.
+     *
+     * @param a El primer operando (el dividendo en {@link #DIVISION}, la base en {@link #EXPONENT})
+     * @param b El segundo operando (el divisor en {@link #DIVISION}, el exponente en {@link #EXPONENT})
+     * @param c El tercer operando, o 0 si la plantilla sólo usa dos
+     * @return El texto de la pregunta, terminado en {@code " = ?"}
+     * @throws IllegalStateException si la plantilla es {@link #EXPRESSION}
+     */
+    public String render(int a, int b, int c) {
+        String expression = switch (this) {
+            case ADDITION -> a + " + " + b;
+            case SUBTRACTION -> a + " - " + b;
+            case MULTIPLICATION -> a + " × " + b;
+            case DIVISION -> a + " ÷ " + b;
+            case COMBINED_ADD_SUBTRACT -> a + " + " + b + " - " + c;
+            case COMBINED_MULTIPLY_ADD -> a + " × " + b + " + " + c;
+            case COMBINED_MULTIPLY_SUBTRACT -> a + " × " + b + " - " + c;
+            case PARENTHESIS_ADD_MULTIPLY -> "(" + a + " + " + b + ") × " + c;
+            case EXPONENT -> a + (b == 2 ? "²" : b == 3 ? "³" : "^" + b);
+            case PARENTHESIS_MULTIPLY_ADD -> a + " × (" + b + " + " + c + ")";
+            case EXPRESSION -> throw notStorable();
+        };
+        return expression + " = ?";
+    }
+
+    /**
+     * Calcula el resultado de una pregunta de esta plantilla.
+     *
+     * @param a El primer operando
+     * @param b El segundo operando
+     * @param c El tercer operando, o 0 si la plantilla sólo usa dos
+     * @return El resultado
+     * @throws IllegalStateException si la plantilla es {@link #EXPRESSION}
+     */
+    public int evaluate(int a, int b, int c) {
+        return switch (this) {
+            case ADDITION -> a + b;
+            case SUBTRACTION -> a - b;
+            case MULTIPLICATION -> a * b;
+            case DIVISION -> a / b;
+            case COMBINED_ADD_SUBTRACT -> a + b - c;
+            case COMBINED_MULTIPLY_ADD -> a * b + c;
+            case COMBINED_MULTIPLY_SUBTRACT -> a * b - c;
+            case PARENTHESIS_ADD_MULTIPLY -> (a + b) * c;
+            case EXPONENT -> power(a, b);
+            case PARENTHESIS_MULTIPLY_ADD -> a * (b + c);
+            case EXPRESSION -> throw notStorable();
+        };
+    }
+
+    /**
+     * Indica si una pregunta de esta plantilla queda descrita por sus tres
+     * operandos.
+     *
+     * @return {@code false} sólo para {@link #EXPRESSION}
+     */
+    public boolean hasFixedOperands() {
+        return this != EXPRESSION;
+    }
+
+    private IllegalStateException notStorable() {
+        return new IllegalStateException("La plantilla " + this + " no se describe con tres operandos");
+    }
+
+    private static int power(int base, int exponent) {
+        int result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= base;
+        }
+        return result;
+    }
+}
@@ -1,66 +1,111 @@
 package com.example.mathrush;
 
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
+import javafx.animation.AnimationTimer;
 import javafx.application.Platform;
+import javafx.css.PseudoClass;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
-import javafx.scene.layout.Background;
-import javafx.scene.layout.BackgroundFill;
 import javafx.scene.layout.BorderPane;
-import javafx.scene.layout.CornerRadii;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.scene.text.TextAlignment;
-import javafx.util.Duration;
 
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 public class QuizGame {
     // Componentes de UI
-    private final BorderPane root;
+    // El árbol de nodos se construye una sola vez y se reutiliza entre partidas
+    private final StackPane root;
+    private final BorderPane gameLayer;
+    private final VBox gameOverLayer;
+    private final Label finalScoreLabel;
     private final Label questionLabel;
     private final Label feedbackLabel;
     private final Label timerLabel;
     private final Label livesLabel;
     private final Label scoreLabel;
     private final List<Button> optionButtons;
+    private final List<Label> leaderboardLabels;
     
-    // Variables del juego
-    private MathQuestion currentQuestion;
-    private Timeline timer;
-    private int timeRemaining;
-    private int lives;
-    private int score;
+    // Estado del juego (reglas sin dependencias de UI); null en una carrera,
+    // donde las reglas las aplica el servidor
+    private final GameSession session;
+    
+    // Cuenta regresiva única, reutilizada en todas las preguntas
+    private final AnimationTimer countdown;
+    private int displayedSeconds = -1;
+    
+    // Tiempos de reacción por plantilla y nivel
+    private final ReactionTimeStats reactionTimes = new ReactionTimeStats();
+    
+    // Dominio del jugador y repaso de los hechos fallados, guardado entre ejecuciones
+    private final MasteryStore mastery;
+    
+    // Puntuaciones guardadas (null si no se pudo abrir el registro)
+    private final HighScoreStore highScores;
+    
+    // Bitácora de partidas (null si está desactivada)
+    private final SessionJournal journal;
+    
+    // Dirección del servidor de carreras (null si se juega en solitario) y la
+    // conexión, que se establece en el hilo de la carrera (null hasta entonces)
+    private final String raceAddress;
+    private volatile RaceClient raceClient;
+    // Hilo propio para enviar las respuestas de la carrera, sin esperar detrás
+    // del trabajo del executor (preguntas, puntuaciones, bitácora)
+    private final ExecutorService raceSender;
+    private final Label raceLabel;
+    private int raceRound = -1;
+    private int raceSelectedOption = -1;
+    private long raceDeadlineNanos;
+    private RaceClient.Ranking raceRanking;
     
     // Executor para manejar tareas en segundo plano
-    private final ScheduledExecutorService executor;
+    private final ThreadPoolExecutor executor;
+    
+    // Temporizadores en la rueda compartida: tiempo agotado y paso a la siguiente pregunta
+    private TimingWheel.Timeout questionTimeout;
+    private TimingWheel.Timeout pendingTransition;
+    // Sincronización diferida de las puntuaciones (se programa desde el executor)
+    private volatile TimingWheel.Timeout highScoreSync;
+    // Cambia al terminar o reiniciar un juego, para descartar transiciones ya en camino
+    private int gameGeneration;
 
     // Constantes de colores
-    private static final Color PRIMARY_COLOR = Color.web("#1E88E5");
-    private static final Color SECONDARY_COLOR = Color.web("#1565C0");
-    private static final Color DARK_BLUE = Color.web("#1A2942");
     private static final Color TEXT_COLOR = Color.WHITE;
-    private static final Color ACCENT_COLOR = Color.web("#FF9800");
     private static final Color CORRECT_COLOR = Color.web("#2ECC71");
     private static final Color INCORRECT_COLOR = Color.web("#E74C3C");
-    private static final Color OPTION_BUTTON_COLOR = Color.web("#6658F5");
-    private static final Color OPTION_BUTTON_HOVER_COLOR = Color.web("#5245E3");
     
-    // Constantes de estilos CSS
-    private static final String PANEL_STYLE = "-fx-background-radius: 15; -fx-padding: 5 15;";
-    private static final String BUTTON_STYLE_FORMAT = "-fx-background-color: %s; -fx-background-radius: 30; -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.3), 8, 0, 0, 2);";
+    // Hoja de estilos del tema; los cambios de estado se hacen con pseudo-clases
+    private static final String STYLESHEET = "math-rush.css";
+    private static final PseudoClass CORRECT_PSEUDO_CLASS = PseudoClass.getPseudoClass("correct");
+    private static final PseudoClass INCORRECT_PSEUDO_CLASS = PseudoClass.getPseudoClass("incorrect");
+    private static final PseudoClass LOW_TIME_PSEUDO_CLASS = PseudoClass.getPseudoClass("low-time");
+    private static final PseudoClass BLINK_PSEUDO_CLASS = PseudoClass.getPseudoClass("blink");
+    private static final PseudoClass LATEST_PSEUDO_CLASS = PseudoClass.getPseudoClass("latest");
     
     // Constantes de dimensiones
     private static final int OPTION_BUTTON_WIDTH = 220;
@@ -73,49 +118,301 @@ public class QuizGame {
     private static final int FEEDBACK_FONT_SIZE = 20;
     private static final int STATS_FONT_SIZE = 22;
     
-    // Constantes de tiempo
-    private static final int INITIAL_TIME = 10;
-    private static final int DELAY_BETWEEN_QUESTIONS_MS = 1500;
-
+    // Fuentes compartidas por todos los nodos
+    private static final Font TITLE_FONT = Font.font("Arial", FontWeight.BOLD, TITLE_FONT_SIZE);
+    private static final Font QUESTION_FONT = Font.font("Arial", FontWeight.BOLD, QUESTION_FONT_SIZE);
+    private static final Font OPTION_FONT = Font.font("Arial", FontWeight.BOLD, OPTION_FONT_SIZE);
+    private static final Font FEEDBACK_FONT = Font.font("Arial", FontWeight.BOLD, FEEDBACK_FONT_SIZE);
+    private static final Font STATS_FONT = Font.font("Arial", FontWeight.BOLD, STATS_FONT_SIZE);
+    private static final Font CAPTION_FONT = Font.font("Arial", FontWeight.BOLD, 18);
+    private static final Font TIMER_FONT = Font.font("Arial", FontWeight.BOLD, 24);
+    private static final Font CREDITS_FONT = Font.font("Arial", FontWeight.BOLD, 16);
+    private static final Font GAME_OVER_FONT = Font.font("Arial", FontWeight.BOLD, 32);
+    private static final Font FINAL_SCORE_FONT = Font.font("Arial", FontWeight.BOLD, 24);
+    private static final Font LEADERBOARD_FONT = Font.font("Arial", FontWeight.BOLD, 16);
+    
+    // Tabla de clasificación de la pantalla de fin de juego
+    private static final int LEADERBOARD_ROWS = 5;
+    private static final DateTimeFormatter LEADERBOARD_DATE_FORMAT =
+            DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm").withZone(ZoneId.systemDefault());
+    
+    // Espera máxima al cerrar para que terminen las tareas en segundo plano ya encoladas
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 2000;
+    
+    // Preguntas preparadas por adelantado
+    private static final int QUESTION_LOOKAHEAD = 4;
+    
+    // Propiedad del sistema para reproducir una partida con una semilla fija
+    private static final String SEED_PROPERTY = "mathrush.seed";
+    // Propiedad del sistema: tomar las preguntas de un banco (ver QuestionBank)
+    private static final String BANK_PROPERTY = "mathrush.bank";
+    
+    // Propiedad del sistema: directorio de datos del jugador (por defecto ~/.mathrush)
+    private static final String DATA_DIR_PROPERTY = "mathrush.dataDir";
+    private static final String MASTERY_FILE = "mastery.bin";
+    
+    // Propiedad del sistema: durabilidad de la bitácora (none, batch, interval) u "off"
+    private static final String JOURNAL_PROPERTY = "mathrush.journal";
+    private static final String JOURNAL_DIRECTORY = "journal";
+    // Bitácoras que se conservan: las más antiguas se borran al iniciar
+    private static final int JOURNAL_RETENTION = 20;
+    private static final DateTimeFormatter JOURNAL_NAME_FORMAT =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneId.systemDefault());
+    
+    // Propiedades del sistema: servidor de carreras (host o host:puerto) y nombre del jugador
+    private static final String RACE_PROPERTY = "mathrush.race";
+    private static final String PLAYER_NAME_PROPERTY = "mathrush.playerName";
+    
     public QuizGame() {
         // Inicializar variables
-        root = new BorderPane();
+        root = new StackPane();
+        gameLayer = new BorderPane();
+        finalScoreLabel = new Label();
         questionLabel = new Label();
         feedbackLabel = new Label();
         timerLabel = new Label();
         livesLabel = new Label();
         scoreLabel = new Label();
-        optionButtons = new ArrayList<>(4);
-        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        raceLabel = new Label();
+        optionButtons = new ArrayList<>(GameSession.OPTIONS_PER_QUESTION);
+        leaderboardLabels = new ArrayList<>(LEADERBOARD_ROWS);
+        // Un solo hilo, como newSingleThreadExecutor, pero con la cola visible para GameMetrics
+        executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
             Thread t = new Thread(r, "QuizGame-Background");
             t.setDaemon(true);
             return t;
         });
+        GameMetrics.global().registerExecutor(executor);
+        raceAddress = System.getProperty(RACE_PROPERTY);
+        if (raceAddress != null) {
+            // En una carrera no hay sesión local: ni preguntas propias, ni dominio, ni bitácora
+            mastery = null;
+            highScores = null;
+            journal = null;
+            session = null;
+            raceSender = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "QuizGame-RaceSender");
+                t.setDaemon(true);
+                return t;
+            });
+        } else {
+            // Las preguntas se preparan en segundo plano para no generarlas en el hilo de JavaFX
+            mastery = loadMastery();
+            highScores = openHighScores();
+            journal = openJournal();
+            session = new GameSession(new PrefetchingQuestionSource(
+                    createQuestionSource(), executor, QUESTION_LOOKAHEAD), mastery, GameMetrics.global());
+            if (journal != null) {
+                session.attachJournal(journal);
+            }
+            raceSender = null;
+        }
+        
+        countdown = createCountdown();
         
         // Configurar la UI
         setupRootPane();
-        setupGameVariables();
         
         // Crear componentes principales
         VBox topContainer = createTopContainer();
         VBox centerContent = createCenterContent();
         
         // Configurar el layout principal
-        root.setTop(topContainer);
-        root.setCenter(centerContent);
+        gameLayer.setTop(topContainer);
+        gameLayer.setCenter(centerContent);
         
-        // Iniciar el juego
-        loadNewQuestion();
+        // La pantalla de fin de juego queda encima, oculta hasta que se necesite
+        gameOverLayer = createGameOverLayer();
+        root.getChildren().addAll(gameLayer, gameOverLayer);
+        
+        // Iniciar el juego (en una carrera, la primera pregunta la envía el servidor)
+        if (isRace()) {
+            showRaceLobby();
+            raceSender.execute(this::connectRace);
+        } else {
+            loadNewQuestion();
+        }
     }
     
-    private void setupRootPane() {
-        root.setPadding(new Insets(20));
-        root.setBackground(new Background(new BackgroundFill(PRIMARY_COLOR, CornerRadii.EMPTY, Insets.EMPTY)));
+    private static QuestionSource createQuestionSource() {
+        Long seed = Long.getLong(SEED_PROPERTY);
+        
+        String bankPath = System.getProperty(BANK_PROPERTY);
+        if (bankPath != null) {
+            try {
+                QuestionBank bank = QuestionBank.open(Paths.get(bankPath));
+                return seed != null ? new BankQuestionSource(bank, seed) : new BankQuestionSource(bank);
+            } catch (IOException e) {
+                System.err.println("Error al abrir el banco de preguntas: " + e.getMessage());
+            }
+        }
+        return seed != null ? new GeneratedQuestionSource(seed) : new GeneratedQuestionSource();
+    }
+    
+    /**
+     * Obtiene el directorio donde se guardan los datos del jugador.
+     * 
+     * @return El directorio indicado en {@code -Dmathrush.dataDir}, o {@code ~/.mathrush}
+     */
+    static Path getDataDirectory() {
+        String dataDir = System.getProperty(DATA_DIR_PROPERTY);
+        return dataDir != null ? Paths.get(dataDir) : Paths.get(System.getProperty("user.home"), ".mathrush");
+    }
+    
+    /**
+     * Carga el dominio del jugador. Con {@code -Dmathrush.seed} no se usa: los
+     * repasos dependerían del archivo local y la partida dejaría de ser
+     * reproducible.
+     * 
+     * @return El dominio del jugador, o {@code null} en una partida con semilla
+     */
+    private static MasteryStore loadMastery() {
+        if (Long.getLong(SEED_PROPERTY) != null) {
+            return null;
+        }
+        try {
+            return MasteryStore.load(getDataDirectory().resolve(MASTERY_FILE));
+        } catch (IOException e) {
+            System.err.println("Error al cargar el dominio del jugador: " + e.getMessage());
+            return new MasteryStore();
+        }
+    }
+    
+    private static HighScoreStore openHighScores() {
+        try {
+            return HighScoreStore.open(getDataDirectory());
+        } catch (IOException e) {
+            System.err.println("Error al abrir el registro de puntuaciones: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Abre una bitácora nueva para esta ejecución. El hilo de JavaFX nunca espera
+     * por ella: si se llena, los registros se descartan y se cuentan.
+     */
+    private SessionJournal openJournal() {
+        String policy = System.getProperty(JOURNAL_PROPERTY, "interval");
+        if (policy.equalsIgnoreCase("off")) {
+            return null;
+        }
+        try {
+            SessionJournal.Durability durability = SessionJournal.Durability.valueOf(policy.toUpperCase(Locale.ROOT));
+            Path directory = Files.createDirectories(getDataDirectory().resolve(JOURNAL_DIRECTORY));
+            Path file = directory.resolve("session-" + JOURNAL_NAME_FORMAT.format(Instant.now()) + ".journal");
+            SessionJournal journal = new SessionJournal(file, durability, SessionJournal.Overflow.DROP);
+            executor.execute(() -> pruneJournals(directory));
+            return journal;
+        } catch (IllegalArgumentException e) {
+            System.err.println("Política de bitácora desconocida: " + policy);
+            return null;
+        } catch (IOException e) {
+            System.err.println("Error al abrir la bitácora de partidas: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Borra las bitácoras más antiguas y deja las {@value #JOURNAL_RETENTION} más
+     * recientes (incluida la actual), para que un kiosco que arranca muchas veces
+     * al día no llene el disco. El nombre lleva la fecha, así que el orden
+     * alfabético es el cronológico.
+     */
+    private static void pruneJournals(Path directory) {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "session-*.journal")) {
+            stream.forEach(files::add);
+        } catch (IOException e) {
+            System.err.println("Error al revisar las bitácoras antiguas: " + e.getMessage());
+            return;
+        }
+        files.sort(null);
+        for (int i = 0; i < files.size() - JOURNAL_RETENTION; i++) {
+            try {
+                Files.deleteIfExists(files.get(i));
+            } catch (IOException e) {
+                System.err.println("Error al borrar la bitácora " + files.get(i) + ": " + e.getMessage());
+            }
+        }
+    }
+    
+    private void closeJournal() {
+        try {
+            journal.close();
+            if (journal.getDroppedCount() > 0 || journal.getBackpressureCount() > 0) {
+                System.err.println("Bitácora: " + journal.getWrittenCount() + " registros escritos, "
+                        + journal.getDroppedCount() + " descartados, "
+                        + journal.getBackpressureCount() + " esperas");
+            }
+        } catch (IOException e) {
+            System.err.println("Error al cerrar la bitácora de partidas: " + e.getMessage());
+        }
+    }
+    
+    private boolean isRace() {
+        return raceAddress != null;
+    }
+    
+    /**
+     * Se conecta al servidor de carreras indicado en {@code -Dmathrush.race}. Se
+     * ejecuta en el hilo de la carrera, porque la conexión puede tardar hasta
+     * varios segundos; las respuestas que se envíen después esperan en su cola.
+     */
+    private void connectRace() {
+        String host = raceAddress;
+        int port = RaceServer.DEFAULT_PORT;
+        int colon = raceAddress.lastIndexOf(':');
+        try {
+            if (colon > 0) {
+                host = raceAddress.substring(0, colon);
+                port = Integer.parseInt(raceAddress.substring(colon + 1));
+            }
+            String name = System.getProperty(PLAYER_NAME_PROPERTY, System.getProperty("user.name", "Jugador"));
+            RaceClient client = new RaceClient(host, port, name, new RaceListener());
+            raceClient = client;
+            if (raceSender.isShutdown()) {
+                // El juego se cerró mientras se conectaba
+                client.close();
+                return;
+            }
+            Platform.runLater(() -> raceLabel.setText("Conectado al servidor de carreras"));
+        } catch (NumberFormatException e) {
+            Platform.runLater(() -> showRaceConnectionError("Dirección de carrera inválida: " + raceAddress));
+        } catch (IOException e) {
+            Platform.runLater(() -> showRaceConnectionError(
+                    "No se pudo conectar con el servidor de carreras: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Guarda el dominio del jugador en segundo plano: en el hilo de JavaFX sólo
+     * se copia su estado, la escritura la hace el executor.
+     */
+    private void saveMastery() {
+        if (mastery == null) {
+            return;
+        }
+        byte[] snapshot = mastery.snapshot();
+        try {
+            executor.execute(() -> writeMastery(snapshot));
+        } catch (RejectedExecutionException e) {
+            // Se está cerrando: se escribe aquí mismo
+            writeMastery(snapshot);
+        }
+    }
+    
+    private static void writeMastery(byte[] snapshot) {
+        try {
+            Path dataDirectory = Files.createDirectories(getDataDirectory());
+            MasteryStore.write(dataDirectory.resolve(MASTERY_FILE), snapshot);
+        } catch (IOException e) {
+            System.err.println("Error al guardar el dominio del jugador: " + e.getMessage());
+        }
     }
     
-    private void setupGameVariables() {
-        lives = 3;
-        score = 0;
+    private void setupRootPane() {
+        root.getStylesheets().add(QuizGame.class.getResource(STYLESHEET).toExternalForm());
+        root.getStyleClass().add("game-root");
     }
     
     private VBox createTopContainer() {
@@ -135,9 +432,8 @@ public class QuizGame {
     
     private HBox createTitleBox() {
         Label titleLabel = new Label("RUSH MATH");
-        titleLabel.setFont(Font.font("Arial", FontWeight.BOLD, TITLE_FONT_SIZE));
-        titleLabel.setTextFill(TEXT_COLOR);
-        titleLabel.setStyle("-fx-effect: dropshadow(gaussian, rgba(0,0,0,0.5), 10, 0, 0, 3);");
+        titleLabel.setFont(TITLE_FONT);
+        titleLabel.getStyleClass().add("title-label");
         
         HBox titleBox = new HBox(titleLabel);
         titleBox.setAlignment(Pos.CENTER);
@@ -156,6 +452,10 @@ public class QuizGame {
         HBox scoreBox = createScoreBox();
         HBox timerBox = createTimerBox();
         
+        // En una carrera no hay vidas: cuenta la puntuación al final
+        livesBox.setVisible(!isRace());
+        livesBox.setManaged(!isRace());
+        
         statsBox.getChildren().addAll(livesBox, scoreBox, timerBox);
         
         return statsBox;
@@ -164,15 +464,15 @@ public class QuizGame {
     private HBox createLivesBox() {
         HBox livesBox = new HBox(5);
         livesBox.setAlignment(Pos.CENTER);
-        livesBox.setStyle("-fx-background-color: " + toRgbString(DARK_BLUE) + "; " + PANEL_STYLE);
+        livesBox.getStyleClass().add("stat-panel");
         
         Label heartIcon = new Label("❤");
-        heartIcon.setFont(Font.font("Arial", FontWeight.BOLD, STATS_FONT_SIZE));
-        heartIcon.setTextFill(TEXT_COLOR);
+        heartIcon.setFont(STATS_FONT);
+        heartIcon.getStyleClass().add("light-label");
         
-        livesLabel.setText(Integer.toString(lives));
-        livesLabel.setFont(Font.font("Arial", FontWeight.BOLD, STATS_FONT_SIZE));
-        livesLabel.setTextFill(TEXT_COLOR);
+        livesLabel.setText(Integer.toString(GameSession.INITIAL_LIVES));
+        livesLabel.setFont(STATS_FONT);
+        livesLabel.getStyleClass().add("light-label");
         
         livesBox.getChildren().addAll(heartIcon, livesLabel);
         
@@ -182,15 +482,15 @@ public class QuizGame {
     private HBox createScoreBox() {
         HBox scoreBox = new HBox(10);
         scoreBox.setAlignment(Pos.CENTER);
-        scoreBox.setStyle("-fx-background-color: " + toRgbString(DARK_BLUE) + "; " + PANEL_STYLE);
+        scoreBox.getStyleClass().add("stat-panel");
         
         Label scoreTextLabel = new Label("SCORE:");
-        scoreTextLabel.setFont(Font.font("Arial", FontWeight.BOLD, 18));
-        scoreTextLabel.setTextFill(ACCENT_COLOR);
+        scoreTextLabel.setFont(CAPTION_FONT);
+        scoreTextLabel.getStyleClass().add("accent-label");
         
-        scoreLabel.setText(Integer.toString(score));
-        scoreLabel.setFont(Font.font("Arial", FontWeight.BOLD, STATS_FONT_SIZE));
-        scoreLabel.setTextFill(TEXT_COLOR);
+        scoreLabel.setText("0");
+        scoreLabel.setFont(STATS_FONT);
+        scoreLabel.getStyleClass().add("light-label");
         
         scoreBox.getChildren().addAll(scoreTextLabel, scoreLabel);
         
@@ -200,15 +500,15 @@ public class QuizGame {
     private HBox createTimerBox() {
         HBox timerBox = new HBox();
         timerBox.setAlignment(Pos.CENTER);
-        timerBox.setStyle("-fx-background-color: " + toRgbString(DARK_BLUE) + "; " + PANEL_STYLE);
+        timerBox.getStyleClass().add("stat-panel");
         
         Label clockIcon = new Label("⏱");
-        clockIcon.setFont(Font.font("Arial", FontWeight.BOLD, STATS_FONT_SIZE));
-        clockIcon.setTextFill(ACCENT_COLOR);
+        clockIcon.setFont(STATS_FONT);
+        clockIcon.getStyleClass().add("accent-label");
         
-        timerLabel.setText(String.valueOf(INITIAL_TIME));
-        timerLabel.setFont(Font.font("Arial", FontWeight.BOLD, 24));
-        timerLabel.setTextFill(TEXT_COLOR);
+        timerLabel.setText(String.valueOf(GameSession.INITIAL_TIME));
+        timerLabel.setFont(TIMER_FONT);
+        timerLabel.getStyleClass().add("timer-label");
         timerLabel.setMinWidth(30);
         timerLabel.setAlignment(Pos.CENTER);
         
@@ -227,13 +527,16 @@ public class QuizGame {
         // Configurar etiqueta de retroalimentación
         setupFeedbackLabel();
         
+        // Puesto en la carrera (sólo visible en una carrera)
+        setupRaceLabel();
+        
         // Crear botón de créditos
         HBox creditsBox = createCreditsBox();
         
         // Combinar todos los elementos
         VBox centerContent = new VBox(20);
         centerContent.setAlignment(Pos.CENTER);
-        centerContent.getChildren().addAll(questionBox, optionsBox, feedbackLabel, creditsBox);
+        centerContent.getChildren().addAll(questionBox, optionsBox, feedbackLabel, raceLabel, creditsBox);
         
         return centerContent;
     }
@@ -242,7 +545,7 @@ public class QuizGame {
         VBox questionBox = new VBox(25);
         questionBox.setAlignment(Pos.CENTER);
         questionBox.setPadding(new Insets(20));
-        questionBox.setStyle("-fx-background-color: " + toRgbString(DARK_BLUE) + "; -fx-background-radius: 15;");
+        questionBox.getStyleClass().add("question-box");
         questionBox.setMaxWidth(500);
         
         setupQuestionLabel();
@@ -252,8 +555,8 @@ public class QuizGame {
     }
     
     private void setupQuestionLabel() {
-        questionLabel.setFont(Font.font("Arial", FontWeight.BOLD, QUESTION_FONT_SIZE));
-        questionLabel.setTextFill(TEXT_COLOR);
+        questionLabel.setFont(QUESTION_FONT);
+        questionLabel.getStyleClass().add("light-label");
         questionLabel.setWrapText(true);
         questionLabel.setTextAlignment(TextAlignment.CENTER);
     }
@@ -271,8 +574,8 @@ public class QuizGame {
         row2.setAlignment(Pos.CENTER);
         
         // Crear los 4 botones de opciones
-        for (int i = 0; i < 4; i++) {
-            Button btn = createOptionButton();
+        for (int i = 0; i < GameSession.OPTIONS_PER_QUESTION; i++) {
+            Button btn = createOptionButton(i);
             optionButtons.add(btn);
             
             // Añadir a la fila correspondiente
@@ -288,52 +591,41 @@ public class QuizGame {
         return optionsBox;
     }
     
-    private Button createOptionButton() {
+    private Button createOptionButton(int optionIndex) {
         Button btn = new Button();
         btn.setPrefWidth(OPTION_BUTTON_WIDTH);
         btn.setPrefHeight(OPTION_BUTTON_HEIGHT);
-        btn.setFont(Font.font("Arial", FontWeight.BOLD, OPTION_FONT_SIZE));
-        btn.setTextFill(TEXT_COLOR);
+        btn.setFont(OPTION_FONT);
         
-        // Estilo del botón
-        String buttonStyle = String.format(BUTTON_STYLE_FORMAT, toRgbString(OPTION_BUTTON_COLOR));
-        btn.setStyle(buttonStyle);
+        // El color normal, el de hover y los de respuesta vienen de la hoja de estilos
+        btn.getStyleClass().add("option-button");
         
-        // Efectos de hover
-        setupButtonHoverEffects(btn, OPTION_BUTTON_COLOR, OPTION_BUTTON_HOVER_COLOR);
-        
-        btn.setOnAction(e -> handleAnswer(btn));
+        btn.setOnAction(e -> handleAnswer(optionIndex));
         
         return btn;
     }
     
-    private void setupButtonHoverEffects(Button btn, Color normalColor, Color hoverColor) {
-        String normalStyle = String.format(BUTTON_STYLE_FORMAT, toRgbString(normalColor));
-        String hoverStyle = String.format(BUTTON_STYLE_FORMAT, toRgbString(hoverColor));
-        
-        btn.setOnMouseEntered(e -> btn.setStyle(hoverStyle));
-        btn.setOnMouseExited(e -> btn.setStyle(normalStyle));
-    }
-    
     private void setupFeedbackLabel() {
-        feedbackLabel.setFont(Font.font("Arial", FontWeight.BOLD, FEEDBACK_FONT_SIZE));
+        feedbackLabel.setFont(FEEDBACK_FONT);
         feedbackLabel.setTextAlignment(TextAlignment.CENTER);
         feedbackLabel.setWrapText(true);
         feedbackLabel.setPadding(new Insets(10, 0, 0, 0));
         feedbackLabel.setTextFill(TEXT_COLOR);
     }
     
+    private void setupRaceLabel() {
+        raceLabel.setFont(CAPTION_FONT);
+        raceLabel.getStyleClass().add("accent-label");
+        raceLabel.setVisible(isRace());
+        raceLabel.setManaged(isRace());
+    }
+    
     private HBox createCreditsBox() {
         Button creditsButton = new Button("Créditos");
         creditsButton.setPrefWidth(CREDITS_BUTTON_WIDTH);
         creditsButton.setPrefHeight(CREDITS_BUTTON_HEIGHT);
-        creditsButton.setFont(Font.font("Arial", FontWeight.BOLD, 16));
-        creditsButton.setTextFill(TEXT_COLOR);
-        
-        String buttonStyle = String.format(BUTTON_STYLE_FORMAT, toRgbString(ACCENT_COLOR));
-        creditsButton.setStyle(buttonStyle);
-        
-        setupButtonHoverEffects(creditsButton, ACCENT_COLOR, Color.web("#F57C00"));
+        creditsButton.setFont(CREDITS_FONT);
+        creditsButton.getStyleClass().add("accent-button");
         
         creditsButton.setOnAction(e -> showCredits());
         
@@ -356,230 +648,357 @@ public class QuizGame {
         alert.showAndWait();
     }
 
-    public BorderPane getRoot() {
+    public StackPane getRoot() {
         return root;
     }
     
-    private String toRgbString(Color color) {
-        return String.format("rgb(%d, %d, %d)", 
-                            (int) (color.getRed() * 255), 
-                            (int) (color.getGreen() * 255), 
-                            (int) (color.getBlue() * 255));
+    /**
+     * Obtiene los histogramas de tiempo de reacción de este juego.
+     * 
+     * @return Las estadísticas de tiempo de reacción
+     */
+    public ReactionTimeStats getReactionTimes() {
+        return reactionTimes;
     }
     
-    private void startTimer() {
-        // Detener el temporizador existente si está corriendo
-        if (timer != null) {
-            timer.stop();
-        }
-        
-        timeRemaining = INITIAL_TIME;
-        timerLabel.setText(String.valueOf(timeRemaining));
-        timerLabel.setTextFill(TEXT_COLOR);
-        timerLabel.setStyle("");
-        
-        timer = new Timeline(
-            new KeyFrame(Duration.seconds(1), e -> {
-                timeRemaining--;
-                timerLabel.setText(String.valueOf(timeRemaining));
-                
-                updateTimerAppearance();
-                
-                if (timeRemaining <= 0) {
-                    timer.stop();
-                    handleTimeOut();
+    private void recordReactionTime() {
+        reactionTimes.record(session.getCurrentQuestion().getTemplate(),
+                session.getDifficultyLevel(), session.getLastReactionNanos());
+    }
+    
+    private AnimationTimer createCountdown() {
+        return new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                // Se usa System.nanoTime() para medir con el mismo reloj que las respuestas
+                if (isRace()) {
+                    updateRaceCountdown(System.nanoTime());
+                } else {
+                    updateCountdown(System.nanoTime());
                 }
-            })
-        );
+            }
+        };
+    }
+    
+    private void startTimer() {
+        showTimeRemaining(GameSession.INITIAL_TIME);
+        countdown.start();
+    }
+    
+    private void updateCountdown(long nowNanos) {
+        if (checkTimeOut(nowNanos)) {
+            return;
+        }
         
-        timer.setCycleCount(INITIAL_TIME + 1);
-        timer.play();
+        // Sólo se toca la etiqueta cuando cambia el segundo mostrado
+        int seconds = session.getTimeRemaining(nowNanos);
+        if (seconds != displayedSeconds) {
+            showTimeRemaining(seconds);
+        }
     }
     
-    private void updateTimerAppearance() {
-        if (timeRemaining <= 3) {
-            timerLabel.setTextFill(Color.RED);
-            // Parpadeo del fondo
-            if (timeRemaining % 2 == 0) {
-                timerLabel.setStyle("-fx-text-fill: red;");
-            } else {
-                timerLabel.setStyle("-fx-text-fill: white;");
-            }
-        } else {
-            timerLabel.setTextFill(TEXT_COLOR);
+    private void showTimeRemaining(int seconds) {
+        displayedSeconds = seconds;
+        timerLabel.setText(String.valueOf(seconds));
+        updateTimerAppearance(seconds);
+    }
+    
+    private void updateTimerAppearance(int timeRemaining) {
+        boolean lowTime = timeRemaining <= 3;
+        timerLabel.pseudoClassStateChanged(LOW_TIME_PSEUDO_CLASS, lowTime);
+        // Parpadeo: los segundos impares se muestran en blanco
+        timerLabel.pseudoClassStateChanged(BLINK_PSEUDO_CLASS, lowTime && timeRemaining % 2 != 0);
+    }
+    
+    /**
+     * Resuelve la pregunta como tiempo agotado si ya venció. Lo comprueban tanto
+     * la cuenta regresiva como el temporizador de la rueda, que sigue funcionando
+     * aunque no haya pulsos de JavaFX (por ejemplo, con la ventana minimizada).
+     * 
+     * @return {@code true} si se agotó el tiempo
+     */
+    private boolean checkTimeOut(long nowNanos) {
+        if (!session.updateClock(nowNanos)) {
+            return false;
         }
+        countdown.stop();
+        showTimeRemaining(0);
+        handleTimeOut();
+        return true;
     }
     
     private void handleTimeOut() {
+        GameEvents.AnswerHandled event = new GameEvents.AnswerHandled();
+        event.begin();
+        
+        cancelQuestionTimeout();
+        recordReactionTime();
+        
         feedbackLabel.setText("⏰ ¡Se acabó el tiempo!");
         feedbackLabel.setTextFill(Color.RED);
-        decreaseLife();
-        
-        scheduleNextQuestion();
-    }
-    
-    private void decreaseLife() {
-        lives--;
-        livesLabel.setText(Integer.toString(lives));
+        optionButtons.forEach(button -> button.setDisable(true));
+        updateStats();
         
-        if (lives <= 0) {
+        if (session.shouldScheduleNextQuestion()) {
+            scheduleNextQuestion();
+        } else {
             endGame();
         }
+        commitAnswerEvent(event, GameSession.Outcome.TIMEOUT);
     }
     
-    private void increaseScore() {
-        score += 10;
-        scoreLabel.setText(Integer.toString(score));
+    private void updateStats() {
+        livesLabel.setText(Integer.toString(session.getLives()));
+        scoreLabel.setText(Integer.toString(session.getScore()));
     }
     
     private void endGame() {
-        // Detener el temporizador
-        if (timer != null) {
-            timer.stop();
+        // Detener el temporizador y descartar cualquier transición pendiente
+        countdown.stop();
+        cancelTimers();
+        saveMastery();
+        
+        // Mostrar la pantalla de fin de juego ya construida
+        finalScoreLabel.setText("Puntuación final: " + session.getScore());
+        showLeaderboard(-1);
+        gameLayer.setVisible(false);
+        gameOverLayer.setVisible(true);
+        
+        recordHighScore(session.getScore());
+    }
+    
+    /**
+     * Guarda la puntuación en segundo plano y actualiza la tabla de clasificación
+     * cuando termina. La sincronización a disco se agrupa con la de otras partidas.
+     */
+    private void recordHighScore(int score) {
+        if (highScores == null) {
+            return;
         }
+        long timestamp = System.currentTimeMillis();
+        executor.execute(() -> {
+            try {
+                int rank = highScores.append(timestamp, score);
+                Platform.runLater(() -> showLeaderboard(rank));
+                highScoreSync = TimingWheel.shared().schedule(() -> {
+                    try {
+                        executor.execute(this::syncHighScores);
+                    } catch (RejectedExecutionException e) {
+                        // Se está cerrando: close() sincroniza las puntuaciones
+                    }
+                }, HighScoreStore.SYNC_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (IOException e) {
+                System.err.println("Error al guardar la puntuación: " + e.getMessage());
+            }
+        });
+    }
+    
+    private void syncHighScores() {
+        try {
+            highScores.sync();
+        } catch (IOException e) {
+            System.err.println("Error al sincronizar las puntuaciones: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Muestra las mejores puntuaciones en las etiquetas ya creadas, en O(K).
+     * 
+     * @param latestRank La posición de la partida recién guardada, o -1
+     */
+    private void showLeaderboard(int latestRank) {
+        int count = highScores == null ? 0 : Math.min(highScores.getTopCount(), LEADERBOARD_ROWS);
+        for (int i = 0; i < LEADERBOARD_ROWS; i++) {
+            Label label = leaderboardLabels.get(i);
+            if (i < count) {
+                label.setText((i + 1) + ". " + highScores.getTopScore(i) + " pts   "
+                        + LEADERBOARD_DATE_FORMAT.format(Instant.ofEpochMilli(highScores.getTopTimestamp(i))));
+            }
+            label.setVisible(i < count);
+            label.setManaged(i < count);
+            label.pseudoClassStateChanged(LATEST_PSEUDO_CLASS, i == latestRank);
+        }
+    }
+    
+    private VBox createGameOverLayer() {
+        VBox gameOverLayer = new VBox(createGameOverBox());
+        gameOverLayer.setAlignment(Pos.CENTER);
+        gameOverLayer.setVisible(false);
         
-        // Crear la pantalla de fin de juego
-        VBox gameOverBox = createGameOverBox();
-        
-        // Actualizar la interfaz
-        VBox centerContent = new VBox();
-        centerContent.setAlignment(Pos.CENTER);
-        centerContent.getChildren().add(gameOverBox);
-        
-        root.setTop(null);
-        root.setCenter(centerContent);
+        return gameOverLayer;
     }
     
     private VBox createGameOverBox() {
         VBox gameOverBox = new VBox(25);
         gameOverBox.setAlignment(Pos.CENTER);
-        gameOverBox.setStyle("-fx-background-color: " + toRgbString(DARK_BLUE) + "; -fx-background-radius: 15; -fx-padding: 20;");
+        gameOverBox.getStyleClass().add("game-over-box");
         gameOverBox.setMaxWidth(400);
-        gameOverBox.setMaxHeight(300);
+        gameOverBox.setMaxHeight(450);
         
         // Título de fin de juego
         Label gameOverLabel = new Label("¡JUEGO TERMINADO!");
-        gameOverLabel.setFont(Font.font("Arial", FontWeight.BOLD, 32));
-        gameOverLabel.setTextFill(TEXT_COLOR);
+        gameOverLabel.setFont(GAME_OVER_FONT);
+        gameOverLabel.getStyleClass().add("light-label");
         
         // Puntuación final
-        Label finalScoreLabel = new Label("Puntuación final: " + score);
-        finalScoreLabel.setFont(Font.font("Arial", FontWeight.BOLD, 24));
-        finalScoreLabel.setTextFill(TEXT_COLOR);
+        finalScoreLabel.setFont(FINAL_SCORE_FONT);
+        finalScoreLabel.getStyleClass().add("light-label");
+        
+        // Mejores puntuaciones
+        VBox leaderboardBox = createLeaderboardBox();
         
         // Botón para reiniciar
         Button restartButton = createRestartButton();
         
-        gameOverBox.getChildren().addAll(gameOverLabel, finalScoreLabel, restartButton);
+        gameOverBox.getChildren().addAll(gameOverLabel, finalScoreLabel, leaderboardBox, restartButton);
         
         return gameOverBox;
     }
     
+    private VBox createLeaderboardBox() {
+        VBox leaderboardBox = new VBox(5);
+        leaderboardBox.setAlignment(Pos.CENTER);
+        
+        for (int i = 0; i < LEADERBOARD_ROWS; i++) {
+            Label label = new Label();
+            label.setFont(LEADERBOARD_FONT);
+            label.getStyleClass().add("leaderboard-label");
+            leaderboardLabels.add(label);
+        }
+        leaderboardBox.getChildren().addAll(leaderboardLabels);
+        
+        return leaderboardBox;
+    }
+    
     private Button createRestartButton() {
         Button restartButton = new Button("Jugar de nuevo");
         restartButton.setPrefWidth(250);
         restartButton.setPrefHeight(60);
-        restartButton.setFont(Font.font("Arial", FontWeight.BOLD, 18));
-        restartButton.setTextFill(TEXT_COLOR);
-        
-        String buttonStyle = String.format(BUTTON_STYLE_FORMAT, toRgbString(ACCENT_COLOR));
-        restartButton.setStyle(buttonStyle);
-        
-        setupButtonHoverEffects(restartButton, ACCENT_COLOR, Color.web("#F57C00"));
+        restartButton.setFont(CAPTION_FONT);
+        restartButton.getStyleClass().add("accent-button");
         
         restartButton.setOnAction(e -> resetGame());
         
+        // Una carrera no se puede repetir desde el cliente
+        restartButton.setVisible(!isRace());
+        restartButton.setManaged(!isRace());
+        
         return restartButton;
     }
     
     private void resetGame() {
-        // Reiniciar las variables del juego
-        lives = 3;
-        score = 0;
+        GameEvents.GameReset event = new GameEvents.GameReset();
+        event.begin();
+        int previousScore = session.getScore();
         
-        // Reiniciar el contador de preguntas para comenzar con nivel fácil
-        MathQuestion.resetCounter();
+        cancelTimers();
         
-        // Recrear la interfaz de usuario
-        VBox topContainer = createTopContainer();
-        VBox centerContent = createCenterContent();
+        // Reiniciar vidas, puntuación y dificultad
+        session.reset();
         
-        root.setTop(topContainer);
-        root.setCenter(centerContent);
+        // Reutilizar los nodos existentes: sólo se actualiza su contenido
+        updateStats();
+        gameOverLayer.setVisible(false);
+        gameLayer.setVisible(true);
         
         // Comenzar un nuevo juego
         loadNewQuestion();
+        
+        if (event.shouldCommit()) {
+            event.previousScore = previousScore;
+            event.commit();
+        }
     }
 
     private void loadNewQuestion() {
-        currentQuestion = MathQuestion.generateRandom();
-        questionLabel.setText(currentQuestion.getQuestionText());
+        // Una transición programada antes de terminar el juego ya no aplica
+        if (session.isGameOver()) {
+            return;
+        }
+        
+        MathQuestion question = session.nextQuestion(System.nanoTime());
+        questionLabel.setText(question.getQuestionText());
         feedbackLabel.setText("");
         
         generateAnswerOptions();
         
         // Iniciar el temporizador
         startTimer();
+        questionTimeout = TimingWheel.shared().schedule(
+                () -> Platform.runLater(() -> checkTimeOut(System.nanoTime())),
+                GameSession.TIME_LIMIT_NANOS, TimeUnit.NANOSECONDS);
     }
     
     private void generateAnswerOptions() {
-        // Generar las opciones de respuesta
-        List<Integer> options = new ArrayList<>();
-        options.add(currentQuestion.getCorrectAnswer());
-
-        while (options.size() < 4) {
-            int fakeAnswer = currentQuestion.getCorrectAnswer() + (int)(Math.random() * 10 - 5);
-            if (!options.contains(fakeAnswer)) {
-                options.add(fakeAnswer);
-            }
-        }
-
-        Collections.shuffle(options);
-
-        // Estilo de botón normal
-        String buttonStyle = String.format(BUTTON_STYLE_FORMAT, toRgbString(OPTION_BUTTON_COLOR));
-
-        for (int i = 0; i < 4; i++) {
+        // Las opciones ya vienen generadas y mezcladas por la sesión
+        for (int i = 0; i < GameSession.OPTIONS_PER_QUESTION; i++) {
             Button btn = optionButtons.get(i);
-            btn.setText(String.valueOf(options.get(i)));
-            btn.setStyle(buttonStyle);
+            btn.setText(String.valueOf(session.getOption(i)));
+            // Volver al estilo normal
+            btn.pseudoClassStateChanged(CORRECT_PSEUDO_CLASS, false);
+            btn.pseudoClassStateChanged(INCORRECT_PSEUDO_CLASS, false);
             btn.setDisable(false);
-            
-            setupButtonHoverEffects(btn, OPTION_BUTTON_COLOR, OPTION_BUTTON_HOVER_COLOR);
         }
     }
 
-    private void handleAnswer(Button btn) {
-        // Detener el temporizador
-        if (timer != null) {
-            timer.stop();
+    private void handleAnswer(int optionIndex) {
+        if (isRace()) {
+            handleRaceAnswer(optionIndex);
+            return;
         }
         
+        GameEvents.AnswerHandled event = new GameEvents.AnswerHandled();
+        event.begin();
+        
+        // Detener el temporizador
+        countdown.stop();
+        cancelQuestionTimeout();
+        
         // Deshabilitar botones para evitar múltiples respuestas
         optionButtons.forEach(button -> button.setDisable(true));
         
-        int selected = Integer.parseInt(btn.getText());
-        boolean isCorrect = selected == currentQuestion.getCorrectAnswer();
+        GameSession.Outcome outcome = session.answer(optionIndex, System.nanoTime());
+        if (outcome == GameSession.Outcome.TIMEOUT) {
+            // El clic llegó después del límite, antes del siguiente pulso o tick que lo detectara
+            showTimeRemaining(0);
+            handleTimeOut();
+            return;
+        }
+        recordReactionTime();
         
-        updateFeedbackForAnswer(isCorrect, btn);
+        updateFeedbackForAnswer(outcome, optionButtons.get(optionIndex));
+        updateStats();
         
         // Si aún quedan vidas, cargar la siguiente pregunta después de un breve retraso
-        if (lives > 0) {
+        if (session.shouldScheduleNextQuestion()) {
             scheduleNextQuestion();
+        } else {
+            endGame();
+        }
+        commitAnswerEvent(event, outcome);
+    }
+    
+    private void commitAnswerEvent(GameEvents.AnswerHandled event, GameSession.Outcome outcome) {
+        if (event.shouldCommit()) {
+            event.outcome = outcome.name();
+            event.reactionTime = session.getLastReactionNanos();
+            event.template = session.getCurrentQuestion().getTemplate().name();
+            event.difficulty = session.getDifficultyLevel();
+            event.lives = session.getLives();
+            event.score = session.getScore();
+            event.commit();
         }
     }
     
-    private void updateFeedbackForAnswer(boolean isCorrect, Button selectedButton) {
-        if (isCorrect) {
+    private void updateFeedbackForAnswer(GameSession.Outcome outcome, Button selectedButton) {
+        if (outcome == GameSession.Outcome.CORRECT) {
             feedbackLabel.setText("✅ ¡Correcto!");
             feedbackLabel.setTextFill(CORRECT_COLOR);
-            selectedButton.setStyle(String.format(BUTTON_STYLE_FORMAT, toRgbString(CORRECT_COLOR)));
-            increaseScore();
+            selectedButton.pseudoClassStateChanged(CORRECT_PSEUDO_CLASS, true);
         } else {
-            feedbackLabel.setText("❌ Incorrecto. La respuesta correcta era: " + currentQuestion.getCorrectAnswer());
+            feedbackLabel.setText("❌ Incorrecto. La respuesta correcta era: " + session.getCurrentQuestion().getCorrectAnswer());
             feedbackLabel.setTextFill(INCORRECT_COLOR);
-            selectedButton.setStyle(String.format(BUTTON_STYLE_FORMAT, toRgbString(INCORRECT_COLOR)));
-            decreaseLife();
+            selectedButton.pseudoClassStateChanged(INCORRECT_PSEUDO_CLASS, true);
             
             // Resaltar el botón correcto
             highlightCorrectAnswer();
@@ -587,27 +1006,259 @@ public class QuizGame {
     }
     
     private void highlightCorrectAnswer() {
-        for (Button button : optionButtons) {
-            if (Integer.parseInt(button.getText()) == currentQuestion.getCorrectAnswer()) {
-                button.setStyle(String.format(BUTTON_STYLE_FORMAT, toRgbString(CORRECT_COLOR)));
-                break;
+        Button button = optionButtons.get(session.getCorrectOptionIndex());
+        button.pseudoClassStateChanged(CORRECT_PSEUDO_CLASS, true);
+    }
+    
+    private void scheduleNextQuestion() {
+        int generation = gameGeneration;
+        pendingTransition = TimingWheel.shared().schedule(() -> Platform.runLater(() -> {
+            // Una transición de un juego ya terminado o reiniciado no aplica
+            if (generation == gameGeneration) {
+                pendingTransition = null;
+                loadNewQuestion();
             }
+        }), GameSession.DELAY_BETWEEN_QUESTIONS_MS, TimeUnit.MILLISECONDS);
+    }
+    
+    private void cancelQuestionTimeout() {
+        if (questionTimeout != null) {
+            questionTimeout.cancel();
+            questionTimeout = null;
         }
     }
     
-    private void scheduleNextQuestion() {
-        executor.schedule(() -> Platform.runLater(this::loadNewQuestion), 
-                        DELAY_BETWEEN_QUESTIONS_MS, TimeUnit.MILLISECONDS);
+    /**
+     * Cancela los temporizadores del juego actual. Una transición que ya salió de
+     * la rueda y espera en la cola de JavaFX se descarta al comparar la generación.
+     */
+    private void cancelTimers() {
+        cancelQuestionTimeout();
+        if (pendingTransition != null) {
+            pendingTransition.cancel();
+            pendingTransition = null;
+        }
+        gameGeneration++;
+    }
+    
+    /**
+     * Recibe los mensajes del servidor de carreras en su hilo lector y los pasa
+     * al hilo de JavaFX.
+     */
+    private final class RaceListener implements RaceClient.Listener {
+        @Override
+        public void onWelcome(int playerId, int questionCount) {
+        }
+        
+        @Override
+        public void onQuestion(int round, String text, int[] options, int timeLimitMillis) {
+            Platform.runLater(() -> showRaceQuestion(round, text, options, timeLimitMillis));
+        }
+        
+        @Override
+        public void onResult(int round, boolean correct, int correctIndex, int score) {
+            Platform.runLater(() -> showRaceResult(round, correct, correctIndex, score));
+        }
+        
+        @Override
+        public void onRanking(RaceClient.Ranking ranking) {
+            Platform.runLater(() -> showRaceRanking(ranking));
+        }
+        
+        @Override
+        public void onRaceOver() {
+            Platform.runLater(QuizGame.this::showRaceOver);
+        }
+        
+        @Override
+        public void onDisconnected(IOException error) {
+            if (error != null) {
+                Platform.runLater(QuizGame.this::showRaceDisconnected);
+            }
+        }
+    }
+    
+    private void showRaceLobby() {
+        questionLabel.setText("Esperando a que empiece la carrera...");
+        optionButtons.forEach(button -> button.setDisable(true));
+        timerLabel.setText(String.valueOf(GameSession.INITIAL_TIME));
+        raceLabel.setText("Conectando con el servidor de carreras...");
+    }
+    
+    private void showRaceConnectionError(String message) {
+        questionLabel.setText("No hay carrera");
+        raceLabel.setText("Sin conexión");
+        feedbackLabel.setText(message);
+        feedbackLabel.setTextFill(INCORRECT_COLOR);
+    }
+    
+    private void showRaceQuestion(int round, String text, int[] options, int timeLimitMillis) {
+        raceRound = round;
+        raceSelectedOption = -1;
+        raceDeadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeLimitMillis);
+        
+        questionLabel.setText(text);
+        feedbackLabel.setText("");
+        for (int i = 0; i < optionButtons.size(); i++) {
+            Button btn = optionButtons.get(i);
+            btn.setText(i < options.length ? String.valueOf(options[i]) : "");
+            btn.pseudoClassStateChanged(CORRECT_PSEUDO_CLASS, false);
+            btn.pseudoClassStateChanged(INCORRECT_PSEUDO_CLASS, false);
+            btn.setDisable(i >= options.length);
+        }
+        
+        showTimeRemaining((timeLimitMillis + 999) / 1000);
+        countdown.start();
+    }
+    
+    private void updateRaceCountdown(long nowNanos) {
+        long remaining = raceDeadlineNanos - nowNanos;
+        if (remaining <= 0) {
+            // El servidor decide el final de la ronda y envía el resultado
+            countdown.stop();
+            showTimeRemaining(0);
+            optionButtons.forEach(button -> button.setDisable(true));
+            return;
+        }
+        
+        int seconds = (int) ((TimeUnit.NANOSECONDS.toMillis(remaining) + 999) / 1000);
+        if (seconds != displayedSeconds) {
+            showTimeRemaining(seconds);
+        }
+    }
+    
+    private void handleRaceAnswer(int optionIndex) {
+        countdown.stop();
+        optionButtons.forEach(button -> button.setDisable(true));
+        raceSelectedOption = optionIndex;
+        
+        // El envío se hace fuera del hilo de JavaFX, en el hilo de la carrera
+        int round = raceRound;
+        raceSender.execute(() -> {
+            RaceClient client = raceClient;
+            if (client == null) {
+                // No se pudo conectar
+                return;
+            }
+            try {
+                client.answer(round, optionIndex);
+            } catch (IOException e) {
+                System.err.println("Error al enviar la respuesta: " + e.getMessage());
+            }
+        });
+    }
+    
+    private void showRaceResult(int round, boolean correct, int correctIndex, int score) {
+        if (round != raceRound) {
+            return;
+        }
+        countdown.stop();
+        optionButtons.forEach(button -> button.setDisable(true));
+        scoreLabel.setText(Integer.toString(score));
+        
+        Button correctButton = optionButtons.get(correctIndex);
+        if (correct) {
+            feedbackLabel.setText("✅ ¡Correcto!");
+            feedbackLabel.setTextFill(CORRECT_COLOR);
+        } else if (raceSelectedOption >= 0) {
+            feedbackLabel.setText("❌ Incorrecto. La respuesta correcta era: " + correctButton.getText());
+            feedbackLabel.setTextFill(INCORRECT_COLOR);
+            optionButtons.get(raceSelectedOption).pseudoClassStateChanged(INCORRECT_PSEUDO_CLASS, true);
+        } else {
+            feedbackLabel.setText("⏰ ¡Se acabó el tiempo!");
+            feedbackLabel.setTextFill(Color.RED);
+        }
+        correctButton.pseudoClassStateChanged(CORRECT_PSEUDO_CLASS, true);
+    }
+    
+    private void showRaceRanking(RaceClient.Ranking ranking) {
+        raceRanking = ranking;
+        raceLabel.setText("Puesto " + ranking.getRank() + " de " + ranking.getPlayerCount());
+    }
+    
+    /**
+     * Muestra la clasificación final de la carrera en la pantalla de fin de juego.
+     */
+    private void showRaceOver() {
+        countdown.stop();
+        int count = raceRanking == null ? 0 : Math.min(raceRanking.getTopCount(), LEADERBOARD_ROWS);
+        if (raceRanking != null) {
+            finalScoreLabel.setText("Puesto " + raceRanking.getRank() + " de " + raceRanking.getPlayerCount()
+                    + " con " + raceRanking.getScore() + " pts");
+        }
+        for (int i = 0; i < LEADERBOARD_ROWS; i++) {
+            Label label = leaderboardLabels.get(i);
+            if (i < count) {
+                label.setText((i + 1) + ". " + raceRanking.getTopName(i) + "   " + raceRanking.getTopScore(i) + " pts");
+            }
+            label.setVisible(i < count);
+            label.setManaged(i < count);
+            label.pseudoClassStateChanged(LATEST_PSEUDO_CLASS, i < count && i + 1 == raceRanking.getRank());
+        }
+        gameLayer.setVisible(false);
+        gameOverLayer.setVisible(true);
+    }
+    
+    private void showRaceDisconnected() {
+        countdown.stop();
+        optionButtons.forEach(button -> button.setDisable(true));
+        feedbackLabel.setText("Se perdió la conexión con el servidor de carreras");
+        feedbackLabel.setTextFill(INCORRECT_COLOR);
     }
     
     // Método para limpiar recursos al cerrar la aplicación
     public void shutdown() {
-        if (timer != null) {
-            timer.stop();
+        countdown.stop();
+        cancelTimers();
+        TimingWheel.Timeout sync = highScoreSync;
+        if (sync != null) {
+            sync.cancel();
+        }
+        
+        // Primero se vacía el executor: una puntuación ya encolada y el dominio
+        // del jugador se guardan antes de cerrar los archivos que usan
+        saveMastery();
+        awaitBackgroundTasks();
+        
+        if (isRace()) {
+            raceSender.shutdownNow();
+        }
+        RaceClient client = raceClient;
+        if (client != null) {
+            try {
+                client.close();
+            } catch (IOException e) {
+                System.err.println("Error al cerrar la conexión de la carrera: " + e.getMessage());
+            }
+        }
+        
+        if (journal != null) {
+            closeJournal();
         }
         
-        if (executor != null && !executor.isShutdown()) {
+        if (highScores != null) {
+            try {
+                highScores.close();
+            } catch (IOException e) {
+                System.err.println("Error al cerrar el registro de puntuaciones: " + e.getMessage());
+            }
+        }
+    }
+    
+    private void awaitBackgroundTasks() {
+        if (executor.isShutdown()) {
+            return;
+        }
+        GameMetrics.global().unregisterExecutor(executor);
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                System.err.println("Las tareas en segundo plano no terminaron a tiempo");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
             executor.shutdownNow();
+            Thread.currentThread().interrupt();
         }
     }
 }
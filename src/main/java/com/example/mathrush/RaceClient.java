@@ -0,0 +1,271 @@
+package com.example.mathrush;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Cliente de {@link RaceServer}. Usa un socket bloqueante y un hilo lector
+ * propio que decodifica los mensajes y se los entrega a un {@link Listener}.
+ *
+ * <p>Los métodos del {@link Listener} se llaman desde el hilo lector; quien
+ * toque nodos de JavaFX debe pasar a su hilo con {@code Platform.runLater}.
+ * {@link #answer} puede llamarse desde cualquier hilo.</p>
+ */
+public class RaceClient implements AutoCloseable {
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 5000;
+
+    /**
+     * Recibe los mensajes del servidor.
+     */
+    public interface Listener {
+
+        /**
+         * El servidor aceptó al jugador.
+         *
+         * @param playerId El identificador asignado
+         * @param questionCount Las preguntas de la carrera
+         */
+        void onWelcome(int playerId, int questionCount);
+
+        /**
+         * Llegó una pregunta nueva.
+         *
+         * @param round La ronda, que debe devolverse en {@link #answer}
+         * @param text El texto de la pregunta
+         * @param options Las opciones en el orden en que deben mostrarse
+         * @param timeLimitMillis El tiempo para responder
+         */
+        void onQuestion(int round, String text, int[] options, int timeLimitMillis);
+
+        /**
+         * Se resolvió la pregunta para este jugador (por su respuesta o porque acabó la ronda).
+         *
+         * @param round La ronda
+         * @param correct Si el jugador acertó
+         * @param correctIndex La posición de la respuesta correcta
+         * @param score La puntuación del jugador
+         */
+        void onResult(int round, boolean correct, int correctIndex, int score);
+
+        /**
+         * Cambió la clasificación.
+         *
+         * @param ranking La clasificación
+         */
+        void onRanking(Ranking ranking);
+
+        /**
+         * Terminó la carrera; la última clasificación recibida es la final.
+         */
+        void onRaceOver();
+
+        /**
+         * Se perdió la conexión con el servidor.
+         *
+         * @param error La causa, o {@code null} si se cerró el cliente
+         */
+        void onDisconnected(IOException error);
+    }
+
+    /**
+     * Clasificación recibida: el puesto propio y los primeros puestos.
+     */
+    public static final class Ranking {
+        private final int round;
+        private final int rank;
+        private final int playerCount;
+        private final int score;
+        private final String[] topNames;
+        private final int[] topScores;
+
+        Ranking(int round, int rank, int playerCount, int score, String[] topNames, int[] topScores) {
+            this.round = round;
+            this.rank = rank;
+            this.playerCount = playerCount;
+            this.score = score;
+            this.topNames = topNames;
+            this.topScores = topScores;
+        }
+
+        public int getRound() {
+            return round;
+        }
+
+        /**
+         * Obtiene el puesto del jugador.
+         *
+         * @return El puesto, empezando en 1
+         */
+        public int getRank() {
+            return rank;
+        }
+
+        public int getPlayerCount() {
+            return playerCount;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        public int getTopCount() {
+            return topNames.length;
+        }
+
+        public String getTopName(int index) {
+            return topNames[index];
+        }
+
+        public int getTopScore(int index) {
+            return topScores[index];
+        }
+    }
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private final Listener listener;
+    private final Thread reader;
+    private volatile boolean closed;
+
+    /**
+     * Se conecta a un servidor y se presenta con un nombre.
+     *
+     * @param host El servidor
+     * @param port El puerto
+     * @param name El nombre del jugador (se recorta si es muy largo)
+     * @param listener Quien recibe los mensajes
+     * @throws IOException si no se puede conectar
+     */
+    public RaceClient(String host, int port, String name, Listener listener) throws IOException {
+        this.listener = listener;
+        this.socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MILLIS);
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+            byte[] nameBytes = RaceProtocol.encodeName(name);
+            synchronized (out) {
+                out.writeShort(1 + nameBytes.length);
+                out.writeByte(RaceProtocol.HELLO);
+                out.write(nameBytes);
+                out.flush();
+            }
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+
+        this.reader = new Thread(this::readLoop, "RaceClient-Reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Envía la respuesta a una pregunta.
+     *
+     * @param round La ronda de la pregunta
+     * @param optionIndex La opción elegida
+     * @throws IOException si falla el envío
+     */
+    public void answer(int round, int optionIndex) throws IOException {
+        synchronized (out) {
+            out.writeShort(6);
+            out.writeByte(RaceProtocol.ANSWER);
+            out.writeInt(round);
+            out.writeByte(optionIndex);
+            out.flush();
+        }
+    }
+
+    private void readLoop() {
+        IOException error = null;
+        try {
+            while (!closed) {
+                readMessage();
+            }
+        } catch (IOException e) {
+            error = closed ? null : e;
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // El socket ya no se usa
+            }
+            listener.onDisconnected(error);
+        }
+    }
+
+    private void readMessage() throws IOException {
+        int length = in.readUnsignedShort();
+        if (length < 1 || length > RaceProtocol.MAX_FRAME_LENGTH) {
+            throw new IOException("Trama inválida: " + length + " bytes");
+        }
+        int type = in.readByte();
+        int payload = length - 1;
+
+        switch (type) {
+            case RaceProtocol.WELCOME:
+                listener.onWelcome(in.readInt(), in.readUnsignedShort());
+                break;
+            case RaceProtocol.QUESTION: {
+                int round = in.readInt();
+                int timeLimit = in.readInt();
+                int[] options = new int[in.readUnsignedByte()];
+                for (int i = 0; i < options.length; i++) {
+                    options[i] = in.readInt();
+                }
+                byte[] text = new byte[payload - 9 - options.length * 4];
+                in.readFully(text);
+                listener.onQuestion(round, new String(text, StandardCharsets.UTF_8), options, timeLimit);
+                break;
+            }
+            case RaceProtocol.RESULT:
+                listener.onResult(in.readInt(), in.readByte() != 0, in.readUnsignedByte(), in.readInt());
+                break;
+            case RaceProtocol.RANKING: {
+                int round = in.readInt();
+                int rank = in.readUnsignedShort();
+                int playerCount = in.readUnsignedShort();
+                int score = in.readInt();
+                int top = in.readUnsignedByte();
+                String[] names = new String[top];
+                int[] scores = new int[top];
+                for (int i = 0; i < top; i++) {
+                    scores[i] = in.readInt();
+                    byte[] name = new byte[in.readUnsignedByte()];
+                    in.readFully(name);
+                    names[i] = new String(name, StandardCharsets.UTF_8);
+                }
+                listener.onRanking(new Ranking(round, rank, playerCount, score, names, scores));
+                break;
+            }
+            case RaceProtocol.RACE_OVER:
+                listener.onRaceOver();
+                break;
+            default:
+                // Tipo desconocido de una versión más nueva del servidor: se salta
+                in.skipNBytes(payload);
+        }
+    }
+
+    /**
+     * Cierra la conexión.
+     *
+     * @throws IOException si falla el cierre
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        socket.close();
+    }
+}
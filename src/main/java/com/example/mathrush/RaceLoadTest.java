@@ -0,0 +1,237 @@
+package com.example.mathrush;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prueba de carga de {@link RaceServer} por localhost: levanta un servidor en un
+ * puerto libre (o usa uno ya iniciado con {@code --port}), conecta N clientes
+ * {@link RaceClient} que eligen una opción al azar tras un retraso aleatorio y mide la latencia
+ * entre enviar una respuesta y recibir su resultado y la clasificación nueva.
+ *
+ * <pre>
+ * java -cp target/classes com.example.mathrush.RaceLoadTest --clients 300 --questions 10
+ * </pre>
+ */
+public class RaceLoadTest {
+
+    private static final String USAGE = "Uso: RaceLoadTest [--clients N] [--questions N]"
+            + " [--max-delay-ms MS] [--host H --port P] [--seed S]";
+
+    // Tiempos de la carrera local: más cortos que los del juego para que la prueba dure poco
+    private static final long TIME_LIMIT_MILLIS = 2000;
+    private static final long DELAY_BETWEEN_QUESTIONS_MILLIS = 100;
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    /**
+     * Jugador automático: responde cada pregunta tras un retraso aleatorio y
+     * anota cuándo envió la respuesta.
+     */
+    private static final class Bot implements RaceClient.Listener {
+        private final ScheduledExecutorService scheduler;
+        private final SplittableRandom random;
+        private final long maxDelayMillis;
+        private final CountDownLatch done;
+        private final LatencyHistogram resultLatency;
+        private final LatencyHistogram rankingLatency;
+        private RaceClient client;
+        private volatile long sentNanos;
+        private volatile int sentRound = -1;
+        private volatile boolean awaitingRanking;
+
+        Bot(ScheduledExecutorService scheduler, long seed, long maxDelayMillis, CountDownLatch done,
+            LatencyHistogram resultLatency, LatencyHistogram rankingLatency) {
+            this.scheduler = scheduler;
+            this.random = new SplittableRandom(seed);
+            this.maxDelayMillis = maxDelayMillis;
+            this.done = done;
+            this.resultLatency = resultLatency;
+            this.rankingLatency = rankingLatency;
+        }
+
+        @Override
+        public void onWelcome(int playerId, int questionCount) {
+        }
+
+        @Override
+        public synchronized void onQuestion(int round, String text, int[] options, int timeLimitMillis) {
+            long delay = random.nextLong(maxDelayMillis + 1);
+            int option = random.nextInt(options.length);
+            scheduler.schedule(() -> send(round, option), delay, TimeUnit.MILLISECONDS);
+        }
+
+        private void send(int round, int option) {
+            try {
+                sentRound = round;
+                sentNanos = System.nanoTime();
+                client.answer(round, option);
+            } catch (IOException e) {
+                System.err.println("Error al enviar la respuesta: " + e.getMessage());
+            }
+        }
+
+        @Override
+        public void onResult(int round, boolean correct, int correctIndex, int score) {
+            if (round == sentRound && sentNanos != 0) {
+                record(resultLatency, System.nanoTime() - sentNanos);
+                // La clasificación que sigue al resultado ya incluye esta respuesta
+                awaitingRanking = true;
+            }
+        }
+
+        @Override
+        public void onRanking(RaceClient.Ranking ranking) {
+            if (awaitingRanking) {
+                awaitingRanking = false;
+                record(rankingLatency, System.nanoTime() - sentNanos);
+            }
+        }
+
+        @Override
+        public void onRaceOver() {
+            done.countDown();
+        }
+
+        @Override
+        public void onDisconnected(IOException error) {
+            if (error != null) {
+                System.err.println("Cliente desconectado: " + error.getMessage());
+                done.countDown();
+            }
+        }
+
+        private static void record(LatencyHistogram histogram, long nanos) {
+            synchronized (histogram) {
+                histogram.record(nanos);
+            }
+        }
+    }
+
+    /**
+     * Punto de entrada de la prueba de carga.
+     *
+     * @param args Las opciones
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int clients = 300;
+        int questionCount = 10;
+        long maxDelayMillis = 500;
+        String host = "localhost";
+        int port = 0;
+        long seed = System.nanoTime();
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String option = args[i];
+                if (++i >= args.length) {
+                    throw new IllegalArgumentException("Falta el valor de " + option);
+                }
+                switch (option) {
+                    case "--clients":
+                        clients = Integer.parseInt(args[i]);
+                        break;
+                    case "--questions":
+                        questionCount = Integer.parseInt(args[i]);
+                        break;
+                    case "--max-delay-ms":
+                        maxDelayMillis = Long.parseLong(args[i]);
+                        break;
+                    case "--host":
+                        host = args[i];
+                        break;
+                    case "--port":
+                        port = Integer.parseInt(args[i]);
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(args[i]);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Argumento desconocido: " + option);
+                }
+            }
+            if (clients < 1 || questionCount < 1 || maxDelayMillis < 0) {
+                throw new IllegalArgumentException("Configuración inválida");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        RaceServer server = null;
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2, r -> {
+            Thread t = new Thread(r, "RaceLoadTest-Bots");
+            t.setDaemon(true);
+            return t;
+        });
+        List<RaceClient> connections = new ArrayList<>(clients);
+        try {
+            if (port == 0) {
+                server = new RaceServer(new InetSocketAddress("localhost", 0), questionCount, clients, seed,
+                        TIME_LIMIT_MILLIS, DELAY_BETWEEN_QUESTIONS_MILLIS);
+                server.start();
+                port = server.getPort();
+            }
+
+            CountDownLatch done = new CountDownLatch(clients);
+            LatencyHistogram resultLatency = new LatencyHistogram();
+            LatencyHistogram rankingLatency = new LatencyHistogram();
+            SplittableRandom seeds = new SplittableRandom(seed);
+            long start = System.nanoTime();
+            for (int i = 0; i < clients; i++) {
+                Bot bot = new Bot(scheduler, seeds.nextLong(), maxDelayMillis, done, resultLatency, rankingLatency);
+                RaceClient client = new RaceClient(host, port, "bot-" + i, bot);
+                bot.client = client;
+                connections.add(client);
+            }
+            long connected = System.nanoTime();
+
+            done.await();
+            double seconds = (System.nanoTime() - connected) / 1e9;
+            System.out.printf("%d clientes conectados en %d ms; carrera de %d preguntas en %.2f s%n",
+                    clients, TimeUnit.NANOSECONDS.toMillis(connected - start), questionCount, seconds);
+            report("Respuesta → resultado", resultLatency);
+            report("Respuesta → clasificación", rankingLatency);
+            if (server != null) {
+                System.out.println(server.getAnswerCount() + " respuestas, "
+                        + server.getSlowClientCount() + " clientes lentos desconectados");
+            }
+        } catch (IOException e) {
+            System.err.println("Error en la prueba de carga: " + e.getMessage());
+            System.exit(1);
+        } finally {
+            for (RaceClient client : connections) {
+                try {
+                    client.close();
+                } catch (IOException e) {
+                    // Se está cerrando
+                }
+            }
+            scheduler.shutdownNow();
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    private static void report(String title, LatencyHistogram histogram) {
+        StringBuilder line = new StringBuilder(title).append(" (µs):");
+        synchronized (histogram) {
+            for (double percentile : PERCENTILES) {
+                line.append(" p").append(percentile == (long) percentile ? String.valueOf((long) percentile)
+                        : String.valueOf(percentile)).append('=').append(histogram.percentile(percentile) / 1000);
+            }
+            line.append(" max=").append(histogram.getMax() / 1000);
+        }
+        System.out.println(line);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.mathrush;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Protocolo binario entre {@link RaceServer} y {@link RaceClient}.
+ *
+ * <p>Cada mensaje es una trama {@code [longitud u16][tipo u8][datos]}, donde la
+ * longitud cuenta el tipo y los datos, en orden de red (big-endian). Los textos
+ * van en UTF-8; el nombre del jugador y el texto de la pregunta ocupan el resto
+ * de la trama. Mensajes:</p>
+ * <ul>
+ *   <li>{@link #HELLO} (cliente): nombre</li>
+ *   <li>{@link #WELCOME}: id i32, preguntas u16</li>
+ *   <li>{@link #QUESTION}: ronda i32, límite en ms i32, opciones u8, opción i32 × n, texto</li>
+ *   <li>{@link #ANSWER} (cliente): ronda i32, opción u8</li>
+ *   <li>{@link #RESULT}: ronda i32, acierto u8, opción correcta u8, puntuación i32</li>
+ *   <li>{@link #RANKING}: ronda i32, puesto u16, jugadores u16, puntuación i32, n u8,
+ *       y n entradas {@code [puntuación i32][longitud u8][nombre]}</li>
+ *   <li>{@link #RACE_OVER}: sin datos; la clasificación final se envía justo antes</li>
+ * </ul>
+ */
+final class RaceProtocol {
+
+    static final byte HELLO = 1;
+    static final byte WELCOME = 2;
+    static final byte QUESTION = 3;
+    static final byte ANSWER = 4;
+    static final byte RESULT = 5;
+    static final byte RANKING = 6;
+    static final byte RACE_OVER = 7;
+
+    /** Bytes de la cabecera de cada trama (longitud y tipo). */
+    static final int HEADER_SIZE = 3;
+    /** Mayor longitud de trama aceptada (tipo y datos). */
+    static final int MAX_FRAME_LENGTH = 1024;
+    /** Mayor longitud del nombre de un jugador, en bytes UTF-8. */
+    static final int MAX_NAME_BYTES = 32;
+    /** Jugadores que se incluyen en cada clasificación. */
+    static final int RANKING_TOP = 5;
+
+    private RaceProtocol() {
+    }
+
+    /**
+     * Reserva la cabecera de una trama; se completa con {@link #endFrame}.
+     *
+     * @param buffer El búfer de salida
+     * @param type El tipo de mensaje
+     * @return La posición de la trama en el búfer
+     */
+    static int beginFrame(ByteBuffer buffer, byte type) {
+        int start = buffer.position();
+        buffer.putShort((short) 0).put(type);
+        return start;
+    }
+
+    /**
+     * Escribe la longitud de una trama ya completa.
+     *
+     * @param buffer El búfer de salida
+     * @param start La posición devuelta por {@link #beginFrame}
+     */
+    static void endFrame(ByteBuffer buffer, int start) {
+        int length = buffer.position() - start - 2;
+        if (length > MAX_FRAME_LENGTH) {
+            throw new IllegalArgumentException("Trama demasiado larga: " + length + " bytes");
+        }
+        buffer.putShort(start, (short) length);
+    }
+
+    /**
+     * Codifica un nombre de jugador, recortándolo al tamaño máximo sin partir caracteres.
+     *
+     * @param name El nombre
+     * @return Los bytes UTF-8 del nombre
+     */
+    static byte[] encodeName(String name) {
+        String trimmed = name.strip();
+        byte[] bytes = trimmed.getBytes(StandardCharsets.UTF_8);
+        while (bytes.length > MAX_NAME_BYTES) {
+            trimmed = trimmed.substring(0, trimmed.offsetByCodePoints(0, trimmed.codePointCount(0, trimmed.length()) - 1));
+            bytes = trimmed.getBytes(StandardCharsets.UTF_8);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,673 @@
+package com.example.mathrush;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Servidor de carreras para una clase: envía la misma secuencia de preguntas a
+ * todos los jugadores conectados, recoge sus respuestas y les envía la
+ * clasificación en tiempo real.
+ *
+ * <p>Todo el servidor corre en un único hilo con un {@link Selector} de NIO y
+ * sockets no bloqueantes, así que cientos de clientes no necesitan cientos de
+ * hilos. Cada conexión tiene búferes de lectura y escritura preasignados; un
+ * cliente que no lee lo bastante rápido como para vaciar el suyo se desconecta
+ * en lugar de retener al resto. Las respuestas que llegan en una misma vuelta
+ * del selector se procesan juntas: al final de la vuelta quien respondió recibe
+ * su resultado y la clasificación nueva, así que su latencia es la de una vuelta
+ * del bucle, mientras que al resto se le envía como mucho una clasificación
+ * cada {@value #RANKING_INTERVAL_MILLIS} ms, sin importar cuántas respuestas
+ * lleguen.</p>
+ *
+ * <p>Una ronda termina cuando todos los jugadores respondieron o cuando se agota
+ * {@link GameSession#TIME_LIMIT_NANOS}; quien se conecta a mitad de una ronda
+ * entra en la clasificación pero no juega hasta la pregunta siguiente. Cada acierto vale
+ * {@value GameSession#POINTS_PER_CORRECT_ANSWER} puntos y los empates se deciden
+ * por el tiempo total de los aciertos. El protocolo está en {@link RaceProtocol}.</p>
+ *
+ * <pre>
+ * java -cp target/classes com.example.mathrush.RaceServer --port 7070 --questions 20
+ * </pre>
+ */
+public class RaceServer implements AutoCloseable {
+
+    /** Puerto por defecto del servidor. */
+    public static final int DEFAULT_PORT = 7070;
+
+    private static final String USAGE =
+            "Uso: RaceServer [--port P] [--questions N] [--players N] [--seed S]";
+
+    private static final int READ_BUFFER_SIZE = 2 * RaceProtocol.MAX_FRAME_LENGTH;
+    private static final int WRITE_BUFFER_SIZE = 16 * 1024;
+    private static final int DEFAULT_QUESTION_COUNT = 20;
+
+    // Intervalo mínimo entre clasificaciones enviadas a todos los jugadores
+    private static final long RANKING_INTERVAL_MILLIS = 50;
+    private static final long RANKING_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(RANKING_INTERVAL_MILLIS);
+
+    private static final Comparator<Player> RANKING_ORDER = Comparator
+            .comparingInt((Player player) -> -player.score)
+            .thenComparingLong(player -> player.correctNanos)
+            .thenComparingInt(player -> player.id);
+
+    private enum Phase {
+        LOBBY,
+        QUESTION,
+        PAUSE,
+        FINISHED
+    }
+
+    /**
+     * Conexión de un jugador.
+     */
+    private static final class Player {
+        final SocketChannel channel;
+        final SelectionKey key;
+        final ByteBuffer in = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        final ByteBuffer out = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+        int id;
+        byte[] name;
+        boolean joined;
+        boolean closed;
+        int score;
+        long correctNanos;
+        int answeredRound = -1;
+        // Primera ronda cuya pregunta recibe; quien entra a mitad de una ronda espera a la siguiente
+        int firstRound;
+        int rank;
+
+        Player(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+        }
+    }
+
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final int questionCount;
+    private final int autoStartPlayers;
+    private final long timeLimitNanos;
+    private final long delayNanos;
+    private final QuestionSource questions;
+    private final Thread thread;
+    private final CountDownLatch raceOver = new CountDownLatch(1);
+
+    // Estado que sólo toca el hilo del selector
+    private final List<Player> players = new ArrayList<>();
+    private final List<Player> ranking = new ArrayList<>();
+    private final List<Player> awaitingRanking = new ArrayList<>();
+    private final ByteBuffer questionFrame = ByteBuffer.allocate(RaceProtocol.MAX_FRAME_LENGTH + 2);
+    private final ByteBuffer rankingTop = ByteBuffer.allocate(RaceProtocol.MAX_FRAME_LENGTH);
+    private Phase phase = Phase.LOBBY;
+    private PreparedQuestion question;
+    private int round = -1;
+    private int roundPlayers;
+    private int answers;
+    private long roundStartNanos;
+    private long deadlineNanos;
+    private boolean rankingChanged;
+    private long nextBroadcastNanos;
+    private int nextPlayerId;
+
+    private volatile boolean running = true;
+    private volatile boolean startRequested;
+    private volatile int playerCount;
+    private volatile long answerCount;
+    private volatile long slowClientCount;
+
+    /**
+     * Crea un servidor con las reglas de tiempo de {@link GameSession}.
+     *
+     * @param address La dirección donde escuchar (puerto 0 para uno libre)
+     * @param questionCount Las preguntas de la carrera
+     * @param autoStartPlayers Jugadores con los que empieza la carrera sola, o 0 para esperar a {@link #startRace()}
+     * @param seed La semilla de la secuencia de preguntas
+     * @throws IOException si no se puede abrir el puerto
+     */
+    public RaceServer(InetSocketAddress address, int questionCount, int autoStartPlayers, long seed) throws IOException {
+        this(address, questionCount, autoStartPlayers, seed,
+                TimeUnit.NANOSECONDS.toMillis(GameSession.TIME_LIMIT_NANOS), GameSession.DELAY_BETWEEN_QUESTIONS_MS);
+    }
+
+    /**
+     * Crea un servidor con tiempos propios (por ejemplo, para pruebas de carga).
+     *
+     * @param address La dirección donde escuchar (puerto 0 para uno libre)
+     * @param questionCount Las preguntas de la carrera
+     * @param autoStartPlayers Jugadores con los que empieza la carrera sola, o 0 para esperar a {@link #startRace()}
+     * @param seed La semilla de la secuencia de preguntas
+     * @param timeLimitMillis El tiempo para responder cada pregunta
+     * @param delayMillis La pausa entre preguntas
+     * @throws IOException si no se puede abrir el puerto
+     */
+    public RaceServer(InetSocketAddress address, int questionCount, int autoStartPlayers, long seed,
+                      long timeLimitMillis, long delayMillis) throws IOException {
+        if (questionCount < 1 || autoStartPlayers < 0 || timeLimitMillis < 1 || delayMillis < 0) {
+            throw new IllegalArgumentException("Configuración de carrera inválida");
+        }
+        this.questionCount = questionCount;
+        this.autoStartPlayers = autoStartPlayers;
+        this.timeLimitNanos = TimeUnit.MILLISECONDS.toNanos(timeLimitMillis);
+        this.delayNanos = TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        this.questions = new GeneratedQuestionSource(seed);
+
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.bind(address, 256);
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            serverChannel.close();
+            selector.close();
+            throw e;
+        }
+
+        this.thread = new Thread(this::run, "RaceServer-Selector");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Empieza a atender conexiones.
+     */
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Obtiene el puerto en que escucha el servidor.
+     *
+     * @return El puerto
+     */
+    public int getPort() {
+        return ((InetSocketAddress) serverChannel.socket().getLocalSocketAddress()).getPort();
+    }
+
+    /**
+     * Pide que la carrera empiece en cuanto haya al menos un jugador.
+     */
+    public void startRace() {
+        startRequested = true;
+        selector.wakeup();
+    }
+
+    /**
+     * Espera a que termine la carrera.
+     *
+     * @param timeout El tiempo máximo de espera
+     * @param unit La unidad de {@code timeout}
+     * @return {@code true} si la carrera terminó
+     * @throws InterruptedException si se interrumpe la espera
+     */
+    public boolean awaitRaceOver(long timeout, TimeUnit unit) throws InterruptedException {
+        return raceOver.await(timeout, unit);
+    }
+
+    public int getPlayerCount() {
+        return playerCount;
+    }
+
+    public long getAnswerCount() {
+        return answerCount;
+    }
+
+    /**
+     * Obtiene cuántos clientes se desconectaron por no leer a tiempo.
+     *
+     * @return El número de clientes lentos desconectados
+     */
+    public long getSlowClientCount() {
+        return slowClientCount;
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                boolean timed = phase == Phase.QUESTION || phase == Phase.PAUSE || rankingChanged;
+                if (timed) {
+                    long deadline = phase == Phase.QUESTION || phase == Phase.PAUSE ? deadlineNanos : nextBroadcastNanos;
+                    if (rankingChanged && nextBroadcastNanos - deadline < 0) {
+                        deadline = nextBroadcastNanos;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining > 0) {
+                        selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining + 999_999)));
+                    } else {
+                        selector.selectNow();
+                    }
+                } else {
+                    selector.select();
+                }
+
+                long now = System.nanoTime();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Player player = (Player) key.attachment();
+                    if (key.isReadable()) {
+                        read(player, now);
+                    }
+                    if (!player.closed && key.isValid() && key.isWritable()) {
+                        flush(player);
+                    }
+                }
+
+                advance(now);
+                if (rankingChanged) {
+                    publishRanking(now, false);
+                }
+                for (int i = players.size() - 1; i >= 0; i--) {
+                    Player player = players.get(i);
+                    if (player.out.position() > 0) {
+                        flush(player);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error en el servidor de carreras: " + e.getMessage());
+        } finally {
+            for (Player player : new ArrayList<>(players)) {
+                disconnect(player);
+            }
+            try {
+                serverChannel.close();
+                selector.close();
+            } catch (IOException e) {
+                System.err.println("Error al cerrar el servidor de carreras: " + e.getMessage());
+            }
+            raceOver.countDown();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            // Sin límite el núcleo acumula megabytes para un cliente que no lee y nunca se detecta
+            channel.setOption(StandardSocketOptions.SO_SNDBUF, WRITE_BUFFER_SIZE);
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+            key.attach(new Player(channel, key));
+        }
+    }
+
+    private void read(Player player, long now) {
+        ByteBuffer in = player.in;
+        try {
+            if (player.channel.read(in) < 0) {
+                disconnect(player);
+                return;
+            }
+        } catch (IOException e) {
+            disconnect(player);
+            return;
+        }
+
+        in.flip();
+        while (in.remaining() >= 2) {
+            int length = in.getShort(in.position()) & 0xFFFF;
+            if (length < 1 || length > RaceProtocol.MAX_FRAME_LENGTH) {
+                disconnect(player);
+                return;
+            }
+            if (in.remaining() < 2 + length) {
+                break;
+            }
+            int frameEnd = in.position() + 2 + length;
+            in.position(in.position() + 2);
+            byte type = in.get();
+            handle(player, type, length - 1, now);
+            if (player.closed) {
+                return;
+            }
+            in.position(frameEnd);
+        }
+        in.compact();
+    }
+
+    private void handle(Player player, byte type, int payloadLength, long now) {
+        ByteBuffer in = player.in;
+        if (type == RaceProtocol.HELLO && !player.joined && payloadLength <= RaceProtocol.MAX_NAME_BYTES) {
+            player.name = new byte[payloadLength];
+            in.get(player.name);
+            join(player);
+        } else if (type == RaceProtocol.ANSWER && player.joined && payloadLength >= 5) {
+            int answeredRound = in.getInt();
+            int option = in.get() & 0xFF;
+            answer(player, answeredRound, option, now);
+        } else {
+            // Mensaje desconocido o fuera de lugar: el cliente no habla este protocolo
+            disconnect(player);
+        }
+    }
+
+    private void join(Player player) {
+        player.id = ++nextPlayerId;
+        player.joined = true;
+        player.firstRound = round + 1;
+        players.add(player);
+        playerCount = players.size();
+
+        if (reserve(player, 16)) {
+            ByteBuffer out = player.out;
+            int frame = RaceProtocol.beginFrame(out, RaceProtocol.WELCOME);
+            out.putInt(player.id).putShort((short) questionCount);
+            RaceProtocol.endFrame(out, frame);
+        }
+        rankingChanged = true;
+    }
+
+    private void answer(Player player, int answeredRound, int option, long now) {
+        // Las respuestas tardías o repetidas se ignoran
+        if (phase != Phase.QUESTION || answeredRound != round || player.answeredRound == round
+                || player.firstRound > round) {
+            return;
+        }
+        player.answeredRound = round;
+        answers++;
+        answerCount++;
+
+        boolean correct = option == question.getCorrectIndex();
+        if (correct) {
+            player.score += GameSession.POINTS_PER_CORRECT_ANSWER;
+            player.correctNanos += now - roundStartNanos;
+        }
+        sendResult(player, correct);
+        awaitingRanking.add(player);
+        rankingChanged = true;
+    }
+
+    /**
+     * Avanza las fases de la carrera según el reloj.
+     */
+    private void advance(long now) {
+        switch (phase) {
+            case LOBBY:
+                boolean ready = startRequested || (autoStartPlayers > 0 && players.size() >= autoStartPlayers);
+                if (ready && !players.isEmpty()) {
+                    nextRound(now);
+                }
+                break;
+            case QUESTION:
+                if (now - deadlineNanos >= 0 || answers >= roundPlayers) {
+                    endRound(now);
+                }
+                break;
+            case PAUSE:
+                if (now - deadlineNanos >= 0) {
+                    if (round + 1 < questionCount) {
+                        nextRound(now);
+                    } else {
+                        finishRace();
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void nextRound(long now) {
+        round++;
+        question = questions.next();
+        answers = 0;
+        roundStartNanos = now;
+        deadlineNanos = now + timeLimitNanos;
+        phase = Phase.QUESTION;
+
+        // La trama se codifica una vez y se copia a cada jugador
+        questionFrame.clear();
+        int frame = RaceProtocol.beginFrame(questionFrame, RaceProtocol.QUESTION);
+        questionFrame.putInt(round).putInt((int) TimeUnit.NANOSECONDS.toMillis(timeLimitNanos));
+        questionFrame.put((byte) question.getOptionCount());
+        for (int i = 0; i < question.getOptionCount(); i++) {
+            questionFrame.putInt(question.getOption(i));
+        }
+        questionFrame.put(question.getQuestion().getQuestionText().getBytes(StandardCharsets.UTF_8));
+        RaceProtocol.endFrame(questionFrame, frame);
+        questionFrame.flip();
+
+        // Quien se desconecta durante el envío ya se descuenta en disconnect
+        roundPlayers = players.size();
+        for (int i = players.size() - 1; i >= 0; i--) {
+            Player player = players.get(i);
+            if (reserve(player, questionFrame.remaining())) {
+                player.out.put(questionFrame.duplicate());
+            }
+        }
+    }
+
+    private void endRound(long now) {
+        // Quien no respondió también recibe la respuesta correcta, salvo quien no vio la pregunta
+        for (int i = players.size() - 1; i >= 0; i--) {
+            Player player = players.get(i);
+            if (player.answeredRound != round && player.firstRound <= round) {
+                sendResult(player, false);
+            }
+        }
+        phase = Phase.PAUSE;
+        deadlineNanos = now + delayNanos;
+    }
+
+    private void finishRace() {
+        publishRanking(System.nanoTime(), true);
+        for (int i = players.size() - 1; i >= 0; i--) {
+            Player player = players.get(i);
+            if (reserve(player, RaceProtocol.HEADER_SIZE)) {
+                RaceProtocol.endFrame(player.out, RaceProtocol.beginFrame(player.out, RaceProtocol.RACE_OVER));
+            }
+        }
+        phase = Phase.FINISHED;
+        raceOver.countDown();
+    }
+
+    private void sendResult(Player player, boolean correct) {
+        if (reserve(player, 16)) {
+            ByteBuffer out = player.out;
+            int frame = RaceProtocol.beginFrame(out, RaceProtocol.RESULT);
+            out.putInt(round).put((byte) (correct ? 1 : 0)).put((byte) question.getCorrectIndex()).putInt(player.score);
+            RaceProtocol.endFrame(out, frame);
+        }
+    }
+
+    /**
+     * Ordena la clasificación y la envía a quienes acaban de responder o, si ya
+     * pasó el intervalo (o se pide con {@code everyone}), a todos los jugadores.
+     */
+    private void publishRanking(long now, boolean everyone) {
+        ranking.clear();
+        ranking.addAll(players);
+        ranking.sort(RANKING_ORDER);
+        for (int i = 0; i < ranking.size(); i++) {
+            ranking.get(i).rank = i + 1;
+        }
+
+        int top = Math.min(RaceProtocol.RANKING_TOP, ranking.size());
+        rankingTop.clear();
+        rankingTop.put((byte) top);
+        for (int i = 0; i < top; i++) {
+            Player player = ranking.get(i);
+            rankingTop.putInt(player.score).put((byte) player.name.length).put(player.name);
+        }
+        rankingTop.flip();
+
+        if (everyone || now - nextBroadcastNanos >= 0) {
+            for (int i = 0; i < ranking.size(); i++) {
+                sendRanking(ranking.get(i));
+            }
+            rankingChanged = false;
+            nextBroadcastNanos = now + RANKING_INTERVAL_NANOS;
+        } else {
+            for (int i = 0; i < awaitingRanking.size(); i++) {
+                sendRanking(awaitingRanking.get(i));
+            }
+        }
+        awaitingRanking.clear();
+    }
+
+    private void sendRanking(Player player) {
+        if (reserve(player, RaceProtocol.HEADER_SIZE + 12 + rankingTop.remaining())) {
+            ByteBuffer out = player.out;
+            int frame = RaceProtocol.beginFrame(out, RaceProtocol.RANKING);
+            out.putInt(round).putShort((short) player.rank).putShort((short) ranking.size()).putInt(player.score);
+            out.put(rankingTop.duplicate());
+            RaceProtocol.endFrame(out, frame);
+        }
+    }
+
+    /**
+     * Comprueba que cabe un mensaje en el búfer de salida del jugador; si no cabe,
+     * el cliente se quedó atrás y se desconecta.
+     */
+    private boolean reserve(Player player, int bytes) {
+        if (player.closed) {
+            return false;
+        }
+        if (player.out.remaining() < bytes) {
+            slowClientCount++;
+            disconnect(player);
+            return false;
+        }
+        return true;
+    }
+
+    private void flush(Player player) {
+        ByteBuffer out = player.out;
+        out.flip();
+        try {
+            player.channel.write(out);
+        } catch (IOException e) {
+            out.clear();
+            disconnect(player);
+            return;
+        }
+        out.compact();
+        int interest = out.position() > 0 ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ;
+        if (player.key.interestOps() != interest) {
+            player.key.interestOps(interest);
+        }
+    }
+
+    private void disconnect(Player player) {
+        if (player.closed) {
+            return;
+        }
+        player.closed = true;
+        player.key.cancel();
+        try {
+            player.channel.close();
+        } catch (IOException e) {
+            // El canal ya no se usa
+        }
+        if (player.joined && players.remove(player)) {
+            playerCount = players.size();
+            if (phase == Phase.QUESTION && player.firstRound <= round) {
+                roundPlayers--;
+                if (player.answeredRound == round) {
+                    answers--;
+                }
+            }
+            rankingChanged = true;
+        }
+    }
+
+    /**
+     * Detiene el servidor y cierra todas las conexiones.
+     *
+     * @throws InterruptedException si se interrumpe la espera al hilo del selector
+     */
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        selector.wakeup();
+        if (thread.isAlive()) {
+            thread.join();
+        }
+    }
+
+    /**
+     * Punto de entrada del servidor de carreras.
+     *
+     * @param args Las opciones
+     */
+    public static void main(String[] args) {
+        int port = DEFAULT_PORT;
+        int questionCount = DEFAULT_QUESTION_COUNT;
+        int autoStartPlayers = 0;
+        long seed = System.nanoTime();
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String option = args[i];
+                if (++i >= args.length) {
+                    throw new IllegalArgumentException("Falta el valor de " + option);
+                }
+                switch (option) {
+                    case "--port":
+                        port = Integer.parseInt(args[i]);
+                        break;
+                    case "--questions":
+                        questionCount = Integer.parseInt(args[i]);
+                        break;
+                    case "--players":
+                        autoStartPlayers = Integer.parseInt(args[i]);
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(args[i]);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Argumento desconocido: " + option);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        try (RaceServer server = new RaceServer(new InetSocketAddress(port), questionCount, autoStartPlayers, seed)) {
+            server.start();
+            System.out.println("Servidor de carreras en el puerto " + server.getPort() + ", " + questionCount
+                    + " preguntas (semilla " + seed + ")");
+            if (autoStartPlayers > 0) {
+                System.out.println("La carrera empieza con " + autoStartPlayers + " jugadores");
+            } else {
+                System.out.println("Pulse Enter para empezar la carrera");
+                new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)).readLine();
+                server.startRace();
+            }
+            server.awaitRaceOver(Long.MAX_VALUE, TimeUnit.DAYS);
+            System.out.println("Carrera terminada: " + server.getPlayerCount() + " jugadores, "
+                    + server.getAnswerCount() + " respuestas, " + server.getSlowClientCount() + " clientes lentos");
+        } catch (IOException e) {
+            System.err.println("Error en el servidor de carreras: " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
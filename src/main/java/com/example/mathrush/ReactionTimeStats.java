@@ -0,0 +1,194 @@
+package com.example.mathrush;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogramas de tiempos de reacción (desde que se muestra una pregunta hasta
+ * que se responde o se agota el tiempo), separados por plantilla y nivel de
+ * dificultad.
+ *
+ * <p>Cada histograma usa cubetas log-lineales de milisegundos: los valores
+ * menores que {@value #SUB_BUCKETS} ms son exactos y cada potencia de dos por
+ * encima se divide en {@value #SUB_BUCKETS} cubetas, con un error relativo máximo
+ * de 1/{@value #SUB_BUCKETS}. Toda la memoria se reserva al crear el objeto y
+ * {@link #record} sólo incrementa un contador atómico, sin bloqueos ni
+ * asignaciones, así que puede llamarse desde el hilo de JavaFX o desde varias
+ * sesiones a la vez.</p>
+ */
+public class ReactionTimeStats {
+
+    // Cubetas por potencia de dos (debe ser potencia de dos)
+    private static final int SUB_BUCKETS = 16;
+    private static final int SUB_BUCKET_BITS = Integer.numberOfTrailingZeros(SUB_BUCKETS);
+
+    /** Mayor tiempo distinguible; los valores mayores caen en la última cubeta. */
+    public static final long MAX_TRACKABLE_MILLIS = (1L << 14) - 1;
+
+    static final int BUCKET_COUNT = bucketIndex(MAX_TRACKABLE_MILLIS) + 1;
+
+    private static final int TEMPLATE_COUNT = QuestionTemplate.values().length;
+    private static final int LEVEL_COUNT = QuestionGenerator.LEVEL_COUNT;
+
+    private final AtomicLongArray counts =
+            new AtomicLongArray(TEMPLATE_COUNT * LEVEL_COUNT * BUCKET_COUNT);
+
+    /**
+     * Registra un tiempo de reacción.
+     *
+     * @param template La plantilla de la pregunta
+     * @param difficultyLevel El nivel de dificultad de la pregunta
+     * @param reactionNanos El tiempo de reacción en nanosegundos
+     */
+    public void record(QuestionTemplate template, int difficultyLevel, long reactionNanos) {
+        long millis = Math.max(0, TimeUnit.NANOSECONDS.toMillis(reactionNanos));
+        counts.incrementAndGet(histogramOffset(template.ordinal(), difficultyLevel) + bucketIndex(millis));
+    }
+
+    /**
+     * Obtiene cuántos tiempos se registraron para una plantilla y un nivel.
+     *
+     * @param template La plantilla
+     * @param difficultyLevel El nivel de dificultad
+     * @return El número de registros
+     */
+    public long getCount(QuestionTemplate template, int difficultyLevel) {
+        long total = 0;
+        int offset = histogramOffset(template.ordinal(), difficultyLevel);
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += counts.get(offset + i);
+        }
+        return total;
+    }
+
+    /**
+     * Calcula un percentil del tiempo de reacción para una plantilla y un nivel.
+     *
+     * @param template La plantilla
+     * @param difficultyLevel El nivel de dificultad
+     * @param percentile El percentil, entre 0 y 100 (por ejemplo 50, 90 o 99)
+     * @return El percentil en milisegundos (límite superior de su cubeta), o 0 si
+     *         no hay registros
+     */
+    public long getPercentileMillis(QuestionTemplate template, int difficultyLevel, double percentile) {
+        long[] merged = new long[BUCKET_COUNT];
+        addHistogram(merged, template.ordinal(), difficultyLevel);
+        return percentileOf(merged, percentile);
+    }
+
+    /**
+     * Calcula un percentil del tiempo de reacción para una plantilla, sumando
+     * todos los niveles.
+     *
+     * @param template La plantilla
+     * @param percentile El percentil, entre 0 y 100
+     * @return El percentil en milisegundos, o 0 si no hay registros
+     */
+    public long getPercentileMillis(QuestionTemplate template, double percentile) {
+        long[] merged = new long[BUCKET_COUNT];
+        for (int level = 0; level < LEVEL_COUNT; level++) {
+            addHistogram(merged, template.ordinal(), level);
+        }
+        return percentileOf(merged, percentile);
+    }
+
+    /**
+     * Calcula un percentil del tiempo de reacción para un nivel, sumando todas
+     * las plantillas.
+     *
+     * @param difficultyLevel El nivel de dificultad
+     * @param percentile El percentil, entre 0 y 100
+     * @return El percentil en milisegundos, o 0 si no hay registros
+     */
+    public long getPercentileMillis(int difficultyLevel, double percentile) {
+        long[] merged = new long[BUCKET_COUNT];
+        for (int template = 0; template < TEMPLATE_COUNT; template++) {
+            addHistogram(merged, template, difficultyLevel);
+        }
+        return percentileOf(merged, percentile);
+    }
+
+    /**
+     * Borra todos los registros.
+     */
+    public void clear() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    private void addHistogram(long[] merged, int template, int difficultyLevel) {
+        int offset = histogramOffset(template, difficultyLevel);
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            merged[i] += counts.get(offset + i);
+        }
+    }
+
+    private static long percentileOf(long[] histogram, double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentil fuera de rango: " + percentile);
+        }
+
+        long total = 0;
+        for (long count : histogram) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen >= rank) {
+                return bucketUpperBound(i);
+            }
+        }
+        return MAX_TRACKABLE_MILLIS;
+    }
+
+    private static int histogramOffset(int template, int difficultyLevel) {
+        if (difficultyLevel < 0 || difficultyLevel >= LEVEL_COUNT) {
+            throw new IllegalArgumentException("Nivel de dificultad inválido: " + difficultyLevel);
+        }
+        return (template * LEVEL_COUNT + difficultyLevel) * BUCKET_COUNT;
+    }
+
+    static int bucketIndex(long millis) {
+        return bucketIndex(millis, MAX_TRACKABLE_MILLIS);
+    }
+
+    /**
+     * Calcula la cubeta log-lineal de un valor; {@link LatencyHistogram} usa las
+     * mismas cubetas con otro límite.
+     *
+     * @param value El valor, no negativo
+     * @param maxValue El mayor valor distinguible; los mayores caen en su cubeta
+     * @return La posición de la cubeta
+     */
+    static int bucketIndex(long value, long maxValue) {
+        value = Math.min(value, maxValue);
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Calcula el mayor valor que cae en una cubeta.
+     *
+     * @param index La posición de la cubeta
+     * @return El límite superior de la cubeta, incluido
+     */
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
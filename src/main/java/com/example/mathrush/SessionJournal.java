@@ -0,0 +1,489 @@
+package com.example.mathrush;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bitácora de partidas: cada pregunta mostrada, respuesta, tiempo agotado, vida
+ * perdida y fin de juego queda registrado en un archivo binario, para auditoría
+ * y para poder reproducir partidas.
+ *
+ * <p>Quien registra (el hilo de JavaFX, o los hilos de un servidor) nunca
+ * escribe en disco: copia el registro, de {@value #RECORD_SIZE} bytes, a un
+ * anillo preasignado de enteros {@code long} y lo publica sin bloqueos. Un hilo
+ * de fondo vacía el anillo en lotes y los escribe con escrituras secuenciales
+ * grandes. Si el anillo se llena, según {@link Overflow} el registro se descarta
+ * o quien registra espera; ambos casos se cuentan.</p>
+ */
+public class SessionJournal implements AutoCloseable {
+
+    /**
+     * Cuándo se fuerzan los registros a disco.
+     */
+    public enum Durability {
+        /** Nunca, salvo al cerrar: lo decide el sistema operativo. */
+        NONE,
+        /** Después de cada lote escrito. */
+        BATCH,
+        /** Como mucho una vez cada {@link #SYNC_INTERVAL_MILLIS} ms. */
+        INTERVAL
+    }
+
+    /**
+     * Qué hacer cuando el anillo está lleno.
+     */
+    public enum Overflow {
+        /** Descartar el registro (nunca bloquea a quien registra). */
+        DROP,
+        /** Esperar a que el escritor libere espacio. */
+        BLOCK
+    }
+
+    // Tipos de registro
+    public static final int GAME_START = 1;
+    public static final int QUESTION_SHOWN = 2;
+    public static final int ANSWER = 3;
+    public static final int TIMEOUT = 4;
+    public static final int LIFE_LOST = 5;
+    public static final int GAME_OVER = 6;
+
+    /** Marca de una pregunta de repaso (no viene de la fuente de preguntas). */
+    public static final int FLAG_REVIEW = 1;
+
+    // Formato del archivo (little-endian)
+    static final int FILE_MAGIC = 0x4A53524D; // "MRSJ"
+    static final int FILE_VERSION = 1;
+    static final int FILE_HEADER_SIZE = 16;
+    static final int RECORD_WORDS = 8;
+    public static final int RECORD_SIZE = RECORD_WORDS * Long.BYTES;
+
+    public static final long SYNC_INTERVAL_MILLIS = 200;
+
+    private static final int DEFAULT_CAPACITY = 8192;
+    private static final int WRITE_BUFFER_SIZE = 256 * 1024;
+
+    private final FileChannel channel;
+    private final Durability durability;
+    private final Overflow overflow;
+
+    // Anillo MPSC: cada hueco tiene RECORD_WORDS palabras y un número de secuencia
+    private final int mask;
+    private final long[] words;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    // Sólo lo usa el escritor; los demás hilos leen su copia publicada en written
+    private long head;
+
+    private final AtomicInteger sessionIds = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder backpressured = new LongAdder();
+    // Sólo los modifica el escritor: written una vez por lote, los demás al escribir o forzar a disco
+    private volatile long written;
+    private volatile long batches;
+    private volatile long syncs;
+
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private final Thread writer;
+    private volatile boolean closed;
+    // El escritor está (o está por quedarse) dormido esperando registros
+    private volatile boolean writerIdle;
+    private volatile IOException failure;
+
+    /**
+     * Crea (o reemplaza) una bitácora con un anillo de tamaño por defecto.
+     *
+     * @param path El archivo de la bitácora
+     * @param durability Cuándo forzar los registros a disco
+     * @param overflow Qué hacer si el anillo se llena
+     * @throws IOException si no se puede crear el archivo
+     */
+    public SessionJournal(Path path, Durability durability, Overflow overflow) throws IOException {
+        this(path, durability, overflow, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Crea (o reemplaza) una bitácora.
+     *
+     * @param path El archivo de la bitácora
+     * @param durability Cuándo forzar los registros a disco
+     * @param overflow Qué hacer si el anillo se llena
+     * @param capacity Registros que caben en el anillo (potencia de dos)
+     * @throws IOException si no se puede crear el archivo
+     */
+    public SessionJournal(Path path, Durability durability, Overflow overflow, int capacity) throws IOException {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("La capacidad debe ser una potencia de dos: " + capacity);
+        }
+        this.durability = durability;
+        this.overflow = overflow;
+        this.mask = capacity - 1;
+        this.words = new long[capacity * RECORD_WORDS];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        buffer.putInt(FILE_MAGIC).putInt(FILE_VERSION).putInt(RECORD_SIZE).putInt(0);
+
+        this.writer = new Thread(this::runWriter, "SessionJournal-Writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Reserva un identificador para una partida nueva.
+     *
+     * @return El identificador, único dentro de esta bitácora
+     */
+    public int newSessionId() {
+        return sessionIds.incrementAndGet();
+    }
+
+    /**
+     * Registra el comienzo de una partida.
+     *
+     * @param sessionId La partida
+     * @param lives Las vidas iniciales
+     * @param score La puntuación inicial
+     * @return {@code false} si el registro se descartó
+     */
+    public boolean gameStarted(int sessionId, int lives, int score) {
+        return append(GAME_START, sessionId, 0, 0, 0, 0, lives, score,
+                System.currentTimeMillis(), 0, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * Registra una pregunta mostrada con sus opciones.
+     *
+     * @param sessionId La partida
+     * @param nowNanos El instante en que se mostró
+     * @param question La pregunta
+     * @param review Si es un repaso del dominio del jugador en lugar de la
+     *               siguiente pregunta de la fuente
+     * @param lives Las vidas al mostrarla
+     * @param score La puntuación al mostrarla
+     * @return {@code false} si el registro se descartó
+     */
+    public boolean questionShown(int sessionId, long nowNanos, PreparedQuestion question, boolean review,
+                                 int lives, int score) {
+        MathQuestion math = question.getQuestion();
+        int answer = math.getCorrectAnswer();
+        long optionOffsets = 0;
+        for (int i = 0; i < question.getOptionCount() && i < Long.BYTES; i++) {
+            optionOffsets |= ((long) (question.getOption(i) - answer) & 0xFF) << (i * 8);
+        }
+        return append(QUESTION_SHOWN, sessionId, math.getTemplate().ordinal(), question.getDifficultyLevel(),
+                question.getCorrectIndex(), nowNanos, lives, score, optionOffsets,
+                answer, math.getOperandA(), math.getOperandB(), math.getOperandC(), question.getOptionCount(),
+                review ? FLAG_REVIEW : 0);
+    }
+
+    /**
+     * Registra la respuesta a una pregunta.
+     *
+     * @param sessionId La partida
+     * @param nowNanos El instante de la respuesta
+     * @param optionIndex La opción elegida
+     * @param reactionNanos El tiempo de reacción
+     * @param lives Las vidas después de responder
+     * @param score La puntuación después de responder
+     * @return {@code false} si el registro se descartó
+     */
+    public boolean answered(int sessionId, long nowNanos, int optionIndex, long reactionNanos, int lives, int score) {
+        return append(ANSWER, sessionId, 0, 0, optionIndex, nowNanos, lives, score, reactionNanos, 0, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * Registra una pregunta cuyo tiempo se agotó.
+     *
+     * @param sessionId La partida
+     * @param nowNanos El instante en que se agotó el tiempo
+     * @param reactionNanos El tiempo transcurrido desde que se mostró la pregunta
+     * @param lives Las vidas después de perder la pregunta
+     * @param score La puntuación
+     * @return {@code false} si el registro se descartó
+     */
+    public boolean timedOut(int sessionId, long nowNanos, long reactionNanos, int lives, int score) {
+        return append(TIMEOUT, sessionId, 0, 0, 0, nowNanos, lives, score, reactionNanos, 0, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * Registra una vida perdida.
+     *
+     * @param sessionId La partida
+     * @param nowNanos El instante
+     * @param lives Las vidas que quedan
+     * @param score La puntuación
+     * @return {@code false} si el registro se descartó
+     */
+    public boolean lifeLost(int sessionId, long nowNanos, int lives, int score) {
+        return append(LIFE_LOST, sessionId, 0, 0, 0, nowNanos, lives, score, 0, 0, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * Registra el final de una partida.
+     *
+     * @param sessionId La partida
+     * @param nowNanos El instante
+     * @param lives Las vidas que quedan
+     * @param score La puntuación final
+     * @return {@code false} si el registro se descartó
+     */
+    public boolean gameOver(int sessionId, long nowNanos, int lives, int score) {
+        return append(GAME_OVER, sessionId, 0, 0, 0, nowNanos, lives, score, 0, 0, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * Copia un registro al anillo. Las ocho palabras son:
+     * <ol start="0">
+     *   <li>tipo | plantilla &lt;&lt; 8 | nivel &lt;&lt; 16 | índice &lt;&lt; 24 | partida &lt;&lt; 32</li>
+     *   <li>número de secuencia global</li>
+     *   <li>instante en nanosegundos</li>
+     *   <li>vidas | puntuación &lt;&lt; 32</li>
+     *   <li>valor (fecha, tiempo de reacción o desplazamientos de las opciones)</li>
+     *   <li>respuesta correcta | operando a &lt;&lt; 32</li>
+     *   <li>operando b | operando c &lt;&lt; 32</li>
+     *   <li>número de opciones</li>
+     * </ol>
+     */
+    private boolean append(int type, int sessionId, int template, int difficulty, int index,
+                           long nowNanos, int lives, int score, long value,
+                           int answer, int a, int b, int c, int optionCount, int flags) {
+        if (closed) {
+            dropped.increment();
+            return false;
+        }
+
+        long position = claim();
+        if (position < 0) {
+            return false;
+        }
+
+        int base = (int) (position & mask) * RECORD_WORDS;
+        words[base] = (type & 0xFF) | (template & 0xFF) << 8 | (difficulty & 0xFF) << 16
+                | (long) (index & 0xFF) << 24 | (long) sessionId << 32;
+        words[base + 1] = position;
+        words[base + 2] = nowNanos;
+        words[base + 3] = (lives & 0xFFFFFFFFL) | (long) score << 32;
+        words[base + 4] = value;
+        words[base + 5] = (answer & 0xFFFFFFFFL) | (long) a << 32;
+        words[base + 6] = (b & 0xFFFFFFFFL) | (long) c << 32;
+        words[base + 7] = (optionCount & 0xFFFFFFFFL) | (long) flags << 32;
+
+        // Publicar: el escritor sólo lee el hueco cuando ve esta secuencia
+        sequences.set((int) (position & mask), position + 1);
+        if (writerIdle) {
+            LockSupport.unpark(writer);
+        }
+        return true;
+    }
+
+    /**
+     * Reserva la siguiente posición del anillo.
+     *
+     * @return La posición, o -1 si el anillo está lleno y el registro se descarta
+     */
+    private long claim() {
+        boolean waited = false;
+        long position = tail.get();
+        while (true) {
+            long sequence = sequences.get((int) (position & mask));
+            long difference = sequence - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    return position;
+                }
+            } else if (difference < 0) {
+                // Anillo lleno
+                if (overflow == Overflow.DROP || closed) {
+                    dropped.increment();
+                    return -1;
+                }
+                if (!waited) {
+                    backpressured.increment();
+                    waited = true;
+                }
+                LockSupport.unpark(writer);
+                Thread.onSpinWait();
+            }
+            position = tail.get();
+        }
+    }
+
+    private void runWriter() {
+        long lastSyncNanos = System.nanoTime();
+        boolean unsynced = false;
+        try {
+            while (true) {
+                boolean finishing = closed;
+                int drained = drain();
+                if (drained > 0 || buffer.position() > 0) {
+                    flush();
+                    unsynced = true;
+                    batches++;
+                }
+
+                if (unsynced && (durability == Durability.BATCH || (durability == Durability.INTERVAL
+                        && System.nanoTime() - lastSyncNanos >= TimeUnit.MILLISECONDS.toNanos(SYNC_INTERVAL_MILLIS)))) {
+                    sync();
+                    unsynced = false;
+                    lastSyncNanos = System.nanoTime();
+                }
+
+                // Al cerrar, esperar también a los registros reservados pero aún no publicados
+                if (finishing && drained == 0 && tail.get() == head) {
+                    if (unsynced) {
+                        sync();
+                    }
+                    return;
+                }
+                if (drained == 0) {
+                    awaitRecords(unsynced && durability == Durability.INTERVAL
+                            ? lastSyncNanos + TimeUnit.MILLISECONDS.toNanos(SYNC_INTERVAL_MILLIS) : 0);
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+            closed = true;
+        }
+    }
+
+    /**
+     * Duerme al escritor hasta que se publique un registro o se cierre la
+     * bitácora. Quien publica lo despierta sólo si lo ve marcado como inactivo:
+     * como la marca se pone antes de volver a mirar el anillo, un registro
+     * publicado entre medias no se pierde.
+     *
+     * @param deadlineNanos Cuándo despertar de todos modos (para forzar a disco
+     *                      lo escrito), o 0 para esperar sin límite
+     */
+    private void awaitRecords(long deadlineNanos) {
+        writerIdle = true;
+        try {
+            if (closed || sequences.get((int) (head & mask)) == head + 1) {
+                return;
+            }
+            if (deadlineNanos == 0) {
+                LockSupport.park(this);
+            } else {
+                LockSupport.parkNanos(this, deadlineNanos - System.nanoTime());
+            }
+        } finally {
+            writerIdle = false;
+        }
+    }
+
+    /**
+     * Copia al búfer de escritura todos los registros publicados que quepan.
+     *
+     * @return El número de registros copiados
+     */
+    private int drain() throws IOException {
+        int drained = 0;
+        while (true) {
+            int slot = (int) (head & mask);
+            if (sequences.get(slot) != head + 1) {
+                // Una sola escritura volátil por lote publica el avance a otros hilos
+                written = head;
+                return drained;
+            }
+            if (buffer.remaining() < RECORD_SIZE) {
+                flush();
+            }
+            int base = slot * RECORD_WORDS;
+            for (int i = 0; i < RECORD_WORDS; i++) {
+                buffer.putLong(words[base + i]);
+            }
+            // Liberar el hueco para la siguiente vuelta del anillo
+            sequences.set(slot, head + mask + 1);
+            head++;
+            drained++;
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void sync() throws IOException {
+        channel.force(false);
+        syncs++;
+    }
+
+    /**
+     * Obtiene cuántos registros se descartaron por tener el anillo lleno.
+     *
+     * @return El número de registros descartados
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Obtiene cuántas veces alguien tuvo que esperar porque el anillo estaba lleno.
+     *
+     * @return El número de esperas
+     */
+    public long getBackpressureCount() {
+        return backpressured.sum();
+    }
+
+    /**
+     * Obtiene cuántos registros están en espera de escribirse.
+     *
+     * @return El número de registros en el anillo
+     */
+    public long getPendingCount() {
+        return Math.max(0, tail.get() - written);
+    }
+
+    public long getWrittenCount() {
+        return written;
+    }
+
+    public long getBatchCount() {
+        return batches;
+    }
+
+    public long getSyncCount() {
+        return syncs;
+    }
+
+    /**
+     * Escribe los registros pendientes, los fuerza a disco y cierra el archivo.
+     * Los registros que lleguen después se descartan.
+     *
+     * @throws IOException si el escritor falló
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            channel.close();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
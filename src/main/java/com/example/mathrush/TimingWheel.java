@@ -0,0 +1,331 @@
+package com.example.mathrush;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Rueda de temporizadores (hashed timing wheel) compartida por muchas sesiones:
+ * tiempos agotados, transiciones entre preguntas y cualquier otra tarea
+ * diferida, con programación y cancelación en O(1).
+ *
+ * <p>La rueda tiene {@code wheelSize} casillas de {@code tick} cada una; un
+ * temporizador cae en la casilla de su instante y guarda cuántas vueltas le
+ * faltan. Un único hilo avanza una casilla por tick y ejecuta los temporizadores
+ * vencidos, así que la precisión es de un tick y el coste no depende de cuántos
+ * temporizadores haya pendientes. Se puede programar y cancelar desde cualquier
+ * hilo: las altas y bajas pasan por colas sin bloqueos y el hilo de la rueda las
+ * aplica al inicio de cada tick. Sin temporizadores pendientes el hilo se
+ * duerme hasta la siguiente alta.</p>
+ *
+ * <p>Las tareas se ejecutan en el hilo de la rueda y deben ser cortas: lo normal
+ * es que sólo pasen el trabajo a su hilo ({@code Platform.runLater} o un
+ * executor).</p>
+ */
+public class TimingWheel implements AutoCloseable {
+
+    /** Duración de un tick de la rueda compartida. */
+    public static final long DEFAULT_TICK_MILLIS = 10;
+    /** Casillas de la rueda compartida (cubre unos 5 s por vuelta). */
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    // Altas que se pasan a la rueda como mucho en cada tick, para no retrasarlo
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    /**
+     * Temporizador programado en la rueda.
+     */
+    public static final class Timeout {
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final TimingWheel wheel;
+        private final Runnable task;
+        private final long deadlineNanos;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        // Sólo los toca el hilo de la rueda
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout previous;
+        private Timeout next;
+
+        private Timeout(TimingWheel wheel, Runnable task, long deadlineNanos) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * Cancela el temporizador si aún no se ejecutó.
+         *
+         * @return {@code true} si se canceló; {@code false} si ya se había ejecutado o cancelado
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(PENDING, CANCELLED)) {
+                return false;
+            }
+            wheel.cancelled.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+        private void expire() {
+            if (!state.compareAndSet(PENDING, EXPIRED)) {
+                return;
+            }
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                System.err.println("Error en una tarea del temporizador: " + e);
+            }
+        }
+    }
+
+    /**
+     * Casilla de la rueda: una lista doblemente enlazada para quitar en O(1).
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.previous = tail;
+            }
+            tail = timeout;
+        }
+
+        void remove(Timeout timeout) {
+            Timeout next = timeout.next;
+            if (timeout.previous != null) {
+                timeout.previous.next = next;
+            }
+            if (next != null) {
+                next.previous = timeout.previous;
+            }
+            if (timeout == head) {
+                head = next;
+            }
+            if (timeout == tail) {
+                tail = timeout.previous;
+            }
+            timeout.previous = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+
+    private final long tickNanos;
+    private final int mask;
+    private final Bucket[] wheel;
+    private final long startNanos;
+    private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pendingCount = new AtomicLong();
+    private final Thread worker;
+    private volatile boolean running = true;
+    private long tick;
+
+    /**
+     * Rueda compartida por todo el proceso; su hilo es un demonio.
+     */
+    private static final class Shared {
+        static final TimingWheel INSTANCE = new TimingWheel(DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS,
+                DEFAULT_WHEEL_SIZE, "TimingWheel-Shared");
+    }
+
+    // Si ya se pidió la rueda compartida, y por tanto su hilo está en marcha
+    private static volatile boolean sharedStarted;
+
+    /**
+     * Crea una rueda y arranca su hilo.
+     *
+     * @param tick La duración de un tick
+     * @param unit La unidad de {@code tick}
+     * @param wheelSize El número de casillas (potencia de dos)
+     * @param threadName El nombre del hilo de la rueda
+     */
+    public TimingWheel(long tick, TimeUnit unit, int wheelSize, String threadName) {
+        if (tick <= 0) {
+            throw new IllegalArgumentException("El tick debe ser positivo: " + tick);
+        }
+        if (wheelSize < 2 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("El número de casillas debe ser una potencia de dos: " + wheelSize);
+        }
+        this.tickNanos = unit.toNanos(tick);
+        this.mask = wheelSize - 1;
+        this.wheel = new Bucket[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.startNanos = System.nanoTime();
+
+        this.worker = new Thread(this::run, threadName);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Obtiene la rueda compartida por todas las sesiones del proceso, con ticks
+     * de {@value #DEFAULT_TICK_MILLIS} ms.
+     *
+     * @return La rueda compartida
+     */
+    public static TimingWheel shared() {
+        TimingWheel wheel = Shared.INSTANCE;
+        sharedStarted = true;
+        return wheel;
+    }
+
+    /**
+     * Obtiene la rueda compartida sólo si alguien ya la pidió, sin arrancar su
+     * hilo. Sirve para consultarla desde código que no la usa, como las estadísticas.
+     *
+     * @return La rueda compartida, o {@code null} si aún no existe
+     */
+    public static TimingWheel sharedIfStarted() {
+        return sharedStarted ? Shared.INSTANCE : null;
+    }
+
+    /**
+     * Programa una tarea.
+     *
+     * @param task La tarea, que se ejecuta en el hilo de la rueda
+     * @param delay El retraso
+     * @param unit La unidad de {@code delay}
+     * @return El temporizador, para poder cancelarlo
+     * @throws IllegalStateException si la rueda está cerrada
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (!running) {
+            throw new IllegalStateException("La rueda de temporizadores está cerrada");
+        }
+        Timeout timeout = new Timeout(this, task, System.nanoTime() + Math.max(0, unit.toNanos(delay)) - startNanos);
+        scheduled.add(timeout);
+        if (pendingCount.getAndIncrement() == 0) {
+            // El hilo puede estar dormido esperando trabajo
+            LockSupport.unpark(worker);
+        }
+        return timeout;
+    }
+
+    /**
+     * Obtiene cuántos temporizadores están programados y aún no se ejecutaron ni
+     * se quitaron de la rueda.
+     *
+     * @return El número de temporizadores pendientes
+     */
+    public long getPendingCount() {
+        return pendingCount.get();
+    }
+
+    private void run() {
+        while (running) {
+            if (pendingCount.get() == 0) {
+                LockSupport.park(this);
+                // Las casillas están vacías: se retoma en el tick actual sin recorrer los perdidos
+                tick = (System.nanoTime() - startNanos) / tickNanos;
+                continue;
+            }
+
+            waitForNextTick();
+            if (!running) {
+                break;
+            }
+            removeCancelled();
+            transferScheduled();
+            expire(wheel[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    /**
+     * Duerme hasta el final del tick actual.
+     */
+    private void waitForNextTick() {
+        long deadline = tickNanos * (tick + 1);
+        while (running) {
+            long sleep = deadline - (System.nanoTime() - startNanos);
+            if (sleep <= 0) {
+                break;
+            }
+            LockSupport.parkNanos(this, sleep);
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            // Si aún no estaba en una casilla, se descarta al pasarlo desde la cola de altas
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+                pendingCount.decrementAndGet();
+            }
+        }
+    }
+
+    private void transferScheduled() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = scheduled.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.isCancelled()) {
+                pendingCount.decrementAndGet();
+                continue;
+            }
+            long calculated = timeout.deadlineNanos / tickNanos;
+            timeout.remainingRounds = (calculated - tick) / wheel.length;
+            // Un temporizador ya vencido va a la casilla actual
+            long target = Math.max(calculated, tick);
+            wheel[(int) (target & mask)].add(timeout);
+        }
+    }
+
+    private void expire(Bucket bucket) {
+        Timeout timeout = bucket.head;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.remainingRounds <= 0) {
+                // La casilla se eligió con el instante del temporizador, que ya pasó
+                bucket.remove(timeout);
+                pendingCount.decrementAndGet();
+                timeout.expire();
+            } else if (timeout.isCancelled()) {
+                bucket.remove(timeout);
+                pendingCount.decrementAndGet();
+            } else {
+                timeout.remainingRounds--;
+            }
+            timeout = next;
+        }
+    }
+
+    /**
+     * Detiene el hilo de la rueda; los temporizadores pendientes ya no se ejecutan.
+     *
+     * @throws InterruptedException si se interrumpe la espera al hilo
+     */
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(worker);
+        worker.join();
+    }
+}
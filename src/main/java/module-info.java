@@ -1,11 +1,9 @@
 module com.example.mathrush {
     requires javafx.controls;
-    requires javafx.fxml;
+    requires java.logging;
+    requires jdk.jfr;
+    requires java.management;
+    requires jdk.httpserver;
 
-    requires org.controlsfx.controls;
-    requires com.dlsc.formsfx;
-    requires org.kordamp.bootstrapfx.core;
-
-    opens com.example.mathrush to javafx.fxml;
     exports com.example.mathrush;
-}
\ No newline at end of file
+}
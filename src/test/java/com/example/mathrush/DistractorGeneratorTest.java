@@ -0,0 +1,59 @@
+package com.example.mathrush;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DistractorGeneratorTest {
+
+    @Test
+    void optionsAreDistinctAndNearTheAnswer() {
+        DistractorGenerator generator = new DistractorGenerator(new SplittableRandom(7));
+        int[] seenCorrectIndex = new int[GameSession.OPTIONS_PER_QUESTION];
+
+        for (int round = 0; round < 10_000; round++) {
+            int answer = round % 200 - 100;
+            int[] options = new int[GameSession.OPTIONS_PER_QUESTION];
+            int correctIndex = generator.fill(answer, options);
+
+            assertEquals(answer, options[correctIndex]);
+            seenCorrectIndex[correctIndex]++;
+            Set<Integer> distinct = new HashSet<>();
+            for (int option : options) {
+                assertTrue(distinct.add(option), "Opción repetida en la ronda " + round);
+                assertTrue(Math.abs(option - answer) <= 5);
+            }
+        }
+        for (int count : seenCorrectIndex) {
+            assertTrue(count > 0, "La respuesta correcta nunca cayó en alguna posición");
+        }
+    }
+
+    @Test
+    void fillsTheLargestSupportedArrayWithEveryOffset() {
+        DistractorGenerator generator = new DistractorGenerator(new SplittableRandom(3));
+        int[] options = new int[11];
+
+        generator.fill(50, options);
+
+        int[] sorted = options.clone();
+        Arrays.sort(sorted);
+        assertArrayEquals(new int[] {45, 46, 47, 48, 49, 50, 51, 52, 53, 54, 55}, sorted);
+    }
+
+    @Test
+    void rejectsUnsupportedOptionCounts() {
+        DistractorGenerator generator = new DistractorGenerator(new SplittableRandom(1));
+
+        assertThrows(IllegalArgumentException.class, () -> generator.fill(1, new int[0]));
+        assertThrows(IllegalArgumentException.class, () -> generator.fill(1, new int[12]));
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.mathrush;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExpressionShapeTest {
+
+    private static final Expression X = Expression.operand();
+
+    private static Expression add(Expression left, Expression right) {
+        return Expression.of(Expression.Operator.ADD, left, right);
+    }
+
+    private static Expression subtract(Expression left, Expression right) {
+        return Expression.of(Expression.Operator.SUBTRACT, left, right);
+    }
+
+    private static Expression multiply(Expression left, Expression right) {
+        return Expression.of(Expression.Operator.MULTIPLY, left, right);
+    }
+
+    private static Expression divide(Expression left, Expression right) {
+        return Expression.of(Expression.Operator.DIVIDE, left, right);
+    }
+
+    private static String render(Expression expression, int... operands) {
+        return ExpressionShape.compile(expression).render(operands);
+    }
+
+    @Test
+    void parenthesesOnlyWherePrecedenceRequiresThem() {
+        assertEquals("(1 + 2) × 3 = ?", render(multiply(add(X, X), X), 1, 2, 3));
+        assertEquals("1 + 2 × 3 = ?", render(add(X, multiply(X, X)), 1, 2, 3));
+        assertEquals("1 × 2 + 3 = ?", render(add(multiply(X, X), X), 1, 2, 3));
+        assertEquals("1 + 2 + 3 = ?", render(add(X, add(X, X)), 1, 2, 3));
+        assertEquals("9 - 5 - 2 = ?", render(subtract(subtract(X, X), X), 9, 5, 2));
+        assertEquals("9 - (5 - 2) = ?", render(subtract(X, subtract(X, X)), 9, 5, 2));
+        assertEquals("9 - (5 + 2) = ?", render(subtract(X, add(X, X)), 9, 5, 2));
+        assertEquals("24 ÷ (2 × 3) = ?", render(divide(X, multiply(X, X)), 24, 2, 3));
+        assertEquals("3 × 8 ÷ 4 = ?", render(multiply(X, divide(X, X)), 3, 8, 4));
+        assertEquals("(1 + 2) × (3 - 1) = ?", render(multiply(add(X, X), subtract(X, X)), 1, 2, 3, 1));
+    }
+
+    @Test
+    void evaluatesWithTheTreeStructure() {
+        assertEquals(9, ExpressionShape.compile(multiply(add(X, X), X)).evaluate(new int[] {1, 2, 3}));
+        assertEquals(6, ExpressionShape.compile(subtract(X, subtract(X, X))).evaluate(new int[] {9, 5, 2}));
+        assertEquals(4, ExpressionShape.compile(divide(X, multiply(X, X))).evaluate(new int[] {24, 2, 3}));
+        assertThrows(ArithmeticException.class,
+                () -> ExpressionShape.compile(divide(X, X)).evaluate(new int[] {1, 0}));
+    }
+
+    @Test
+    void checkedEvaluationRejectsInvalidQuestions() {
+        ExpressionShape difference = ExpressionShape.compile(subtract(X, X));
+        ExpressionShape quotient = ExpressionShape.compile(divide(X, X));
+        ExpressionShape product = ExpressionShape.compile(multiply(X, X));
+
+        assertEquals(ExpressionShape.INVALID, difference.evaluateChecked(new int[] {2, 5}, 100));
+        assertEquals(ExpressionShape.INVALID, quotient.evaluateChecked(new int[] {7, 2}, 100));
+        assertEquals(ExpressionShape.INVALID, quotient.evaluateChecked(new int[] {7, 0}, 100));
+        assertEquals(ExpressionShape.INVALID, product.evaluateChecked(new int[] {11, 11}, 100));
+        assertEquals(ExpressionShape.INVALID, product.evaluateChecked(new int[] {100_000, 100_000}, Integer.MAX_VALUE));
+        assertEquals(100, product.evaluateChecked(new int[] {10, 10}, 100));
+    }
+
+    @Test
+    void renderedTextEvaluatesToTheSameResult() {
+        SplittableRandom random = new SplittableRandom(11);
+        int checked = 0;
+        for (int round = 0; round < 20_000; round++) {
+            Expression expression = randomTree(random, 1 + random.nextInt(4));
+            int[] operands = new int[expression.getOperandCount()];
+            for (int i = 0; i < operands.length; i++) {
+                operands[i] = 1 + random.nextInt(12);
+            }
+            ExpressionShape shape = ExpressionShape.compile(expression);
+            int result = shape.evaluateChecked(operands, 10_000);
+            if (result == ExpressionShape.INVALID) {
+                continue;
+            }
+
+            String text = shape.render(operands);
+            assertEquals(result, new TextEvaluator(text).evaluate(), text);
+            checked++;
+        }
+        assertTrue(checked > 1000, "Muy pocas expresiones válidas: " + checked);
+    }
+
+    @Test
+    void generatorBuildsValidExpressionsOfAnyDepth() {
+        QuestionGenerator generator = new QuestionGenerator(5);
+        for (int depth = 1; depth <= 12; depth++) {
+            for (int round = 0; round < 200; round++) {
+                MathQuestion question = generator.generateExpression(depth);
+                int answer = question.getCorrectAnswer();
+
+                assertEquals(QuestionTemplate.EXPRESSION, question.getTemplate());
+                assertTrue(answer >= 0 && answer <= 999, "Resultado fuera de rango: " + answer);
+                assertEquals(answer, new TextEvaluator(question.getQuestionText()).evaluate(),
+                        question.getQuestionText());
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> generator.generateExpression(0));
+    }
+
+    @Test
+    void sameShapeIsCompiledOnce() {
+        ExpressionShape first = ExpressionShape.compile(add(X, multiply(X, X)));
+        ExpressionShape second = add(X, multiply(X, X)).compile();
+
+        assertSame(first, second);
+        assertEquals(3, first.getOperandCount());
+        assertEquals(2, first.getDepth());
+    }
+
+    @Test
+    void rejectsMissingOperands() {
+        ExpressionShape shape = ExpressionShape.compile(add(X, X));
+
+        assertThrows(IllegalArgumentException.class, () -> shape.render(new int[] {1}));
+        assertThrows(IllegalArgumentException.class, () -> shape.evaluate(new int[] {1}));
+        assertThrows(IllegalArgumentException.class, () -> shape.evaluate(new int[] {1, 2}, new int[0]));
+    }
+
+    @Test
+    void sharedStackGivesTheSameResults() {
+        ExpressionShape deep = ExpressionShape.compile(multiply(add(X, X), subtract(X, divide(X, X))));
+        ExpressionShape flat = ExpressionShape.compile(add(X, X));
+        int[] stack = new int[Math.max(deep.getMaxStack(), flat.getMaxStack())];
+        int[] operands = {1, 2, 9, 8, 4};
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(deep.evaluate(operands), deep.evaluate(operands, stack));
+            assertEquals(deep.evaluateChecked(operands, 100), deep.evaluateChecked(operands, stack, 100));
+            assertEquals(3, flat.evaluate(operands, stack));
+        }
+        assertEquals(21, deep.evaluate(operands, stack));
+    }
+
+    private static Expression randomTree(SplittableRandom random, int depth) {
+        if (depth == 0 || random.nextInt(4) == 0) {
+            return X;
+        }
+        Expression.Operator[] operators = Expression.Operator.values();
+        return Expression.of(operators[random.nextInt(operators.length)],
+                randomTree(random, depth - 1), randomTree(random, depth - 1));
+    }
+
+    /**
+     * Evalúa el texto de una pregunta con las reglas habituales (precedencia y
+     * asociatividad por la izquierda), de forma independiente del árbol.
+     */
+    private static final class TextEvaluator {
+        private final String text;
+        private int position;
+
+        TextEvaluator(String text) {
+            assertTrue(text.endsWith(" = ?"), text);
+            this.text = text.substring(0, text.length() - 4).replace(" ", "");
+        }
+
+        long evaluate() {
+            long value = sum();
+            assertEquals(text.length(), position, "Texto sin consumir: " + text);
+            return value;
+        }
+
+        private long sum() {
+            long value = product();
+            while (position < text.length() && (peek() == '+' || peek() == '-')) {
+                char operator = text.charAt(position++);
+                long right = product();
+                value = operator == '+' ? value + right : value - right;
+            }
+            return value;
+        }
+
+        private long product() {
+            long value = factor();
+            while (position < text.length() && (peek() == '×' || peek() == '÷')) {
+                char operator = text.charAt(position++);
+                long right = factor();
+                if (operator == '×') {
+                    value *= right;
+                } else {
+                    assertEquals(0, value % right, "División inexacta en " + text);
+                    value /= right;
+                }
+            }
+            return value;
+        }
+
+        private long factor() {
+            if (peek() == '(') {
+                position++;
+                long value = sum();
+                assertEquals(')', text.charAt(position++), text);
+                return value;
+            }
+            int start = position;
+            while (position < text.length() && Character.isDigit(peek())) {
+                position++;
+            }
+            return Long.parseLong(text.substring(start, position));
+        }
+
+        private char peek() {
+            return text.charAt(position);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.mathrush;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameSessionTest {
+
+    private static final long START = 1_000_000_000L;
+
+    private static int wrongOption(GameSession session) {
+        return (session.getCorrectOptionIndex() + 1) % GameSession.OPTIONS_PER_QUESTION;
+    }
+
+    @Test
+    void startsWaitingForTheFirstQuestion() {
+        GameSession session = new GameSession(1);
+
+        assertEquals(GameSession.State.SHOWING_FEEDBACK, session.getState());
+        assertEquals(GameSession.INITIAL_LIVES, session.getLives());
+        assertEquals(0, session.getScore());
+        assertThrows(IllegalStateException.class, () -> session.answer(0, START));
+    }
+
+    @Test
+    void correctAnswerScoresAndKeepsLives() {
+        GameSession session = new GameSession(1);
+        session.nextQuestion(START);
+        assertEquals(GameSession.State.AWAITING_ANSWER, session.getState());
+
+        assertEquals(GameSession.Outcome.CORRECT, session.answer(session.getCorrectOptionIndex(), START + 2_000_000));
+
+        assertEquals(GameSession.State.SHOWING_FEEDBACK, session.getState());
+        assertEquals(GameSession.POINTS_PER_CORRECT_ANSWER, session.getScore());
+        assertEquals(GameSession.INITIAL_LIVES, session.getLives());
+        assertEquals(2_000_000, session.getLastReactionNanos());
+        assertTrue(session.shouldScheduleNextQuestion());
+    }
+
+    @Test
+    void incorrectAnswerCostsALife() {
+        GameSession session = new GameSession(1);
+        session.nextQuestion(START);
+
+        assertEquals(GameSession.Outcome.INCORRECT, session.answer(wrongOption(session), START + 1));
+
+        assertEquals(0, session.getScore());
+        assertEquals(GameSession.INITIAL_LIVES - 1, session.getLives());
+        assertThrows(IllegalStateException.class, () -> session.answer(0, START + 2));
+    }
+
+    @Test
+    void losingEveryLifeEndsTheGame() {
+        GameSession session = new GameSession(1);
+        long now = START;
+        for (int i = 0; i < GameSession.INITIAL_LIVES; i++) {
+            session.nextQuestion(now);
+            session.answer(wrongOption(session), ++now);
+        }
+
+        assertTrue(session.isGameOver());
+        assertFalse(session.shouldScheduleNextQuestion());
+        long end = now;
+        assertThrows(IllegalStateException.class, () -> session.nextQuestion(end));
+
+        session.reset();
+        session.nextQuestion(now);
+        assertEquals(GameSession.INITIAL_LIVES, session.getLives());
+        assertEquals(GameSession.State.AWAITING_ANSWER, session.getState());
+    }
+
+    @Test
+    void clockExpiresExactlyAtTheTimeLimit() {
+        GameSession session = new GameSession(1);
+        session.nextQuestion(START);
+
+        assertFalse(session.updateClock(START + GameSession.TIME_LIMIT_NANOS - 1));
+        assertEquals(1, session.getRemainingMillis(START + GameSession.TIME_LIMIT_NANOS - 1_000_000));
+        assertTrue(session.updateClock(START + GameSession.TIME_LIMIT_NANOS));
+
+        assertEquals(GameSession.INITIAL_LIVES - 1, session.getLives());
+        assertEquals(0, session.getRemainingMillis(START + GameSession.TIME_LIMIT_NANOS));
+        // Ya resuelta: volver a comprobar el reloj no quita otra vida
+        assertFalse(session.updateClock(START + 2 * GameSession.TIME_LIMIT_NANOS));
+        assertEquals(GameSession.INITIAL_LIVES - 1, session.getLives());
+    }
+
+    @Test
+    void answerJustBeforeTheLimitCounts() {
+        GameSession session = new GameSession(1);
+        session.nextQuestion(START);
+
+        GameSession.Outcome outcome = session.answer(session.getCorrectOptionIndex(),
+                START + GameSession.TIME_LIMIT_NANOS - 1);
+
+        assertEquals(GameSession.Outcome.CORRECT, outcome);
+        assertEquals(GameSession.POINTS_PER_CORRECT_ANSWER, session.getScore());
+    }
+
+    @Test
+    void answerAtTheLimitIsATimeout() {
+        GameSession session = new GameSession(1);
+        session.nextQuestion(START);
+
+        GameSession.Outcome outcome = session.answer(session.getCorrectOptionIndex(),
+                START + GameSession.TIME_LIMIT_NANOS);
+
+        assertEquals(GameSession.Outcome.TIMEOUT, outcome);
+        assertEquals(0, session.getScore());
+        assertEquals(GameSession.INITIAL_LIVES - 1, session.getLives());
+        assertEquals(GameSession.TIME_LIMIT_NANOS, session.getLastReactionNanos());
+    }
+
+    @Test
+    void countsIntoTheInjectedMetrics() {
+        GameMetrics metrics = new GameMetrics();
+        GameSession session = new GameSession(new GeneratedQuestionSource(1), null, metrics);
+
+        session.nextQuestion(START);
+        assertEquals(1, metrics.getActiveSessions());
+        session.answer(session.getCorrectOptionIndex(), START + 1);
+        session.nextQuestion(START + 2);
+        session.updateClock(START + 2 + GameSession.TIME_LIMIT_NANOS);
+        session.reset();
+
+        assertEquals(2, metrics.getQuestionsShown());
+        assertEquals(1, metrics.getCorrectAnswers());
+        assertEquals(1, metrics.getTimeouts());
+        assertEquals(1, metrics.getLivesLost());
+        assertEquals(1, metrics.getRestarts());
+        assertEquals(0, metrics.getActiveSessions());
+    }
+
+    @Test
+    void sameSeedPlaysTheSameGame() {
+        GameSession first = new GameSession(42);
+        GameSession second = new GameSession(42);
+        for (int i = 0; i < 50; i++) {
+            assertEquals(first.nextQuestion(START + i).getQuestionText(), second.nextQuestion(START + i).getQuestionText());
+            assertEquals(first.getCorrectOptionIndex(), second.getCorrectOptionIndex());
+            first.answer(first.getCorrectOptionIndex(), START + i);
+            second.answer(second.getCorrectOptionIndex(), START + i);
+        }
+    }
+}
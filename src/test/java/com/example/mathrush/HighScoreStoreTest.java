@@ -0,0 +1,127 @@
+package com.example.mathrush;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HighScoreStoreTest {
+
+    // Tamaños del formato del registro (ver HighScoreStore)
+    private static final int LOG_HEADER_SIZE = 8;
+    private static final int RECORD_SIZE = 16;
+
+    @TempDir
+    Path directory;
+
+    private Path logPath() {
+        return directory.resolve("scores.log");
+    }
+
+    private void appendGames(int count) throws IOException {
+        try (HighScoreStore store = HighScoreStore.open(directory)) {
+            for (int i = 0; i < count; i++) {
+                store.append(1000 + i, i * 7 % 100);
+            }
+        }
+    }
+
+    private void writeToLog(long position, byte... bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(logPath(), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(bytes), position);
+        }
+    }
+
+    @Test
+    void keepsTheBestScoresInOrder() throws IOException {
+        try (HighScoreStore store = HighScoreStore.open(directory)) {
+            assertEquals(0, store.append(1, 50));
+            assertEquals(0, store.append(2, 80));
+            // Con la misma puntuación queda primero la más antigua
+            assertEquals(2, store.append(3, 50));
+            assertEquals(3, store.append(4, 50));
+            for (int i = 0; i < HighScoreStore.TOP_K; i++) {
+                store.append(10 + i, 10);
+            }
+
+            assertEquals(HighScoreStore.TOP_K, store.getTopCount());
+            assertEquals(80, store.getTopScore(0));
+            assertEquals(1, store.getTopTimestamp(1));
+            assertEquals(3, store.getTopTimestamp(2));
+            assertEquals(-1, store.append(99, 10));
+            assertEquals(HighScoreStore.TOP_K + 5, store.getTotalGames());
+            assertThrows(IndexOutOfBoundsException.class, () -> store.getTopScore(HighScoreStore.TOP_K));
+        }
+    }
+
+    @Test
+    void reopensWithTheSameTable() throws IOException {
+        appendGames(200);
+
+        try (HighScoreStore store = HighScoreStore.open(directory)) {
+            assertEquals(200, store.getTotalGames());
+            assertEquals(HighScoreStore.TOP_K, store.getTopCount());
+            assertEquals(99, store.getTopScore(0));
+        }
+    }
+
+    @Test
+    void discardsATornTail() throws IOException {
+        appendGames(20);
+        long size = Files.size(logPath());
+        // Una escritura interrumpida deja medio registro al final
+        writeToLog(size, new byte[RECORD_SIZE / 2]);
+
+        try (HighScoreStore store = HighScoreStore.open(directory)) {
+            assertEquals(20, store.getTotalGames());
+            assertEquals(size, Files.size(logPath()));
+            store.append(5000, 1000);
+        }
+        try (HighScoreStore store = HighScoreStore.open(directory)) {
+            assertEquals(21, store.getTotalGames());
+            assertEquals(1000, store.getTopScore(0));
+        }
+    }
+
+    @Test
+    void discardsRecordsFromTheFirstBadChecksum() throws IOException {
+        appendGames(20);
+        // Sin índice se vuelve a leer todo el registro
+        Files.delete(directory.resolve("scores.idx"));
+        long damaged = LOG_HEADER_SIZE + 17L * RECORD_SIZE;
+        writeToLog(damaged + 8, (byte) 0x7F);
+
+        try (HighScoreStore store = HighScoreStore.open(directory)) {
+            assertEquals(17, store.getTotalGames());
+            assertEquals(damaged, Files.size(logPath()));
+        }
+    }
+
+    @Test
+    void discardsABadRecordAfterTheIndexedPart() throws IOException {
+        appendGames(20);
+        long size = Files.size(logPath());
+        // Un registro completo con la suma de comprobación mal
+        writeToLog(size, new byte[] {1, 0, 0, 0, 0, 0, 0, 0, 50, 0, 0, 0, 1, 2, 3, 4});
+
+        try (HighScoreStore store = HighScoreStore.open(directory)) {
+            assertEquals(20, store.getTotalGames());
+            assertEquals(size, Files.size(logPath()));
+        }
+    }
+
+    @Test
+    void rejectsAFileThatIsNotAScoreLog() throws IOException {
+        Files.write(logPath(), new byte[] {'n', 'o', 't', ' ', 'a', ' ', 'l', 'o', 'g'});
+
+        assertThrows(IOException.class, () -> HighScoreStore.open(directory));
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.mathrush;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JournalReplayTest {
+
+    private static final int GAMES = 3;
+    // Posición de la puntuación dentro de un registro (mitad alta de la cuarta palabra)
+    private static final int SCORE_OFFSET = 3 * Long.BYTES + Integer.BYTES;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Juega varias partidas seguidas con una sesión registrada en una bitácora,
+     * mezclando aciertos, fallos y tiempos agotados.
+     *
+     * @return Cuántos registros se escribieron
+     */
+    private static long playGames(Path path) throws IOException {
+        try (SessionJournal journal = new SessionJournal(path, SessionJournal.Durability.NONE,
+                SessionJournal.Overflow.BLOCK)) {
+            GameSession session = new GameSession(7);
+            session.attachJournal(journal);
+            long now = 1_000_000_000L;
+            for (int game = 0; game < GAMES; game++) {
+                if (game > 0) {
+                    session.reset();
+                }
+                for (int i = 0; !session.isGameOver(); i++) {
+                    session.nextQuestion(now);
+                    if (i % 7 == 6 - game % 2) {
+                        now += GameSession.TIME_LIMIT_NANOS;
+                        assertTrue(session.updateClock(now));
+                    } else if (i % 5 == 4 || i > 60) {
+                        now += 3_000_000;
+                        session.answer((session.getCorrectOptionIndex() + 1) % GameSession.OPTIONS_PER_QUESTION, now);
+                    } else {
+                        now += 1_000_000 + i * 10_000L;
+                        session.answer(session.getCorrectOptionIndex(), now);
+                    }
+                    now += 1_500_000_000L;
+                }
+            }
+            journal.close();
+            assertEquals(0, journal.getDroppedCount());
+            return journal.getWrittenCount();
+        }
+    }
+
+    /**
+     * Busca la primera respuesta acertada de la bitácora.
+     *
+     * @return Su número de secuencia
+     */
+    private static long firstScoringAnswer(Path path) throws IOException {
+        try (JournalReader reader = new JournalReader(path)) {
+            while (reader.next()) {
+                if (reader.getType() == SessionJournal.ANSWER && reader.getScore() > 0) {
+                    return reader.getSequence();
+                }
+            }
+        }
+        throw new AssertionError("La bitácora no tiene aciertos");
+    }
+
+    @Test
+    void cleanJournalReplaysWithoutMismatches() throws IOException {
+        Path path = directory.resolve("clean.journal");
+        long written = playGames(path);
+
+        JournalReplay replay = new JournalReplay();
+        replay.replay(path);
+
+        assertEquals(0, replay.getMismatchCount(), String.valueOf(replay.getMismatches()));
+        assertEquals(written, replay.getEventCount());
+        assertEquals(GAMES, replay.getSessionCount());
+        assertEquals(GAMES, replay.getCompletedCount());
+        assertEquals(0, replay.getSkippedCount());
+    }
+
+    @Test
+    void alteredRecordIsReported() throws IOException {
+        Path path = directory.resolve("altered.journal");
+        playGames(path);
+        long sequence = firstScoringAnswer(path);
+
+        // Se suman puntos que la sesión no dio
+        ByteBuffer score = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).putInt(0, 15);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(score, SessionJournal.FILE_HEADER_SIZE + sequence * SessionJournal.RECORD_SIZE + SCORE_OFFSET);
+        }
+
+        JournalReplay replay = new JournalReplay();
+        replay.replay(path);
+
+        assertEquals(1, replay.getMismatchCount());
+        assertTrue(replay.getMismatches().get(0).contains("registro " + sequence), replay.getMismatches().get(0));
+        // La partida alterada deja de reproducirse; las demás terminan bien
+        assertEquals(GAMES - 1, replay.getCompletedCount());
+        assertTrue(replay.getSkippedCount() > 0);
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.mathrush;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MasteryStoreTest {
+
+    // Más hechos que la capacidad inicial, para que la tabla y el montículo crezcan
+    private static final int FACTS = 150;
+
+    @TempDir
+    Path directory;
+
+    private static MathQuestion fact(int i) {
+        return MathQuestion.of(QuestionTemplate.MULTIPLICATION, 1 + i % 12, 1 + i / 12, 0);
+    }
+
+    private static MasteryStore failAll() {
+        MasteryStore store = new MasteryStore(new SplittableRandom(1));
+        for (int i = 0; i < FACTS; i++) {
+            store.record(fact(i), false);
+        }
+        return store;
+    }
+
+    @Test
+    void tableFindsEveryFactAfterGrowing() {
+        MasteryStore store = failAll();
+        store.record(fact(10), true);
+
+        assertEquals(FACTS, store.getFactCount());
+        assertEquals(FACTS, store.getScheduledCount());
+        for (int i = 0; i < FACTS; i++) {
+            assertEquals(1, store.getIncorrectCount(fact(i)));
+        }
+        assertEquals(1, store.getCorrectCount(fact(10)));
+        assertEquals(0, store.getCorrectCount(MathQuestion.of(QuestionTemplate.ADDITION, 200, 200, 0)));
+    }
+
+    @Test
+    void heapReturnsDueFactsInOrder() {
+        MasteryStore store = failAll();
+        // Avanza el turno con un hecho que nunca se falla, hasta que todos venzan
+        MathQuestion known = MathQuestion.of(QuestionTemplate.ADDITION, 1, 1, 0);
+        for (int i = 0; i < FACTS; i++) {
+            store.record(known, true);
+        }
+
+        List<String> reviews = new ArrayList<>();
+        for (int poll = 0; poll < 10 * FACTS && reviews.size() < FACTS; poll++) {
+            PreparedQuestion review = store.pollDue();
+            if (review != null) {
+                reviews.add(review.getQuestion().getQuestionText());
+            }
+        }
+
+        assertEquals(FACTS, reviews.size());
+        for (int i = 0; i < FACTS; i++) {
+            assertEquals(fact(i).getQuestionText(), reviews.get(i));
+        }
+        // Cada repaso se aplazó más allá del turno actual
+        assertNull(store.pollDue());
+    }
+
+    @Test
+    void reviewsAreSpacedByNormalQuestions() {
+        MasteryStore store = new MasteryStore(new SplittableRandom(1));
+        store.record(fact(0), false);
+        store.record(fact(1), false);
+        for (int i = 0; i < 10; i++) {
+            store.record(fact(2), true);
+        }
+
+        assertNotNull(store.pollDue());
+        assertNull(store.pollDue());
+        assertNull(store.pollDue());
+        assertNotNull(store.pollDue());
+    }
+
+    @Test
+    void factIsMasteredAfterConsecutiveReviews() {
+        MasteryStore store = new MasteryStore(new SplittableRandom(1));
+        store.record(fact(3), false);
+        assertEquals(1, store.getScheduledCount());
+
+        for (int i = 0; i < 4; i++) {
+            store.record(fact(3), true);
+        }
+
+        assertEquals(0, store.getScheduledCount());
+        assertEquals(4, store.getCorrectCount(fact(3)));
+    }
+
+    @Test
+    void questionsWithoutFixedOperandsAreNotTracked() {
+        MasteryStore store = new MasteryStore(new SplittableRandom(1));
+        MathQuestion expression = new MathQuestion("(1 + 2) × 3 = ?", 9, QuestionTemplate.EXPRESSION);
+
+        assertEquals(-1, MasteryStore.packFact(expression));
+        store.record(expression, false);
+        assertEquals(0, store.getFactCount());
+    }
+
+    @Test
+    void packedFactRoundTrips() {
+        MathQuestion question = MathQuestion.of(QuestionTemplate.DIVISION, 96, 8, 0);
+
+        MathQuestion unpacked = MasteryStore.unpackFact(MasteryStore.packFact(question));
+
+        assertEquals(question.getQuestionText(), unpacked.getQuestionText());
+        assertEquals(question.getCorrectAnswer(), unpacked.getCorrectAnswer());
+    }
+
+    @Test
+    void savedStoreLoadsWithTheSameState() throws IOException {
+        MasteryStore store = failAll();
+        for (int i = 0; i < FACTS; i += 3) {
+            store.record(fact(i), true);
+        }
+        Path path = directory.resolve("mastery.bin");
+
+        store.save(path);
+        MasteryStore loaded = MasteryStore.load(path);
+
+        assertEquals(store.getFactCount(), loaded.getFactCount());
+        assertEquals(store.getScheduledCount(), loaded.getScheduledCount());
+        assertArrayEquals(store.snapshot(), loaded.snapshot());
+        assertEquals(1, loaded.getCorrectCount(fact(3)));
+    }
+
+    @Test
+    void missingFileLoadsEmptyAndBadFileFails() throws IOException {
+        assertEquals(0, MasteryStore.load(directory.resolve("missing.bin")).getFactCount());
+
+        Path bad = directory.resolve("bad.bin");
+        Files.write(bad, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+        assertThrows(IOException.class, () -> MasteryStore.load(bad));
+    }
+}
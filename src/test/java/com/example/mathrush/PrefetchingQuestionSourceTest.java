@@ -0,0 +1,136 @@
+package com.example.mathrush;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PrefetchingQuestionSourceTest {
+
+    private static final int LOOKAHEAD = 4;
+
+    /**
+     * Numera sus preguntas en el operando a y cuenta los juegos en el operando b.
+     */
+    private static final class CountingSource implements QuestionSource {
+        int number;
+        int game;
+        int generated;
+
+        @Override
+        public PreparedQuestion next() {
+            generated++;
+            MathQuestion question = MathQuestion.of(QuestionTemplate.ADDITION, number++, game, 0);
+            return new PreparedQuestion(question, new int[] {question.getCorrectAnswer(), -1, -2, -3}, 0,
+                    QuestionGenerator.EASY_LEVEL);
+        }
+
+        @Override
+        public void reset() {
+            number = 0;
+            game++;
+        }
+    }
+
+    /**
+     * Executor que sólo ejecuta las tareas cuando la prueba lo pide.
+     */
+    private static final class ManualExecutor implements Executor {
+        final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+    }
+
+    private static void assertQuestion(int game, int number, PreparedQuestion question) {
+        assertEquals(game, question.getQuestion().getOperandB(), "Juego");
+        assertEquals(number, question.getQuestion().getOperandA(), "Pregunta");
+    }
+
+    @Test
+    void nextOnAnEmptyBufferGeneratesInline() {
+        CountingSource delegate = new CountingSource();
+        // El executor nunca ejecuta nada: todo se genera en el hilo que llama
+        PrefetchingQuestionSource source = new PrefetchingQuestionSource(delegate, task -> { }, LOOKAHEAD);
+
+        for (int i = 0; i < 10; i++) {
+            assertQuestion(0, i, source.next());
+        }
+        assertEquals(10, delegate.generated);
+    }
+
+    @Test
+    void refillKeepsLookaheadQuestionsReady() {
+        CountingSource delegate = new CountingSource();
+        ManualExecutor executor = new ManualExecutor();
+        PrefetchingQuestionSource source = new PrefetchingQuestionSource(delegate, executor, LOOKAHEAD);
+
+        executor.runAll();
+        assertEquals(LOOKAHEAD, delegate.generated);
+
+        assertQuestion(0, 0, source.next());
+        assertQuestion(0, 1, source.next());
+        // Se sacaron del búfer sin generar en el hilo que llama
+        assertEquals(LOOKAHEAD, delegate.generated);
+
+        executor.runAll();
+        assertEquals(LOOKAHEAD + 2, delegate.generated);
+        for (int i = 2; i < 2 + LOOKAHEAD; i++) {
+            assertQuestion(0, i, source.next());
+        }
+    }
+
+    @Test
+    void resetDiscardsQuestionsOfThePreviousGame() {
+        CountingSource delegate = new CountingSource();
+        ManualExecutor executor = new ManualExecutor();
+        PrefetchingQuestionSource source = new PrefetchingQuestionSource(delegate, executor, LOOKAHEAD);
+        executor.runAll();
+        assertQuestion(0, 0, source.next());
+
+        source.reset();
+        assertQuestion(1, 0, source.next());
+        executor.runAll();
+        assertQuestion(1, 1, source.next());
+        assertQuestion(1, 2, source.next());
+    }
+
+    @Test
+    void backgroundProducerKeepsTheDelegateOrder() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            PrefetchingQuestionSource source = new PrefetchingQuestionSource(new CountingSource(), executor, 3);
+            for (int game = 0; game < 5; game++) {
+                if (game > 0) {
+                    source.reset();
+                }
+                for (int i = 0; i < 2000; i++) {
+                    assertQuestion(game, i, source.next());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void rejectsANonPositiveLookahead() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new PrefetchingQuestionSource(new CountingSource(), task -> { }, 0));
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.mathrush;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class QuestionBankTest {
+
+    // Una plantilla distinta por nivel para reconocer de qué nivel es cada pregunta
+    private static final QuestionTemplate[] LEVEL_TEMPLATES = {
+        QuestionTemplate.ADDITION,
+        QuestionTemplate.COMBINED_ADD_SUBTRACT,
+        QuestionTemplate.PARENTHESIS_ADD_MULTIPLY
+    };
+    private static final int[] LEVEL_SIZES = {30, 0, 45};
+
+    @TempDir
+    Path directory;
+
+    private Path bankPath() {
+        return directory.resolve("questions.bank");
+    }
+
+    /**
+     * Escribe un banco cuyas preguntas numeran su posición en el operando a.
+     */
+    private void writeBank() throws IOException {
+        try (QuestionBankWriter writer = new QuestionBankWriter(bankPath())) {
+            int index = 0;
+            for (int level = 0; level < LEVEL_SIZES.length; level++) {
+                for (int i = 0; i < LEVEL_SIZES[level]; i++) {
+                    writer.write(MathQuestion.of(LEVEL_TEMPLATES[level], index++, 3, 2), level);
+                }
+            }
+            assertEquals(index, writer.getWrittenCount());
+        }
+    }
+
+    private void writeToBank(long position, ByteBuffer bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(bankPath(), StandardOpenOption.WRITE)) {
+            channel.write(bytes, position);
+        }
+    }
+
+    private static long recordPosition(long index) {
+        return QuestionBank.HEADER_SIZE + index * QuestionBank.RECORD_SIZE;
+    }
+
+    @Test
+    void roundTripsEveryQuestion() throws IOException {
+        writeBank();
+        QuestionBank bank = QuestionBank.open(bankPath());
+
+        assertEquals(75, bank.size());
+        for (int level = 0; level < LEVEL_SIZES.length; level++) {
+            assertEquals(LEVEL_SIZES[level], bank.size(level));
+        }
+        for (int i = 0; i < bank.size(); i++) {
+            MathQuestion question = bank.get(i);
+            QuestionTemplate template = LEVEL_TEMPLATES[i < 30 ? 0 : 2];
+            MathQuestion expected = MathQuestion.of(template, i, 3, 2);
+            assertEquals(template, question.getTemplate());
+            assertEquals(expected.getQuestionText(), question.getQuestionText());
+            assertEquals(expected.getCorrectAnswer(), question.getCorrectAnswer());
+            assertEquals(i, question.getOperandA());
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> bank.get(75));
+        assertThrows(IllegalArgumentException.class, () -> bank.size(QuestionGenerator.LEVEL_COUNT));
+    }
+
+    @Test
+    void pickReturnsOnlyTheRequestedLevel() throws IOException {
+        writeBank();
+        QuestionBank bank = QuestionBank.open(bankPath());
+        SplittableRandom random = new SplittableRandom(3);
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(QuestionGenerator.EASY_LEVEL,
+                    bank.pick(QuestionGenerator.EASY_LEVEL, random).getTemplate().getDifficultyLevel());
+            assertEquals(QuestionGenerator.HARD_LEVEL,
+                    bank.pick(QuestionGenerator.HARD_LEVEL, random).getTemplate().getDifficultyLevel());
+        }
+        assertThrows(IllegalStateException.class, () -> bank.pick(QuestionGenerator.MEDIUM_LEVEL, random));
+    }
+
+    @Test
+    void writerRequiresLevelOrder() throws IOException {
+        try (QuestionBankWriter writer = new QuestionBankWriter(bankPath())) {
+            writer.write(MathQuestion.of(QuestionTemplate.ADDITION, 1, 2, 0), QuestionGenerator.HARD_LEVEL);
+
+            assertThrows(IllegalStateException.class,
+                    () -> writer.write(MathQuestion.of(QuestionTemplate.ADDITION, 1, 2, 0), QuestionGenerator.EASY_LEVEL));
+            assertThrows(IllegalArgumentException.class,
+                    () -> writer.write(new MathQuestion("1 + 1 = ?", 2, QuestionTemplate.EXPRESSION), QuestionGenerator.HARD_LEVEL));
+        }
+    }
+
+    @Test
+    void rejectsABadHeader() throws IOException {
+        writeBank();
+        writeToBank(0, ByteBuffer.wrap(new byte[] {'n', 'o', 'p', 'e'}));
+
+        assertThrows(IOException.class, () -> QuestionBank.open(bankPath()));
+    }
+
+    @Test
+    void rejectsAnIndexThatDoesNotAddUp() throws IOException {
+        writeBank();
+        ByteBuffer count = ByteBuffer.allocate(8).order(QuestionBank.BYTE_ORDER).putLong(0, 10);
+        writeToBank(QuestionBank.LEVEL_INDEX_OFFSET + 8, count);
+
+        assertThrows(IOException.class, () -> QuestionBank.open(bankPath()));
+    }
+
+    @Test
+    void damagedRecordsAreReportedWhenRead() throws IOException {
+        writeBank();
+        // Plantilla desconocida, plantilla sin operandos fijos y respuesta cambiada
+        writeToBank(recordPosition(1) + QuestionBank.TEMPLATE_OFFSET, ByteBuffer.wrap(new byte[] {99}));
+        writeToBank(recordPosition(2) + QuestionBank.TEMPLATE_OFFSET,
+                ByteBuffer.wrap(new byte[] {(byte) QuestionTemplate.EXPRESSION.ordinal()}));
+        ByteBuffer answer = ByteBuffer.allocate(4).order(QuestionBank.BYTE_ORDER).putInt(0, 12345);
+        writeToBank(recordPosition(3) + QuestionBank.ANSWER_OFFSET, answer);
+
+        QuestionBank bank = QuestionBank.open(bankPath());
+        bank.get(0);
+        assertThrows(IllegalStateException.class, () -> bank.get(1));
+        assertThrows(IllegalStateException.class, () -> bank.get(2));
+        assertThrows(IllegalStateException.class, () -> bank.get(3));
+        bank.get(4);
+    }
+}
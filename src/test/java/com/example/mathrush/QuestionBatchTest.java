@@ -0,0 +1,85 @@
+package com.example.mathrush;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class QuestionBatchTest {
+
+    // Varios bloques y uno final incompleto
+    private static final int COUNT = 5 * QuestionBatch.CHUNK_SIZE + 123;
+
+    private static MathQuestion[] generate(int parallelism, int difficulty, long seed) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return QuestionBatch.generateBatch(COUNT, difficulty, seed, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void assertSameQuestions(MathQuestion[] expected, MathQuestion[] actual) {
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i].getQuestionText(), actual[i].getQuestionText(), "Pregunta " + i);
+            assertEquals(expected[i].getCorrectAnswer(), actual[i].getCorrectAnswer(), "Pregunta " + i);
+        }
+    }
+
+    @Test
+    void outputDoesNotDependOnParallelism() {
+        for (int difficulty = QuestionGenerator.EASY_LEVEL; difficulty <= QuestionGenerator.HARD_LEVEL; difficulty++) {
+            MathQuestion[] sequential = generate(1, difficulty, 99);
+
+            assertSameQuestions(sequential, generate(2, difficulty, 99));
+            assertSameQuestions(sequential, generate(7, difficulty, 99));
+            assertSameQuestions(sequential, QuestionBatch.generateBatch(COUNT, difficulty, 99));
+        }
+    }
+
+    @Test
+    void chunksMatchTheBatch() {
+        MathQuestion[] batch = generate(4, QuestionGenerator.MEDIUM_LEVEL, 5);
+        MathQuestion[] chunk = new MathQuestion[QuestionBatch.CHUNK_SIZE];
+
+        QuestionBatch.generateChunk(5, QuestionGenerator.MEDIUM_LEVEL, 2, chunk, 0, chunk.length);
+
+        for (int i = 0; i < chunk.length; i++) {
+            assertEquals(batch[2 * QuestionBatch.CHUNK_SIZE + i].getQuestionText(), chunk[i].getQuestionText());
+        }
+    }
+
+    @Test
+    void differentSeedsGiveDifferentBatches() {
+        MathQuestion[] first = generate(2, QuestionGenerator.HARD_LEVEL, 1);
+        MathQuestion[] second = generate(2, QuestionGenerator.HARD_LEVEL, 2);
+
+        int same = 0;
+        for (int i = 0; i < COUNT; i++) {
+            if (first[i].getQuestionText().equals(second[i].getQuestionText())) {
+                same++;
+            }
+        }
+        assertNotEquals(COUNT, same);
+    }
+
+    @Test
+    void handlesEmptyAndNegativeCounts() {
+        assertEquals(0, QuestionBatch.generateBatch(0, QuestionGenerator.EASY_LEVEL, 1).length);
+        assertThrows(IllegalArgumentException.class,
+                () -> QuestionBatch.generateBatch(-1, QuestionGenerator.EASY_LEVEL, 1));
+    }
+
+    @Test
+    void rejectsInvalidDifficulty() {
+        assertThrows(IllegalArgumentException.class, () -> QuestionBatch.generateBatch(10, -1, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> QuestionBatch.generateBatch(10, QuestionGenerator.LEVEL_COUNT, 1));
+        // También sin preguntas que generar
+        assertThrows(IllegalArgumentException.class, () -> QuestionBatch.generateBatch(0, 3, 1));
+    }
+}
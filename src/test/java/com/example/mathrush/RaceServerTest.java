@@ -0,0 +1,312 @@
+package com.example.mathrush;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RaceServerTest {
+
+    private static final InetSocketAddress LOCALHOST = new InetSocketAddress("127.0.0.1", 0);
+    private static final long SEED = 2024;
+    private static final int POINTS = GameSession.POINTS_PER_CORRECT_ANSWER;
+
+    private static <T> T take(BlockingQueue<T> queue) throws InterruptedException {
+        T value = queue.poll(5, TimeUnit.SECONDS);
+        assertNotNull(value, "El servidor no envió el mensaje a tiempo");
+        return value;
+    }
+
+    private static void await(CountDownLatch latch) throws InterruptedException {
+        assertTrue(latch.await(5, TimeUnit.SECONDS), "El servidor no envió el mensaje a tiempo");
+    }
+
+    private static RaceClient connect(RaceServer server, String name, Recorder recorder) throws IOException {
+        return new RaceClient("127.0.0.1", server.getPort(), name, recorder);
+    }
+
+    /**
+     * Comprueba la pregunta recibida contra la misma secuencia que usa el servidor.
+     */
+    private static void assertQuestion(PreparedQuestion expected, int round, Question actual) {
+        assertEquals(round, actual.round);
+        assertEquals(expected.getQuestion().getQuestionText(), actual.text);
+        assertEquals(expected.getOptionCount(), actual.options.length);
+        for (int i = 0; i < actual.options.length; i++) {
+            assertEquals(expected.getOption(i), actual.options[i]);
+        }
+    }
+
+    private static void assertRanking(RaceClient.Ranking ranking, int rank, int playerCount, int score,
+                                      String[] topNames, int[] topScores) {
+        assertEquals(rank, ranking.getRank());
+        assertEquals(playerCount, ranking.getPlayerCount());
+        assertEquals(score, ranking.getScore());
+        assertEquals(topNames.length, ranking.getTopCount());
+        for (int i = 0; i < topNames.length; i++) {
+            assertEquals(topNames[i], ranking.getTopName(i), "Puesto " + (i + 1));
+            assertEquals(topScores[i], ranking.getTopScore(i), "Puesto " + (i + 1));
+        }
+    }
+
+    @Test
+    void raceSendsQuestionsResultsAndTheFinalRanking() throws Exception {
+        int questionCount = 3;
+        QuestionSource expected = new GeneratedQuestionSource(SEED);
+        try (RaceServer server = new RaceServer(LOCALHOST, questionCount, 3, SEED, 5000, 0)) {
+            server.start();
+            Recorder ana = new Recorder();
+            Recorder ben = new Recorder();
+            Recorder eva = new Recorder();
+            try (RaceClient anaClient = connect(server, "Ana", ana);
+                 RaceClient benClient = connect(server, "Ben", ben);
+                 RaceClient evaClient = connect(server, "Eva", eva)) {
+                Set<Integer> ids = new HashSet<>();
+                for (Recorder recorder : new Recorder[] {ana, ben, eva}) {
+                    int[] welcome = take(recorder.welcomes);
+                    ids.add(welcome[0]);
+                    assertEquals(questionCount, welcome[1]);
+                }
+                assertEquals(3, ids.size(), "Los identificadores deben ser distintos");
+
+                for (int round = 0; round < questionCount; round++) {
+                    PreparedQuestion question = expected.next();
+                    int correct = question.getCorrectIndex();
+                    for (Recorder recorder : new Recorder[] {ana, ben, eva}) {
+                        Question received = take(recorder.questions);
+                        assertQuestion(question, round, received);
+                        assertEquals(5000, received.timeLimitMillis);
+                    }
+
+                    // Ana y Ben aciertan, pero Ben responde después de recibir Ana su resultado
+                    anaClient.answer(round, correct);
+                    assertArrayEquals(new int[] {round, 1, correct, POINTS * (round + 1)}, take(ana.results));
+                    benClient.answer(round, correct);
+                    assertArrayEquals(new int[] {round, 1, correct, POINTS * (round + 1)}, take(ben.results));
+                    evaClient.answer(round, (correct + 1) % question.getOptionCount());
+                    assertArrayEquals(new int[] {round, 0, correct, 0}, take(eva.results));
+                }
+
+                assertTrue(server.awaitRaceOver(5, TimeUnit.SECONDS));
+                await(ana.raceOver);
+                await(ben.raceOver);
+                await(eva.raceOver);
+            }
+
+            // El empate a puntos lo decide el tiempo total de los aciertos
+            String[] names = {"Ana", "Ben", "Eva"};
+            int[] scores = {POINTS * questionCount, POINTS * questionCount, 0};
+            assertRanking(ana.finalRanking, 1, 3, POINTS * questionCount, names, scores);
+            assertRanking(ben.finalRanking, 2, 3, POINTS * questionCount, names, scores);
+            assertRanking(eva.finalRanking, 3, 3, 0, names, scores);
+            assertEquals(questionCount - 1, ana.finalRanking.getRound());
+            assertEquals(3L * questionCount, server.getAnswerCount());
+            assertEquals(0, server.getSlowClientCount());
+        }
+    }
+
+    @Test
+    void lateJoinerWaitsForTheNextRound() throws Exception {
+        QuestionSource expected = new GeneratedQuestionSource(SEED);
+        // Con un límite tan largo, la ronda sólo termina a tiempo si no se espera al recién llegado
+        try (RaceServer server = new RaceServer(LOCALHOST, 2, 1, SEED, 60_000, 0)) {
+            server.start();
+            Recorder ana = new Recorder();
+            Recorder ben = new Recorder();
+            try (RaceClient anaClient = connect(server, "Ana", ana)) {
+                PreparedQuestion first = expected.next();
+                assertQuestion(first, 0, take(ana.questions));
+
+                try (RaceClient benClient = connect(server, "Ben", ben)) {
+                    take(ben.welcomes);
+                    anaClient.answer(0, first.getCorrectIndex());
+                    assertEquals(0, take(ana.results)[0]);
+
+                    PreparedQuestion second = expected.next();
+                    assertQuestion(second, 1, take(ana.questions));
+                    assertQuestion(second, 1, take(ben.questions));
+                    assertTrue(ben.results.isEmpty(), "Ben recibió el resultado de una pregunta que no vio");
+
+                    anaClient.answer(1, second.getCorrectIndex());
+                    benClient.answer(1, second.getCorrectIndex());
+                    assertEquals(1, take(ana.results)[0]);
+                    assertEquals(1, take(ben.results)[0]);
+                    assertTrue(server.awaitRaceOver(5, TimeUnit.SECONDS));
+                    await(ben.raceOver);
+                }
+            }
+
+            assertRanking(ben.finalRanking, 2, 2, POINTS, new String[] {"Ana", "Ben"}, new int[] {2 * POINTS, POINTS});
+            assertTrue(ben.results.isEmpty());
+        }
+    }
+
+    @Test
+    void slowClientIsDisconnected() throws Exception {
+        // Rondas de 1 ms para que las preguntas se acumulen deprisa
+        try (RaceServer server = new RaceServer(LOCALHOST, 1_000_000, 1, SEED, 1, 0);
+             Socket socket = new Socket()) {
+            server.start();
+            socket.setReceiveBufferSize(1024);
+            socket.connect(new InetSocketAddress("127.0.0.1", server.getPort()));
+            sendHello(new DataOutputStream(socket.getOutputStream()), "Lento");
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+            while (server.getSlowClientCount() == 0 && System.nanoTime() - deadline < 0) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, server.getSlowClientCount());
+            assertEquals(0, server.getPlayerCount());
+        }
+    }
+
+    @Test
+    void wireFormatMatchesTheProtocol() throws Exception {
+        try (RaceServer server = new RaceServer(LOCALHOST, 7, 0, SEED);
+             Socket socket = new Socket()) {
+            server.start();
+            socket.connect(new InetSocketAddress("127.0.0.1", server.getPort()));
+            socket.setSoTimeout(5000);
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            sendHello(out, "Raw");
+
+            assertEquals(1 + 4 + 2, in.readUnsignedShort());
+            assertEquals(RaceProtocol.WELCOME, in.readByte());
+            assertEquals(1, in.readInt());
+            assertEquals(7, in.readUnsignedShort());
+
+            // Clasificación de antes de la carrera: ronda -1 y un único jugador
+            assertEquals(1 + 4 + 2 + 2 + 4 + 1 + (4 + 1 + 3), in.readUnsignedShort());
+            assertEquals(RaceProtocol.RANKING, in.readByte());
+            assertEquals(-1, in.readInt());
+            assertEquals(1, in.readUnsignedShort());
+            assertEquals(1, in.readUnsignedShort());
+            assertEquals(0, in.readInt());
+            assertEquals(1, in.readUnsignedByte());
+            assertEquals(0, in.readInt());
+            byte[] name = new byte[in.readUnsignedByte()];
+            in.readFully(name);
+            assertEquals("Raw", new String(name, StandardCharsets.UTF_8));
+
+            // Una trama vacía no es del protocolo: el servidor corta la conexión
+            out.writeShort(0);
+            out.flush();
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    void framesCountTypeAndPayload() {
+        ByteBuffer buffer = ByteBuffer.allocate(2 * RaceProtocol.MAX_FRAME_LENGTH);
+        buffer.put((byte) 99);
+        int frame = RaceProtocol.beginFrame(buffer, RaceProtocol.RESULT);
+        buffer.putInt(4).put((byte) 1).put((byte) 2).putInt(30);
+        RaceProtocol.endFrame(buffer, frame);
+
+        assertEquals(1, frame);
+        assertEquals(1 + 10, buffer.getShort(frame));
+        assertEquals(RaceProtocol.RESULT, buffer.get(frame + 2));
+        assertEquals(frame + RaceProtocol.HEADER_SIZE + 10, buffer.position());
+
+        buffer.clear();
+        int tooLong = RaceProtocol.beginFrame(buffer, RaceProtocol.QUESTION);
+        buffer.put(new byte[RaceProtocol.MAX_FRAME_LENGTH]);
+        assertThrows(IllegalArgumentException.class, () -> RaceProtocol.endFrame(buffer, tooLong));
+    }
+
+    @Test
+    void namesAreTrimmedWithoutSplittingCharacters() {
+        assertArrayEquals("Ana".getBytes(StandardCharsets.UTF_8), RaceProtocol.encodeName("  Ana "));
+        // 20 «ñ» ocupan 40 bytes; caben 16
+        assertEquals("ñ".repeat(16), new String(RaceProtocol.encodeName("ñ".repeat(20)), StandardCharsets.UTF_8));
+        // Cada emoji ocupa 4 bytes y dos caracteres de Java
+        String emoji = "😀";
+        assertEquals(emoji.repeat(8), new String(RaceProtocol.encodeName(emoji.repeat(9)), StandardCharsets.UTF_8));
+    }
+
+    private static void sendHello(DataOutputStream out, String name) throws IOException {
+        byte[] bytes = RaceProtocol.encodeName(name);
+        out.writeShort(1 + bytes.length);
+        out.writeByte(RaceProtocol.HELLO);
+        out.write(bytes);
+        out.flush();
+    }
+
+    /**
+     * Pregunta tal como la decodificó el cliente.
+     */
+    private static final class Question {
+        final int round;
+        final String text;
+        final int[] options;
+        final int timeLimitMillis;
+
+        Question(int round, String text, int[] options, int timeLimitMillis) {
+            this.round = round;
+            this.text = text;
+            this.options = options;
+            this.timeLimitMillis = timeLimitMillis;
+        }
+    }
+
+    /**
+     * Guarda los mensajes que recibe un cliente para comprobarlos desde el hilo de la prueba.
+     */
+    private static final class Recorder implements RaceClient.Listener {
+        final BlockingQueue<int[]> welcomes = new LinkedBlockingQueue<>();
+        final BlockingQueue<Question> questions = new LinkedBlockingQueue<>();
+        // Ronda, acierto (0 o 1), opción correcta y puntuación
+        final BlockingQueue<int[]> results = new LinkedBlockingQueue<>();
+        final CountDownLatch raceOver = new CountDownLatch(1);
+        volatile RaceClient.Ranking lastRanking;
+        volatile RaceClient.Ranking finalRanking;
+
+        @Override
+        public void onWelcome(int playerId, int questionCount) {
+            welcomes.add(new int[] {playerId, questionCount});
+        }
+
+        @Override
+        public void onQuestion(int round, String text, int[] options, int timeLimitMillis) {
+            questions.add(new Question(round, text, options, timeLimitMillis));
+        }
+
+        @Override
+        public void onResult(int round, boolean correct, int correctIndex, int score) {
+            results.add(new int[] {round, correct ? 1 : 0, correctIndex, score});
+        }
+
+        @Override
+        public void onRanking(RaceClient.Ranking ranking) {
+            lastRanking = ranking;
+        }
+
+        @Override
+        public void onRaceOver() {
+            finalRanking = lastRanking;
+            raceOver.countDown();
+        }
+
+        @Override
+        public void onDisconnected(IOException error) {
+        }
+    }
+}
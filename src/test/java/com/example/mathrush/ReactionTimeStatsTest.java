@@ -0,0 +1,123 @@
+package com.example.mathrush;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReactionTimeStatsTest {
+
+    private static final int EASY = QuestionGenerator.EASY_LEVEL;
+    private static final int HARD = QuestionGenerator.HARD_LEVEL;
+
+    private static long millis(long value) {
+        return TimeUnit.MILLISECONDS.toNanos(value);
+    }
+
+    /**
+     * Valor que devuelve un percentil cuya muestra es {@code value}.
+     */
+    private static long reported(long value) {
+        return ReactionTimeStats.bucketUpperBound(ReactionTimeStats.bucketIndex(value));
+    }
+
+    @Test
+    void bucketsCoverEveryValueWithBoundedError() {
+        int previous = -1;
+        for (long value = 0; value <= ReactionTimeStats.MAX_TRACKABLE_MILLIS; value++) {
+            int index = ReactionTimeStats.bucketIndex(value);
+            long upper = ReactionTimeStats.bucketUpperBound(index);
+
+            assertTrue(index == previous || index == previous + 1, "Cubetas no consecutivas en " + value);
+            assertTrue(upper >= value, "El límite superior no incluye " + value);
+            assertTrue((upper - value) * 16 <= value, "Error mayor que 1/16 en " + value);
+            previous = index;
+        }
+        assertEquals(ReactionTimeStats.BUCKET_COUNT - 1, previous);
+    }
+
+    @Test
+    void smallValuesAreExactAndLargeOnesAreClamped() {
+        for (int value = 0; value < 32; value++) {
+            assertEquals(value, ReactionTimeStats.bucketIndex(value));
+            assertEquals(value, ReactionTimeStats.bucketUpperBound(value));
+        }
+        // A partir de 32 cada cubeta abarca dos valores, a partir de 64 cuatro...
+        assertEquals(32, ReactionTimeStats.bucketIndex(32));
+        assertEquals(32, ReactionTimeStats.bucketIndex(33));
+        assertEquals(33, ReactionTimeStats.bucketUpperBound(32));
+        assertEquals(67, ReactionTimeStats.bucketUpperBound(ReactionTimeStats.bucketIndex(64)));
+
+        int last = ReactionTimeStats.BUCKET_COUNT - 1;
+        assertEquals(last, ReactionTimeStats.bucketIndex(ReactionTimeStats.MAX_TRACKABLE_MILLIS + 1));
+        assertEquals(last, ReactionTimeStats.bucketIndex(Long.MAX_VALUE));
+        assertEquals(ReactionTimeStats.MAX_TRACKABLE_MILLIS, ReactionTimeStats.bucketUpperBound(last));
+        // Sin límite práctico, como en LatencyHistogram
+        assertEquals(Long.MAX_VALUE,
+                ReactionTimeStats.bucketUpperBound(ReactionTimeStats.bucketIndex(Long.MAX_VALUE, Long.MAX_VALUE)));
+    }
+
+    @Test
+    void percentilesFollowTheRecordedTimes() {
+        ReactionTimeStats stats = new ReactionTimeStats();
+        for (int value = 1; value <= 100; value++) {
+            stats.record(QuestionTemplate.ADDITION, EASY, millis(value));
+        }
+
+        assertEquals(100, stats.getCount(QuestionTemplate.ADDITION, EASY));
+        assertEquals(reported(1), stats.getPercentileMillis(QuestionTemplate.ADDITION, EASY, 0));
+        assertEquals(reported(50), stats.getPercentileMillis(QuestionTemplate.ADDITION, EASY, 50));
+        assertEquals(reported(90), stats.getPercentileMillis(QuestionTemplate.ADDITION, EASY, 90));
+        assertEquals(reported(99), stats.getPercentileMillis(QuestionTemplate.ADDITION, EASY, 99));
+        assertEquals(reported(100), stats.getPercentileMillis(QuestionTemplate.ADDITION, EASY, 100));
+    }
+
+    @Test
+    void histogramsAreKeptPerTemplateAndLevel() {
+        ReactionTimeStats stats = new ReactionTimeStats();
+        stats.record(QuestionTemplate.ADDITION, EASY, millis(10));
+        stats.record(QuestionTemplate.ADDITION, HARD, millis(3000));
+        stats.record(QuestionTemplate.EXPONENT, HARD, millis(5));
+        // Menos de un milisegundo cuenta como 0 y los negativos también
+        stats.record(QuestionTemplate.DIVISION, EASY, 999_999);
+        stats.record(QuestionTemplate.DIVISION, EASY, -5);
+
+        assertEquals(1, stats.getCount(QuestionTemplate.ADDITION, EASY));
+        assertEquals(0, stats.getCount(QuestionTemplate.ADDITION, QuestionGenerator.MEDIUM_LEVEL));
+        assertEquals(10, stats.getPercentileMillis(QuestionTemplate.ADDITION, EASY, 100));
+        assertEquals(reported(3000), stats.getPercentileMillis(QuestionTemplate.ADDITION, 100));
+        assertEquals(10, stats.getPercentileMillis(QuestionTemplate.ADDITION, 50));
+        assertEquals(reported(3000), stats.getPercentileMillis(HARD, 100));
+        assertEquals(5, stats.getPercentileMillis(HARD, 50));
+        assertEquals(0, stats.getPercentileMillis(QuestionTemplate.DIVISION, EASY, 100));
+        assertEquals(0, stats.getPercentileMillis(QuestionTemplate.MULTIPLICATION, 50));
+
+        stats.clear();
+        assertEquals(0, stats.getCount(QuestionTemplate.ADDITION, EASY));
+        assertEquals(0, stats.getPercentileMillis(HARD, 100));
+    }
+
+    @Test
+    void veryLongTimesLandInTheLastBucket() {
+        ReactionTimeStats stats = new ReactionTimeStats();
+        stats.record(QuestionTemplate.ADDITION, EASY, TimeUnit.HOURS.toNanos(1));
+
+        assertEquals(ReactionTimeStats.MAX_TRACKABLE_MILLIS, stats.getPercentileMillis(QuestionTemplate.ADDITION, 50));
+    }
+
+    @Test
+    void rejectsOutOfRangeLevelsAndPercentiles() {
+        ReactionTimeStats stats = new ReactionTimeStats();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> stats.record(QuestionTemplate.ADDITION, QuestionGenerator.LEVEL_COUNT, millis(1)));
+        assertThrows(IllegalArgumentException.class, () -> stats.record(QuestionTemplate.ADDITION, -1, millis(1)));
+        assertThrows(IllegalArgumentException.class, () -> stats.getCount(QuestionTemplate.ADDITION, 3));
+        assertThrows(IllegalArgumentException.class, () -> stats.getPercentileMillis(-1, 50));
+        assertThrows(IllegalArgumentException.class, () -> stats.getPercentileMillis(QuestionTemplate.ADDITION, 101));
+        assertThrows(IllegalArgumentException.class, () -> stats.getPercentileMillis(EASY, -0.5));
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.mathrush;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionJournalTest {
+
+    private static final int PRODUCERS = 4;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Registra desde varios hilos a la vez; cada hilo es una partida y numera sus
+     * registros en el campo de las vidas.
+     *
+     * @return Cuántos registros se aceptaron
+     */
+    private static long writeConcurrently(SessionJournal journal, int perProducer) throws InterruptedException {
+        AtomicLong accepted = new AtomicLong();
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            int sessionId = journal.newSessionId();
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    if (journal.lifeLost(sessionId, i, i, 0)) {
+                        accepted.incrementAndGet();
+                    }
+                }
+            });
+            producers.add(producer);
+            producer.start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        return accepted.get();
+    }
+
+    /**
+     * Lee la bitácora comprobando que los registros están en el orden de sus
+     * secuencias, sin huecos, y que cada partida conserva su propio orden.
+     *
+     * @return El número de registros leídos
+     */
+    private static long readInOrder(Path path) throws IOException {
+        int[] lastBySession = new int[PRODUCERS + 1];
+        Arrays.fill(lastBySession, -1);
+        try (JournalReader reader = new JournalReader(path)) {
+            long expected = 0;
+            while (reader.next()) {
+                assertEquals(expected++, reader.getSequence());
+                assertEquals(SessionJournal.LIFE_LOST, reader.getType());
+                int session = reader.getSessionId();
+                assertTrue(reader.getLives() > lastBySession[session], "Registros de la partida fuera de orden");
+                lastBySession[session] = reader.getLives();
+            }
+            return expected;
+        }
+    }
+
+    @Test
+    void blockingJournalKeepsEveryRecordInOrder() throws Exception {
+        Path path = directory.resolve("block.journal");
+        SessionJournal journal = new SessionJournal(path, SessionJournal.Durability.NONE,
+                SessionJournal.Overflow.BLOCK, 64);
+
+        long accepted = writeConcurrently(journal, 20_000);
+        journal.close();
+
+        assertEquals(PRODUCERS * 20_000L, accepted);
+        assertEquals(0, journal.getDroppedCount());
+        assertEquals(accepted, journal.getWrittenCount());
+        assertEquals(0, journal.getPendingCount());
+        assertEquals(accepted, readInOrder(path));
+    }
+
+    @Test
+    void droppingJournalCountsEveryLostRecord() throws Exception {
+        Path path = directory.resolve("drop.journal");
+        // Un anillo mínimo para que se llene continuamente
+        SessionJournal journal = new SessionJournal(path, SessionJournal.Durability.NONE,
+                SessionJournal.Overflow.DROP, 2);
+
+        long accepted = writeConcurrently(journal, 20_000);
+        journal.close();
+
+        assertEquals(PRODUCERS * 20_000L, accepted + journal.getDroppedCount());
+        assertEquals(accepted, journal.getWrittenCount());
+        assertEquals(accepted, readInOrder(path));
+    }
+
+    @Test
+    void recordsAfterCloseAreDropped() throws IOException {
+        SessionJournal journal = new SessionJournal(directory.resolve("closed.journal"),
+                SessionJournal.Durability.BATCH, SessionJournal.Overflow.BLOCK);
+        journal.close();
+
+        assertFalse(journal.gameStarted(journal.newSessionId(), 3, 0));
+        assertEquals(1, journal.getDroppedCount());
+    }
+
+    @Test
+    void questionRecordRoundTrips() throws IOException {
+        Path path = directory.resolve("question.journal");
+        MathQuestion math = MathQuestion.of(QuestionTemplate.MULTIPLICATION, 7, 8, 0);
+        PreparedQuestion question = new PreparedQuestion(math, new int[] {54, 56, 59, 51}, 1,
+                QuestionGenerator.EASY_LEVEL);
+        try (SessionJournal journal = new SessionJournal(path, SessionJournal.Durability.INTERVAL,
+                SessionJournal.Overflow.BLOCK)) {
+            int sessionId = journal.newSessionId();
+            journal.questionShown(sessionId, 123, question, true, 2, 30);
+            journal.answered(sessionId, 456, 3, 333, 1, 30);
+        }
+
+        try (JournalReader reader = new JournalReader(path)) {
+            assertTrue(reader.next());
+            assertEquals(SessionJournal.QUESTION_SHOWN, reader.getType());
+            assertEquals(QuestionTemplate.MULTIPLICATION, reader.getTemplate());
+            assertEquals(123, reader.getNanos());
+            assertEquals(56, reader.getAnswer());
+            assertEquals(7, reader.getOperandA());
+            assertEquals(8, reader.getOperandB());
+            assertEquals(1, reader.getIndex());
+            assertTrue(reader.isReview());
+            for (int i = 0; i < question.getOptionCount(); i++) {
+                assertEquals(question.getOption(i), reader.getOption(i));
+            }
+            assertEquals(2, reader.getLives());
+            assertEquals(30, reader.getScore());
+
+            assertTrue(reader.next());
+            assertEquals(SessionJournal.ANSWER, reader.getType());
+            assertEquals(3, reader.getIndex());
+            assertEquals(333, reader.getReactionNanos());
+            assertFalse(reader.next());
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.mathrush;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    // Rueda pequeña: una vuelta dura 8 ms, así que casi todo da varias vueltas
+    private static final int WHEEL_SIZE = 8;
+
+    private static TimingWheel smallWheel() {
+        return new TimingWheel(1, TimeUnit.MILLISECONDS, WHEEL_SIZE, "TimingWheelTest");
+    }
+
+    private static void await(CountDownLatch latch) throws InterruptedException {
+        assertTrue(latch.await(5, TimeUnit.SECONDS), "El temporizador no se ejecutó");
+    }
+
+    @Test
+    void expiresAfterSeveralRoundsButNotBefore() throws InterruptedException {
+        try (TimingWheel wheel = smallWheel()) {
+            CountDownLatch fired = new CountDownLatch(1);
+            long[] elapsed = new long[1];
+            long start = System.nanoTime();
+
+            TimingWheel.Timeout timeout = wheel.schedule(() -> {
+                elapsed[0] = System.nanoTime() - start;
+                fired.countDown();
+            }, 45, TimeUnit.MILLISECONDS);
+
+            await(fired);
+            assertTrue(elapsed[0] >= TimeUnit.MILLISECONDS.toNanos(45), "Se ejecutó antes de tiempo");
+            assertTrue(timeout.isExpired());
+            assertFalse(timeout.cancel());
+        }
+    }
+
+    @Test
+    void timersInTheSameSlotFireInDeadlineOrder() throws InterruptedException {
+        try (TimingWheel wheel = smallWheel()) {
+            Queue<Integer> order = new ConcurrentLinkedQueue<>();
+            CountDownLatch fired = new CountDownLatch(4);
+            // Mismo resto módulo WHEEL_SIZE, distinta vuelta; se programan en desorden
+            for (int delay : new int[] {3 + 3 * WHEEL_SIZE, 3 + WHEEL_SIZE, 3 + 2 * WHEEL_SIZE, 3}) {
+                wheel.schedule(() -> {
+                    order.add(delay);
+                    fired.countDown();
+                }, delay, TimeUnit.MILLISECONDS);
+            }
+
+            await(fired);
+            assertEquals(List.of(3, 3 + WHEEL_SIZE, 3 + 2 * WHEEL_SIZE, 3 + 3 * WHEEL_SIZE), new ArrayList<>(order));
+        }
+    }
+
+    @Test
+    void cancelledTimerNeverRuns() throws InterruptedException {
+        try (TimingWheel wheel = smallWheel()) {
+            AtomicBoolean ran = new AtomicBoolean();
+            TimingWheel.Timeout cancelled = wheel.schedule(() -> ran.set(true), 20, TimeUnit.MILLISECONDS);
+            CountDownLatch later = new CountDownLatch(1);
+            wheel.schedule(later::countDown, 40, TimeUnit.MILLISECONDS);
+
+            assertTrue(cancelled.cancel());
+            assertFalse(cancelled.cancel());
+            assertTrue(cancelled.isCancelled());
+
+            await(later);
+            assertFalse(ran.get());
+            assertFalse(cancelled.isExpired());
+            assertEquals(0, wheel.getPendingCount());
+        }
+    }
+
+    @Test
+    void manyTimersAllExpire() throws InterruptedException {
+        try (TimingWheel wheel = smallWheel()) {
+            int count = 10_000;
+            CountDownLatch fired = new CountDownLatch(count);
+            for (int i = 0; i < count; i++) {
+                TimingWheel.Timeout timeout = wheel.schedule(fired::countDown, i % 50, TimeUnit.MILLISECONDS);
+                if (i % 10 == 0) {
+                    timeout.cancel();
+                    fired.countDown();
+                }
+            }
+
+            await(fired);
+            assertEquals(0, wheel.getPendingCount());
+        }
+    }
+
+    @Test
+    void failingTaskDoesNotStopTheWheel() throws InterruptedException {
+        try (TimingWheel wheel = smallWheel()) {
+            wheel.schedule(() -> {
+                throw new IllegalStateException("Falla a propósito");
+            }, 1, TimeUnit.MILLISECONDS);
+            CountDownLatch fired = new CountDownLatch(1);
+            wheel.schedule(fired::countDown, 10, TimeUnit.MILLISECONDS);
+
+            await(fired);
+        }
+    }
+
+    @Test
+    void closedWheelRejectsNewTimers() throws InterruptedException {
+        TimingWheel wheel = smallWheel();
+        wheel.close();
+
+        assertThrows(IllegalStateException.class, () -> wheel.schedule(() -> { }, 1, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void rejectsInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel(0, TimeUnit.MILLISECONDS, 8, "x"));
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel(1, TimeUnit.MILLISECONDS, 12, "x"));
+    }
+}